@@ -1,13 +1,25 @@
 import com.google.inject.AbstractModule;
+import com.typesafe.config.Config;
+import play.Environment;
 import play.libs.akka.AkkaGuiceSupport;
 import services.YoutubeService;
+import actors.ChannelActor;
+import actors.ScoreActor;
 import actors.SupervisorActor;
 
 
 public class Module extends AbstractModule implements AkkaGuiceSupport {
+    private final Config config;
+
+    public Module(Environment environment, Config config) {
+        this.config = config;
+    }
+
     @Override
     protected void configure() {
         bindActor(SupervisorActor.class, "supervisor-actor");
+        bindActor(ScoreActor.class, "score-router", props -> ScoreActor.poolProps(config.getInt("score.pool.size")));
+        bindActor(ChannelActor.class, "channel-router", props -> ChannelActor.poolProps(props, config.getInt("channel.pool.size")));
         bind(YoutubeService.class).asEagerSingleton();
     }
-}
\ No newline at end of file
+}
@@ -2,17 +2,26 @@ package actors;
 
 import akka.actor.AbstractActor;
 import akka.actor.Props;
+import akka.routing.RoundRobinPool;
 import models.Channel;
 import services.YoutubeService;
+import services.YoutubeExecutionContext;
+
+import javax.inject.Inject;
 
 /**
  * Actor responsible for handling requests to fetch channel profiles.
  * The actor interacts with the {@link YoutubeService} to retrieve data for a given channel.
+ * Replies go to the sender, so a single pool of these actors (see {@link #poolProps(Props, int)})
+ * serves every user session.
  *
  * Author: Adriana
  */
 public class ChannelActor extends AbstractActor {
 
+    /** Dispatcher reserved for actors that block on YouTube HTTP calls. */
+    public static final String DISPATCHER = YoutubeExecutionContext.DISPATCHER;
+
     private final YoutubeService youtubeService;
 
     /**
@@ -25,11 +34,24 @@ public class ChannelActor extends AbstractActor {
         return Props.create(ChannelActor.class, () -> new ChannelActor(youtubeService));
     }
 
+    /**
+     * Factory method to create a {@link Props} object for a round-robin pool of {@link ChannelActor}s
+     * running on the blocking YouTube dispatcher.
+     *
+     * @param workerProps the {@link Props} of a single worker, e.g. {@link #props(YoutubeService)}.
+     * @param poolSize    the number of workers in the pool.
+     * @return a {@link Props} object for creating the pooled router.
+     */
+    public static Props poolProps(Props workerProps, int poolSize) {
+        return new RoundRobinPool(poolSize).props(workerProps.withDispatcher(DISPATCHER));
+    }
+
     /**
      * Constructor for {@link ChannelActor}.
      *
      * @param youtubeService an instance of {@link YoutubeService} used to fetch YouTube channel data.
      */
+    @Inject
     public ChannelActor(YoutubeService youtubeService) {
         this.youtubeService = youtubeService;
     }
@@ -0,0 +1,121 @@
+package actors;
+
+import akka.actor.AbstractExtensionId;
+import akka.actor.ActorSystem;
+import akka.actor.ExtendedActorSystem;
+import akka.actor.Extension;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import play.libs.Json;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queue-wait statistics of the {@link SessionMailbox} lanes, shared by all sessions of an actor system.
+ * <p>
+ * For every lane it counts the messages dequeued, their total and maximum time spent waiting in the
+ * mailbox, and the messages dropped before they were processed. Obtain the instance with
+ * {@link #get(ActorSystem)}.
+ * </p>
+ * @author Hanieh
+ */
+public class MailboxLaneStats implements Extension {
+    private static final Id ID = new Id();
+
+    private final Map<SessionMailbox.Lane, LaneCounters> lanes = new EnumMap<>(SessionMailbox.Lane.class);
+
+    MailboxLaneStats() {
+        for (SessionMailbox.Lane lane : SessionMailbox.Lane.values()) {
+            lanes.put(lane, new LaneCounters());
+        }
+    }
+
+    /**
+     * Returns the statistics of an actor system, creating them on first use.
+     *
+     * @param system the actor system
+     * @return the lane statistics
+     */
+    public static MailboxLaneStats get(ActorSystem system) {
+        return ID.get(system);
+    }
+
+    /**
+     * Records a message leaving a lane.
+     *
+     * @param lane      the lane
+     * @param waitNanos how long the message waited in the mailbox
+     */
+    public void recordDequeued(SessionMailbox.Lane lane, long waitNanos) {
+        LaneCounters counters = lanes.get(lane);
+        counters.dequeued.increment();
+        counters.totalWaitNanos.add(waitNanos);
+        counters.maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Records a message dropped from a lane because a newer one superseded it.
+     *
+     * @param lane the lane
+     */
+    public void recordDropped(SessionMailbox.Lane lane) {
+        lanes.get(lane).dropped.increment();
+    }
+
+    public long getDequeued(SessionMailbox.Lane lane) {
+        return lanes.get(lane).dequeued.sum();
+    }
+
+    public long getDropped(SessionMailbox.Lane lane) {
+        return lanes.get(lane).dropped.sum();
+    }
+
+    /**
+     * Returns the mean time messages of a lane waited in the mailbox.
+     *
+     * @param lane the lane
+     * @return the mean wait in nanoseconds, 0 if nothing was dequeued yet
+     */
+    public long getMeanWaitNanos(SessionMailbox.Lane lane) {
+        LaneCounters counters = lanes.get(lane);
+        long dequeued = counters.dequeued.sum();
+        return dequeued == 0 ? 0 : counters.totalWaitNanos.sum() / dequeued;
+    }
+
+    public long getMaxWaitNanos(SessionMailbox.Lane lane) {
+        return lanes.get(lane).maxWaitNanos.get();
+    }
+
+    /**
+     * Renders the statistics as JSON, one object per lane.
+     *
+     * @return a JSON object keyed by lane name
+     */
+    public ObjectNode toJson() {
+        ObjectNode json = Json.newObject();
+        for (SessionMailbox.Lane lane : SessionMailbox.Lane.values()) {
+            ObjectNode laneJson = json.putObject(lane.name().toLowerCase());
+            laneJson.put("dequeued", getDequeued(lane));
+            laneJson.put("dropped", getDropped(lane));
+            laneJson.put("meanWaitMicros", getMeanWaitNanos(lane) / 1000);
+            laneJson.put("maxWaitMicros", getMaxWaitNanos(lane) / 1000);
+        }
+        return json;
+    }
+
+    private static class LaneCounters {
+        private final LongAdder dequeued = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private final LongAdder dropped = new LongAdder();
+    }
+
+    private static class Id extends AbstractExtensionId<MailboxLaneStats> {
+        @Override
+        public MailboxLaneStats createExtension(ExtendedActorSystem system) {
+            return new MailboxLaneStats();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package actors;
+
+import akka.stream.javadsl.Source;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import play.libs.Json;
+
+import java.util.List;
+
+/**
+ * Coalesces the outbound frames of a connection into batch frames.
+ * <p>
+ * Frames handed to the socket within a short window, up to a size cap, are sent as one
+ * {@code {"status":"success","type":"batch","frames":[...]}} frame, so bursts of small updates
+ * cost one write instead of many. A frame that is alone in its window is sent unchanged.
+ * </p>
+ * @author Hanieh
+ */
+public final class OutboundBatch {
+
+    private OutboundBatch() {
+    }
+
+    /**
+     * Applies batching to an outbound stream, as configured in the session settings, and records
+     * the frames leaving it as delivered.
+     *
+     * @param source   the outbound stream of single frames
+     * @param settings the session settings holding the batch window and size cap
+     * @param stats    the counters of the connection
+     * @param <M>      the materialized value of the stream
+     * @return the outbound stream of possibly batched frames
+     */
+    public static <M> Source<JsonNode, M> batched(Source<JsonNode, M> source, SessionSettings settings, OutboundStats stats) {
+        if (!settings.isOutboundBatchingEnabled()) {
+            return source.map(frame -> {
+                stats.recordDelivered(1);
+                return frame;
+            });
+        }
+        return source
+                .groupedWithin(settings.getOutboundBatchMaxFrames(), settings.getOutboundBatchWindow())
+                .map(frames -> {
+                    stats.recordDelivered(frames.size());
+                    return combine(frames);
+                });
+    }
+
+    /**
+     * Combines frames into one batch frame.
+     *
+     * @param frames the frames, in sending order
+     * @return the only frame if there is just one, otherwise a batch frame holding all of them
+     */
+    public static JsonNode combine(List<JsonNode> frames) {
+        if (frames.size() == 1) {
+            return frames.get(0);
+        }
+        ArrayNode batch = Json.newArray();
+        frames.forEach(batch::add);
+        ObjectNode frame = Json.newObject();
+        frame.put("status", "success");
+        frame.put("type", "batch");
+        frame.set("frames", batch);
+        return frame;
+    }
+}
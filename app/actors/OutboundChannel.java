@@ -0,0 +1,186 @@
+package actors;
+
+import akka.actor.ActorRef;
+import akka.stream.QueueOfferResult;
+import akka.stream.javadsl.SourceQueueWithComplete;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+
+/**
+ * The outbound side of a WebSocket session, owned and used only by its {@link UserActor}.
+ * <p>
+ * Frames are offered one at a time to a backpressured {@link SourceQueueWithComplete}. While an
+ * offer is outstanding the client is behind, and new frames wait here instead: frames sharing a
+ * conflation key are merged into the waiting frame, and once more than {@code maxPending} frames
+ * wait the oldest is dropped. Every outcome is counted in {@link OutboundStats}.
+ * </p>
+ * <p>
+ * Offer completions are reported back to the owning actor as {@link OfferCompleted} messages, which
+ * it must pass to {@link #onOfferCompleted(OfferCompleted)}; this keeps all state actor-confined.
+ * Each completion names the channel it belongs to, so an owner that replaced its channel can ignore
+ * completions of the previous one.
+ * </p>
+ * @author Hanieh
+ */
+public class OutboundChannel {
+    private final SourceQueueWithComplete<JsonNode> queue;
+    private final OutboundStats stats;
+    private final ActorRef owner;
+    private final int maxPending;
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<>();
+    private boolean offerInFlight;
+    private long uniqueKeys;
+
+    /**
+     * Creates the channel.
+     *
+     * @param queue      the backpressured queue feeding the WebSocket
+     * @param stats      the counters of this connection
+     * @param owner      the actor that receives {@link OfferCompleted} notifications
+     * @param maxPending the maximum number of frames allowed to wait while the client is behind
+     */
+    public OutboundChannel(SourceQueueWithComplete<JsonNode> queue, OutboundStats stats, ActorRef owner, int maxPending) {
+        this.queue = queue;
+        this.stats = stats;
+        this.owner = owner;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Sends a frame that must not be merged with any other frame.
+     *
+     * @param frame the frame to send
+     */
+    public void send(JsonNode frame) {
+        send(null, frame, null);
+    }
+
+    /**
+     * Sends a frame, merging it into a waiting frame with the same key if the client is behind.
+     *
+     * @param key   the conflation key, or {@code null} if the frame must not be merged
+     * @param frame the frame to send
+     * @param merge combines the waiting frame (first argument) with the new one (second argument)
+     */
+    public void send(String key, JsonNode frame, BinaryOperator<JsonNode> merge) {
+        if (!offerInFlight && pending.isEmpty()) {
+            offer(frame);
+            return;
+        }
+
+        Pending waiting = key != null ? pending.get(key) : null;
+        if (waiting != null && waiting.merge != null) {
+            waiting.frame = waiting.merge.apply(waiting.frame, frame);
+            stats.recordConflated();
+            return;
+        }
+
+        pending.put(key != null ? key : "#" + (uniqueKeys++), new Pending(frame, merge));
+        if (pending.size() > maxPending) {
+            Iterator<Map.Entry<String, Pending>> eldest = pending.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+            stats.recordDropped();
+        }
+        stats.setPending(pending.size());
+    }
+
+    /**
+     * Handles the completion of the outstanding offer and offers the next waiting frame, if any.
+     *
+     * @param completed the completion notification
+     */
+    public void onOfferCompleted(OfferCompleted completed) {
+        offerInFlight = false;
+        if (completed.failure != null || completed.result != QueueOfferResult.enqueued()) {
+            stats.recordDropped();
+            if (completed.failure != null || completed.result == QueueOfferResult.QueueClosed$.MODULE$) {
+                pending.clear();
+                stats.setPending(0);
+                return;
+            }
+        } else {
+            stats.recordEnqueued();
+        }
+
+        Iterator<Pending> next = pending.values().iterator();
+        if (next.hasNext()) {
+            JsonNode frame = next.next().frame;
+            next.remove();
+            stats.setPending(pending.size());
+            offer(frame);
+        }
+    }
+
+    /**
+     * Tells whether the client is currently behind, i.e. an offer is outstanding.
+     *
+     * @return {@code true} if the stream is applying backpressure
+     */
+    public boolean isBackpressured() {
+        return offerInFlight;
+    }
+
+    public OutboundStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Completes the outbound stream, which closes the WebSocket.
+     */
+    public void complete() {
+        queue.complete();
+    }
+
+    private void offer(JsonNode frame) {
+        offerInFlight = true;
+        queue.offer(frame).whenComplete((result, failure) ->
+                owner.tell(new OfferCompleted(this, result, failure), ActorRef.noSender()));
+    }
+
+    private static class Pending {
+        private JsonNode frame;
+        private final BinaryOperator<JsonNode> merge;
+
+        private Pending(JsonNode frame, BinaryOperator<JsonNode> merge) {
+            this.frame = frame;
+            this.merge = merge;
+        }
+    }
+
+    /**
+     * Notification that an offer to the outbound queue has completed.
+     */
+    public static class OfferCompleted {
+        private final OutboundChannel channel;
+        private final QueueOfferResult result;
+        private final Throwable failure;
+
+        /**
+         * @param channel the channel whose offer completed
+         * @param result  the outcome of the offer, or {@code null} if it failed
+         * @param failure the failure of the offer, or {@code null}
+         */
+        public OfferCompleted(OutboundChannel channel, QueueOfferResult result, Throwable failure) {
+            this.channel = channel;
+            this.result = result;
+            this.failure = failure;
+        }
+
+        public OutboundChannel getChannel() {
+            return channel;
+        }
+
+        public QueueOfferResult getResult() {
+            return result;
+        }
+
+        public Throwable getFailure() {
+            return failure;
+        }
+    }
+}
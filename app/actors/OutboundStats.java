@@ -0,0 +1,103 @@
+package actors;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import play.libs.Json;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-connection counters for the outbound WebSocket stream.
+ * <p>
+ * The session actor updates the enqueue, conflate and drop counters, while the stream stage that
+ * hands frames to the socket updates the delivered counter, so all counters are thread-safe.
+ * </p>
+ * @author Hanieh
+ */
+public class OutboundStats {
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong conflated = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private volatile int pending;
+
+    /** Records a frame accepted into the stream buffer. */
+    public void recordEnqueued() {
+        enqueued.incrementAndGet();
+    }
+
+    /**
+     * Records frames leaving the stream buffer towards the socket in one write.
+     *
+     * @param frames the number of frames in the write, more than one if they were batched
+     */
+    public void recordDelivered(int frames) {
+        delivered.addAndGet(frames);
+        writes.incrementAndGet();
+    }
+
+    /** Records a frame merged into a frame that was already waiting. */
+    public void recordConflated() {
+        conflated.incrementAndGet();
+    }
+
+    /** Records a frame that was discarded. */
+    public void recordDropped() {
+        dropped.incrementAndGet();
+    }
+
+    /**
+     * Updates the number of frames waiting in the session, in front of the stream buffer.
+     *
+     * @param pending the number of waiting frames
+     */
+    public void setPending(int pending) {
+        this.pending = pending;
+    }
+
+    /**
+     * Returns the number of frames produced but not yet handed to the socket:
+     * those in the stream buffer plus those waiting in the session.
+     *
+     * @return the current buffer depth
+     */
+    public long getBufferDepth() {
+        return Math.max(0, enqueued.get() - delivered.get()) + pending;
+    }
+
+    public long getEnqueued() {
+        return enqueued.get();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getConflated() {
+        return conflated.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    /**
+     * Renders the counters as JSON.
+     *
+     * @return a JSON object with the current counter values
+     */
+    public ObjectNode toJson() {
+        ObjectNode json = Json.newObject();
+        json.put("bufferDepth", getBufferDepth());
+        json.put("enqueued", getEnqueued());
+        json.put("delivered", getDelivered());
+        json.put("conflated", getConflated());
+        json.put("dropped", getDropped());
+        json.put("writes", getWrites());
+        return json;
+    }
+}
@@ -0,0 +1,366 @@
+package actors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import models.Video;
+import play.libs.Json;
+import utils.ReadabilityAccumulator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The client-visible result window of one streaming query, used to send delta frames.
+ * <p>
+ * Each poll is compared with the previous one: videos that appeared are <em>added</em>, videos whose
+ * content changed are <em>changed</em> and videos that left the window are <em>removed</em>. Only
+ * added and changed videos are scored and sent in full; removed videos are sent as IDs. Every delta
+ * frame of a query carries a monotonic {@code seq}; a client that sees a gap asks for a snapshot.
+ * </p>
+ * <p>
+ * Each frame also carries the query-level readability statistics of the videos currently in the
+ * window, kept in a {@link ReadabilityAccumulator}: a delta removes the old scores of removed and
+ * changed videos and adds the new scores of added and changed ones, so updating the statistics costs
+ * O(1) per video in the delta rather than a pass over the window.
+ * </p>
+ * Frame formats:
+ * <pre>
+ * {"status":"success","type":"delta","seq":7,"baseSeq":7,
+ *  "result":{"searchQuery":"q","added":[...],"changed":[...],"removed":["id", ...],"readability":{...}}}
+ * {"status":"success","type":"snapshot","seq":7,"result":{"searchQuery":"q","videos":[...],"readability":{...}}}
+ * </pre>
+ * {@code baseSeq} is the first sequence number covered by a delta; it is lower than {@code seq} when
+ * several deltas were merged while the client was behind. {@code readability} holds the
+ * {@linkplain ReadabilityAccumulator#toJson() statistics} of the window as of {@code seq}.
+ *
+ * @author Hanieh
+ */
+public class ResultWindow {
+    private final String query;
+    private final Map<String, Integer> fingerprints = new LinkedHashMap<>();
+    private final Map<String, JsonNode> videos = new LinkedHashMap<>();
+    private final ReadabilityAccumulator readability = new ReadabilityAccumulator();
+    private long seq;
+
+    /**
+     * Creates an empty window for a query.
+     *
+     * @param query the search query
+     */
+    public ResultWindow(String query) {
+        this.query = query;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * @return the readability statistics of the videos currently in the window
+     */
+    public ReadabilityAccumulator getReadability() {
+        return readability;
+    }
+
+    /**
+     * Compares the latest poll with the window and remembers the latest poll as the new window.
+     *
+     * @param latest the videos returned by the latest poll
+     * @return the difference, empty if nothing changed
+     */
+    public Delta diff(List<Video> latest) {
+        Delta delta = new Delta();
+        Map<String, Integer> next = new LinkedHashMap<>();
+        for (Video video : latest) {
+            int fingerprint = fingerprint(video);
+            next.put(video.getVideoId(), fingerprint);
+            Integer previous = fingerprints.get(video.getVideoId());
+            if (previous == null) {
+                delta.added.add(video.getVideoId());
+                delta.upserts.put(video.getVideoId(), video);
+            } else if (previous != fingerprint) {
+                delta.upserts.put(video.getVideoId(), video);
+            }
+        }
+        for (String videoId : fingerprints.keySet()) {
+            if (!next.containsKey(videoId)) {
+                delta.removed.add(videoId);
+            }
+        }
+        fingerprints.clear();
+        fingerprints.putAll(next);
+        return delta;
+    }
+
+    /**
+     * Applies a delta whose upserted videos have been scored and builds the frame to send.
+     *
+     * @param delta  the delta produced by {@link #diff(List)}
+     * @param scored the scored videos as JSON, in any order
+     * @return the delta frame, carrying the next sequence number
+     */
+    public ObjectNode apply(Delta delta, JsonNode scored) {
+        ArrayNode added = Json.newArray();
+        ArrayNode changed = Json.newArray();
+        for (JsonNode video : scored) {
+            String videoId = video.path("videoId").asText();
+            JsonNode previous = videos.put(videoId, video);
+            if (previous != null) {
+                readability.remove(gradeLevel(previous), readingEase(previous));
+            }
+            readability.add(gradeLevel(video), readingEase(video));
+            if (delta.added.contains(videoId)) {
+                added.add(video);
+            } else {
+                changed.add(video);
+            }
+        }
+        ArrayNode removed = Json.newArray();
+        for (String videoId : delta.removed) {
+            JsonNode previous = videos.remove(videoId);
+            if (previous != null) {
+                readability.remove(gradeLevel(previous), readingEase(previous));
+            }
+            removed.add(videoId);
+        }
+
+        seq++;
+        ObjectNode result = Json.newObject();
+        result.put("searchQuery", query);
+        result.set("added", added);
+        result.set("changed", changed);
+        result.set("removed", removed);
+        result.set("readability", readability.toJson());
+        ObjectNode frame = Json.newObject();
+        frame.put("status", "success");
+        frame.put("type", "delta");
+        frame.put("seq", seq);
+        frame.put("baseSeq", seq);
+        frame.set("result", result);
+        return frame;
+    }
+
+    /**
+     * Forgets polled changes that never reached the client, e.g. because the subscription was paused
+     * while they were being scored. The next poll is then compared with what the client last received.
+     */
+    public void rewind() {
+        fingerprints.clear();
+        for (JsonNode video : videos.values()) {
+            fingerprints.put(video.path("videoId").asText(), fingerprint(video));
+        }
+    }
+
+    /**
+     * Creates a separate window for diffing polls outside the session, e.g. in a {@link SearchPipeline},
+     * starting from what the client last received. Deltas it produces are applied to this window.
+     *
+     * @return a new window holding only the fingerprints of the videos the client currently has
+     */
+    public ResultWindow tracker() {
+        ResultWindow tracker = new ResultWindow(query);
+        for (JsonNode video : videos.values()) {
+            tracker.fingerprints.put(video.path("videoId").asText(), fingerprint(video));
+        }
+        return tracker;
+    }
+
+    /**
+     * Creates a separate window that diffs the next poll exactly as this one would, e.g. to run the
+     * same {@link SearchPipeline} graph more than once from one starting point.
+     *
+     * @return a new window holding a copy of the fingerprints of this one
+     */
+    ResultWindow fork() {
+        ResultWindow fork = new ResultWindow(query);
+        fork.fingerprints.putAll(fingerprints);
+        return fork;
+    }
+
+    /**
+     * Builds a snapshot frame holding every video the client should currently see.
+     *
+     * @return the snapshot frame, carrying the current sequence number
+     */
+    public ObjectNode snapshot() {
+        ObjectNode result = Json.newObject();
+        result.put("searchQuery", query);
+        result.set("videos", Json.toJson(videos.values()));
+        result.set("readability", readability.toJson());
+        ObjectNode frame = Json.newObject();
+        frame.put("status", "success");
+        frame.put("type", "snapshot");
+        frame.put("seq", seq);
+        frame.set("result", result);
+        return frame;
+    }
+
+    /**
+     * Merges two frames of the same query that are waiting to be sent into one equivalent frame.
+     * <p>
+     * A snapshot replaces whatever was waiting; a delta on top of a snapshot is applied to it; two
+     * deltas are combined into one covering both sequence ranges. The readability statistics describe
+     * the whole window, so the newer frame's are kept.
+     * </p>
+     *
+     * @param waiting the frame that is still waiting
+     * @param update  the newer frame
+     * @return the merged frame
+     */
+    public static JsonNode mergeFrames(JsonNode waiting, JsonNode update) {
+        if ("snapshot".equals(update.path("type").asText())) {
+            return update;
+        }
+
+        JsonNode change = update.path("result");
+        if ("snapshot".equals(waiting.path("type").asText())) {
+            Map<String, JsonNode> current = byVideoId(waiting.path("result").path("videos"));
+            change.path("removed").forEach(id -> current.remove(id.asText()));
+            current.putAll(byVideoId(change.path("added")));
+            current.putAll(byVideoId(change.path("changed")));
+            ObjectNode merged = waiting.deepCopy();
+            merged.put("seq", update.path("seq").asLong());
+            ((ObjectNode) merged.get("result")).set("videos", Json.toJson(current.values()));
+            if (change.has("readability")) {
+                ((ObjectNode) merged.get("result")).set("readability", change.get("readability"));
+            }
+            return merged;
+        }
+
+        JsonNode base = waiting.path("result");
+        Map<String, JsonNode> added = byVideoId(base.path("added"));
+        Map<String, JsonNode> changed = byVideoId(base.path("changed"));
+        Set<String> removed = new LinkedHashSet<>();
+        base.path("removed").forEach(id -> removed.add(id.asText()));
+
+        for (JsonNode id : change.path("removed")) {
+            String videoId = id.asText();
+            changed.remove(videoId);
+            if (added.remove(videoId) == null) {
+                removed.add(videoId);
+            }
+        }
+        for (Map.Entry<String, JsonNode> entry : byVideoId(change.path("added")).entrySet()) {
+            // Removed and then added again within the merged range: the client still has nothing to drop
+            if (removed.remove(entry.getKey())) {
+                changed.put(entry.getKey(), entry.getValue());
+            } else {
+                added.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, JsonNode> entry : byVideoId(change.path("changed")).entrySet()) {
+            if (added.containsKey(entry.getKey())) {
+                added.put(entry.getKey(), entry.getValue());
+            } else {
+                changed.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        ObjectNode merged = update.deepCopy();
+        merged.put("baseSeq", waiting.path("baseSeq").asLong());
+        ObjectNode result = (ObjectNode) merged.get("result");
+        result.set("added", Json.toJson(added.values()));
+        result.set("changed", Json.toJson(changed.values()));
+        result.set("removed", Json.toJson(removed));
+        return merged;
+    }
+
+    private static Map<String, JsonNode> byVideoId(JsonNode videos) {
+        Map<String, JsonNode> map = new LinkedHashMap<>();
+        videos.forEach(video -> map.put(video.path("videoId").asText(), video));
+        return map;
+    }
+
+    private static double gradeLevel(JsonNode video) {
+        return video.path("fleschKincaidGradeLevel").asDouble();
+    }
+
+    private static double readingEase(JsonNode video) {
+        return video.path("fleschReadingEaseScore").asDouble();
+    }
+
+    private static int fingerprint(Video video) {
+        return fingerprint(video.getTitle(), video.getDescription(), video.getThumbnailUrl(), video.getChannel());
+    }
+
+    private static int fingerprint(JsonNode video) {
+        return fingerprint(video.path("title").asText(), video.path("description").asText(),
+                video.path("thumbnailUrl").asText(), video.path("channel").asText());
+    }
+
+    private static int fingerprint(String title, String description, String thumbnailUrl, String channel) {
+        return Objects.hash(title, description, thumbnailUrl, channel);
+    }
+
+    /**
+     * The difference between two polls of a query.
+     */
+    public static class Delta {
+        private final Map<String, Video> upserts = new LinkedHashMap<>();
+        private final Set<String> added = new LinkedHashSet<>();
+        private final Set<String> removed = new LinkedHashSet<>();
+
+        /**
+         * Returns the added and changed videos, which need scoring before they are sent.
+         *
+         * @return the videos to score
+         */
+        public List<Video> getUpserts() {
+            return new ArrayList<>(upserts.values());
+        }
+
+        public Set<String> getRemoved() {
+            return removed;
+        }
+
+        public boolean isEmpty() {
+            return upserts.isEmpty() && removed.isEmpty();
+        }
+
+        /**
+         * Tells whether a score result belongs to this delta, i.e. it only holds videos this delta upserts.
+         *
+         * @param scored the scored videos as JSON
+         * @return {@code true} if every scored video is one of the upserts
+         */
+        public boolean isScoredBy(JsonNode scored) {
+            for (JsonNode video : scored) {
+                if (!upserts.containsKey(video.path("videoId").asText())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Folds a later delta of the same query into this one, so both can be scored and sent together.
+         *
+         * @param later the later delta
+         */
+        public void merge(Delta later) {
+            for (String videoId : later.removed) {
+                upserts.remove(videoId);
+                if (!added.remove(videoId)) {
+                    removed.add(videoId);
+                }
+            }
+            for (Map.Entry<String, Video> entry : later.upserts.entrySet()) {
+                String videoId = entry.getKey();
+                if (later.added.contains(videoId) && !removed.remove(videoId)) {
+                    added.add(videoId);
+                }
+                upserts.put(videoId, entry.getValue());
+            }
+        }
+    }
+}
@@ -3,6 +3,9 @@ package actors;
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
 import akka.actor.Cancellable;
+import akka.actor.Props;
+import akka.routing.ConsistentHashingPool;
+import akka.routing.ConsistentHashingRouter;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import models.Video;
 import play.libs.Json;
@@ -19,10 +22,38 @@ import java.util.stream.Collectors;
  * calculates readability scores for each video using the {@link ReadabilityCalculator},
  * and sends the results back to the requesting actor.
  * </p>
+ * <p>
+ * Scoring is CPU-bound, so a single pool of {@code ScoreActor} workers is shared by every session
+ * (see {@link #poolProps(int)}) instead of each user owning its own instance.
+ * </p>
  * @author Hanieh
  */
 public class ScoreActor extends AbstractActor {
 
+    /** Dispatcher the scoring workers run on, sized to the available cores in {@code application.conf}. */
+    public static final String DISPATCHER = "score-dispatcher";
+
+    /** Bounded, non-blocking mailbox used by each scoring worker. */
+    public static final String MAILBOX = "score-mailbox";
+
+    /**
+     * Creates the {@link Props} for a consistent-hashing pool of scoring workers.
+     * <p>
+     * Tasks are routed by user ID, so every batch of a given session lands on the same worker
+     * and score results reach the session in the order they were requested.
+     * </p>
+     *
+     * @param poolSize the number of workers in the pool; values below 1 fall back to the number of available cores
+     * @return a {@link Props} object for creating the pooled router
+     */
+    public static Props poolProps(int poolSize) {
+        int workers = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new ConsistentHashingPool(workers)
+                .props(Props.create(ScoreActor.class)
+                        .withDispatcher(DISPATCHER)
+                        .withMailbox(MAILBOX));
+    }
+
     @Override
     public Receive createReceive() {
         return receiveBuilder()
@@ -52,7 +83,13 @@ public class ScoreActor extends AbstractActor {
         task.getRequestingActor().tell(scoreResult, getSelf());
     }
 
-    public static class ScoreTask {
+    /**
+     * A batch of videos to score on behalf of a user session.
+     * <p>
+     * The user ID doubles as the consistent-hash key so the router keeps a session on one worker.
+     * </p>
+     */
+    public static class ScoreTask implements ConsistentHashingRouter.ConsistentHashable {
         private final List<Video> videoList;
         private final String userId;
         private final ActorRef requestingActor;
@@ -70,5 +107,10 @@ public class ScoreActor extends AbstractActor {
             return requestingActor;
         }
         public String getUserId() {return userId;}
+
+        @Override
+        public Object consistentHashKey() {
+            return userId;
+        }
     }
 }
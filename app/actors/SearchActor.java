@@ -2,12 +2,10 @@ package actors;
 
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
-import akka.actor.Props;
 import akka.actor.Cancellable;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import models.Video;
 import play.libs.Json;
-import actors.ScoreActor;
 import services.YoutubeService;
 
 import java.time.Duration;
@@ -19,24 +17,29 @@ import java.util.stream.Collectors;
  * <p>
  * The {@code SearchActor} handles {@link SearchTask} messages, interacts with the {@link YoutubeService}
  * to fetch video search results, and forwards these results to the requesting actor.
- * It also schedules periodic searches and manages a child {@link ScoreActor} for readability score calculation.
+ * It also schedules periodic searches; scoring of the results is left to the shared {@link ScoreActor} pool.
+ * </p>
+ * <p>
+ * Each search actor serves one subscription of a session: results are tagged with the subscription
+ * they belong to, and a new task replaces the previous one instead of polling alongside it.
  * </p>
  * @author Hanieh
  */
 public class SearchActor extends AbstractActor {
+    /** The number of results kept per poll when a task does not ask for a limit. */
+    public static final int DEFAULT_LIMIT = 10;
+    /** The largest limit a task may ask for, YouTube's cap on search results per request. */
+    public static final int MAX_LIMIT = 50;
+    /** The interval between polls when a task does not ask for one. */
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(1000);
+
     private final YoutubeService youtubeService;
     private final ActorRef supervisorActor;
-    private final ActorRef scoreActor;
     private Cancellable scheduler;
 
     public SearchActor(ActorRef supervisorActor, YoutubeService youtubeService) {
         this.supervisorActor = supervisorActor;
         this.youtubeService = youtubeService;
-
-        this.scoreActor = getContext().actorOf(
-                Props.create(ScoreActor.class),
-                "ScoreActor"
-        );
     }
 
     @Override
@@ -58,25 +61,26 @@ public class SearchActor extends AbstractActor {
      */
     private void performSearch(SearchTask task) {
         System.out.println("[SearchActor] Starting streaming search for query: " + task.getSearchQuery());
+        stopScheduler();
 
         scheduler = getContext().system().scheduler().scheduleAtFixedRate(
                 Duration.ofSeconds(0), // Initial delay
-                Duration.ofSeconds(1000), // Interval between calls
+                task.getPollInterval(), // Interval between calls
                 () -> {
                     try {
                         // Call the YouTube service and fetch a list of videos
                         List<Video> videos = youtubeService.searchVideos(task.getSearchQuery())
                                 .stream()
-                                .limit(10)
+                                .limit(task.getLimit())
                                 .collect(Collectors.toList());
 
                         System.out.println("[SearchActor] Sending search results to UserActor...");
                         // Send results to the requesting actor
-                        task.getRequestingActor().tell(videos, getSelf());
+                        task.getRequestingActor().tell(new SearchResult(task.getSubscriptionId(), task.getSearchQuery(), videos), getSelf());
                     }
                     catch (Exception e) {
                         System.err.println("[SearchActor] Error performing search: " + e.getMessage());
-                        supervisorActor.tell(new SupervisorActor.SearchActorFailure(task.getUserId(), e), getSelf());
+                        supervisorActor.tell(new SupervisorActor.SearchActorFailure(task.getUserId(), task.getSubscriptionId(), e), getSelf());
                         stopScheduler();
                         //throw new RuntimeException(e);
                     }
@@ -86,6 +90,14 @@ public class SearchActor extends AbstractActor {
     }
 
 
+    /**
+     * Cancels the polling scheduler when the actor stops, e.g. because its session ended.
+     */
+    @Override
+    public void postStop() {
+        stopScheduler();
+    }
+
     private void onUnknownMessage(Object message) {
         System.err.println("[SearchActor] Unknown message received: " + message.getClass());
     }
@@ -101,11 +113,26 @@ public class SearchActor extends AbstractActor {
         private final String searchQuery;
         private final String userId;
         private final ActorRef requestingActor;
+        private final String subscriptionId;
+        private final int limit;
+        private final Duration pollInterval;
 
         public SearchTask(String searchQuery, String userId, ActorRef requestingActor) {
+            this(searchQuery, userId, requestingActor, searchQuery, DEFAULT_LIMIT);
+        }
+
+        public SearchTask(String searchQuery, String userId, ActorRef requestingActor, String subscriptionId, int limit) {
+            this(searchQuery, userId, requestingActor, subscriptionId, limit, DEFAULT_POLL_INTERVAL);
+        }
+
+        public SearchTask(String searchQuery, String userId, ActorRef requestingActor, String subscriptionId, int limit,
+                          Duration pollInterval) {
             this.searchQuery = searchQuery;
             this.userId = userId;
             this.requestingActor = requestingActor;
+            this.subscriptionId = subscriptionId;
+            this.limit = limit;
+            this.pollInterval = pollInterval;
         }
 
         public String getSearchQuery() {
@@ -117,6 +144,45 @@ public class SearchActor extends AbstractActor {
         }
 
         public String getUserId() {return userId;}
+
+        public String getSubscriptionId() {
+            return subscriptionId;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+    }
+
+    /**
+     * The videos found by one poll of a subscription.
+     */
+    public static class SearchResult {
+        private final String subscriptionId;
+        private final String searchQuery;
+        private final List<Video> videos;
+
+        public SearchResult(String subscriptionId, String searchQuery, List<Video> videos) {
+            this.subscriptionId = subscriptionId;
+            this.searchQuery = searchQuery;
+            this.videos = videos;
+        }
+
+        public String getSubscriptionId() {
+            return subscriptionId;
+        }
+
+        public String getSearchQuery() {
+            return searchQuery;
+        }
+
+        public List<Video> getVideos() {
+            return videos;
+        }
     }
 
     private void stopScheduler() {
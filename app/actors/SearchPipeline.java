@@ -0,0 +1,251 @@
+package actors;
+
+import akka.actor.ActorRef;
+import akka.stream.KillSwitches;
+import akka.stream.Materializer;
+import akka.stream.UniqueKillSwitch;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import com.fasterxml.jackson.databind.JsonNode;
+import models.Video;
+import play.libs.Json;
+import services.YoutubeService;
+import utils.ReadabilityCalculator;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * The search, dedupe, score chain of one {@link Subscription} as a single backpressured stream graph.
+ * <p>
+ * A tick source polls YouTube on the blocking executor with a bounded number of searches in flight,
+ * a stateful stage diffs every poll against the subscription's {@link ResultWindow} and drops polls
+ * that changed nothing, and the added and changed videos are scored in parallel chunks on the CPU
+ * executor. Scored deltas go to the session through an acknowledging sink: the session only
+ * acknowledges once its outbound queue has room, so a slow socket stops scoring and, because ticks
+ * without demand are dropped, polling as well.
+ * </p>
+ * <p>
+ * This replaces the {@link SearchActor} and {@link ScoreActor} hops of the actor chain when
+ * {@code session.search.mode = "stream"}. Each run is its own instance; the messages it sends carry
+ * the instance so the session can ignore those of a run it already stopped.
+ * </p>
+ * @author Hanieh
+ */
+public class SearchPipeline {
+    private static final Object TICK = new Object();
+
+    private final Subscription subscription;
+    private final ResultWindow start;
+    private UniqueKillSwitch killSwitch;
+
+    /**
+     * Prepares a run for a subscription. Must be called by the owning session, as it reads the
+     * subscription's window to start diffing from what the client last received.
+     *
+     * @param subscription the subscription to poll for
+     */
+    public SearchPipeline(Subscription subscription) {
+        this.subscription = subscription;
+        this.start = subscription.getWindow().tracker();
+    }
+
+    public Subscription getSubscription() {
+        return subscription;
+    }
+
+    /**
+     * Builds the stream graph of this run without running it. Every materialization diffs with its
+     * own window, starting from what the client had when this run was prepared.
+     *
+     * @param youtubeService the service to search with
+     * @param settings       the poll interval and stage parallelism
+     * @param fetchExecutor  the executor blocking searches run on
+     * @param scoreExecutor  the executor scoring runs on
+     * @return the source of scored deltas, materializing to the switch that stops it
+     */
+    public Source<ScoredDelta, UniqueKillSwitch> source(YoutubeService youtubeService, SearchSettings settings,
+                                                        Executor fetchExecutor, Executor scoreExecutor) {
+        String query = subscription.getQuery();
+        int limit = subscription.getLimit();
+        return Source.tick(Duration.ZERO, settings.getPollInterval(), TICK)
+                .viaMat(KillSwitches.single(), Keep.right())
+                .mapAsync(settings.getFetchParallelism(), tick ->
+                        CompletableFuture.supplyAsync(() -> search(youtubeService, query, limit), fetchExecutor))
+                .statefulMapConcat(() -> {
+                    ResultWindow tracker = start.fork();
+                    return videos -> {
+                        ResultWindow.Delta delta = tracker.diff(videos);
+                        return delta.isEmpty() ? Collections.<ResultWindow.Delta>emptyList() : List.of(delta);
+                    };
+                })
+                .mapAsync(1, delta -> score(delta.getUpserts(), settings.getScoreParallelism(), scoreExecutor)
+                        .thenApply(scored -> new ScoredDelta(this, delta, scored)));
+    }
+
+    /**
+     * Runs the stream graph into a session.
+     * <p>
+     * The session receives {@link Started} first, then one {@link ScoredDelta} per changed poll, and
+     * {@link Failed} if a search fails. It must answer {@link Started} and every {@link ScoredDelta}
+     * with {@link Ack#INSTANCE} to the sender before the next element is delivered.
+     * </p>
+     *
+     * @param youtubeService the service to search with
+     * @param settings       the poll interval and stage parallelism
+     * @param fetchExecutor  the executor blocking searches run on
+     * @param scoreExecutor  the executor scoring runs on
+     * @param session        the session actor receiving the scored deltas
+     * @param materializer   the materializer to run the stream with
+     */
+    public void start(YoutubeService youtubeService, SearchSettings settings, Executor fetchExecutor,
+                      Executor scoreExecutor, ActorRef session, Materializer materializer) {
+        killSwitch = source(youtubeService, settings, fetchExecutor, scoreExecutor)
+                .toMat(Sink.actorRefWithBackpressure(session, new Started(this), Ack.INSTANCE,
+                        new Completed(this), failure -> new Failed(this, failure)), Keep.left())
+                .run(materializer);
+    }
+
+    /**
+     * Stops the run. Deltas already sent to the session may still arrive.
+     */
+    public void stop() {
+        if (killSwitch != null) {
+            killSwitch.shutdown();
+        }
+    }
+
+    /**
+     * Runs one search, keeping the first {@code limit} videos.
+     *
+     * @param youtubeService the service to search with
+     * @param query          the search query
+     * @param limit          the number of videos to keep
+     * @return the videos found
+     * @throws CompletionException wrapping the failure of the search
+     */
+    private static List<Video> search(YoutubeService youtubeService, String query, int limit) {
+        try {
+            return youtubeService.searchVideos(query).stream().limit(limit).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Scores videos in up to {@code parallelism} chunks at once.
+     *
+     * @param videos      the videos to score
+     * @param parallelism the largest number of chunks scored at once
+     * @param executor    the executor scoring runs on
+     * @return the scored videos as a JSON array, in the given order
+     */
+    static CompletionStage<JsonNode> score(List<Video> videos, int parallelism, Executor executor) {
+        if (videos.isEmpty()) {
+            return CompletableFuture.completedFuture(Json.newArray());
+        }
+        int chunkSize = (videos.size() + parallelism - 1) / parallelism;
+        List<CompletableFuture<List<Video>>> chunks = new ArrayList<>();
+        for (int from = 0; from < videos.size(); from += chunkSize) {
+            List<Video> chunk = videos.subList(from, Math.min(from + chunkSize, videos.size()));
+            chunks.add(CompletableFuture.supplyAsync(() -> ReadabilityCalculator.calculateReadabilityScores(chunk), executor));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<Video> scored = new ArrayList<>(videos.size());
+            chunks.forEach(chunk -> scored.addAll(chunk.join()));
+            return Json.toJson(scored);
+        });
+    }
+
+    /**
+     * The acknowledgement a session sends for every element it took from a pipeline.
+     */
+    public enum Ack { INSTANCE }
+
+    /**
+     * Sent to the session when a run starts.
+     */
+    public static class Started {
+        private final SearchPipeline pipeline;
+
+        public Started(SearchPipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        public SearchPipeline getPipeline() {
+            return pipeline;
+        }
+    }
+
+    /**
+     * A changed poll of a run, with its added and changed videos scored.
+     */
+    public static class ScoredDelta {
+        private final SearchPipeline pipeline;
+        private final ResultWindow.Delta delta;
+        private final JsonNode scored;
+
+        public ScoredDelta(SearchPipeline pipeline, ResultWindow.Delta delta, JsonNode scored) {
+            this.pipeline = pipeline;
+            this.delta = delta;
+            this.scored = scored;
+        }
+
+        public SearchPipeline getPipeline() {
+            return pipeline;
+        }
+
+        public ResultWindow.Delta getDelta() {
+            return delta;
+        }
+
+        public JsonNode getScored() {
+            return scored;
+        }
+    }
+
+    /**
+     * Sent to the session when a run was stopped.
+     */
+    public static class Completed {
+        private final SearchPipeline pipeline;
+
+        public Completed(SearchPipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        public SearchPipeline getPipeline() {
+            return pipeline;
+        }
+    }
+
+    /**
+     * Sent to the session when a run failed, typically because a search failed.
+     */
+    public static class Failed {
+        private final SearchPipeline pipeline;
+        private final Throwable cause;
+
+        public Failed(SearchPipeline pipeline, Throwable cause) {
+            this.pipeline = pipeline;
+            this.cause = cause;
+        }
+
+        public SearchPipeline getPipeline() {
+            return pipeline;
+        }
+
+        public Throwable getCause() {
+            return cause;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package actors;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Tunables of the search path of a session, read from the {@code session.search} block of {@code application.conf}.
+ *
+ * @author Hanieh
+ */
+public class SearchSettings {
+
+    /**
+     * How a subscription is polled, deduplicated and scored.
+     */
+    public enum Mode {
+        /** One {@link SearchActor} per subscription, scoring on the shared {@link ScoreActor} pool. */
+        ACTORS,
+        /** One {@link SearchPipeline} stream graph per subscription, backpressured up to the socket. */
+        STREAM
+    }
+
+    private final Mode mode;
+    private final Duration pollInterval;
+    private final int fetchParallelism;
+    private final int scoreParallelism;
+
+    /**
+     * Creates the settings.
+     *
+     * @param mode             how subscriptions are polled and scored
+     * @param pollInterval     how often a subscription polls YouTube
+     * @param fetchParallelism the number of searches of one pipeline that may be in flight at once
+     * @param scoreParallelism the number of videos of one pipeline scored at once on the CPU pool
+     */
+    public SearchSettings(Mode mode, Duration pollInterval, int fetchParallelism, int scoreParallelism) {
+        this.mode = mode;
+        this.pollInterval = pollInterval;
+        this.fetchParallelism = fetchParallelism;
+        this.scoreParallelism = scoreParallelism;
+    }
+
+    /**
+     * Reads the settings from configuration.
+     *
+     * @param config the application configuration
+     * @return the search settings
+     * @throws ConfigException.BadValue if a parallelism is lower than 1
+     */
+    public static SearchSettings fromConfig(Config config) {
+        return new SearchSettings(
+                Mode.valueOf(config.getString("session.search.mode").toUpperCase(Locale.ROOT)),
+                config.getDuration("session.search.poll-interval"),
+                parallelism(config, "session.search.fetch-parallelism"),
+                parallelism(config, "session.search.score-parallelism"));
+    }
+
+    private static int parallelism(Config config, String path) {
+        int parallelism = config.getInt(path);
+        if (parallelism < 1) {
+            throw new ConfigException.BadValue(config.origin(), path, "must be at least 1, was " + parallelism);
+        }
+        return parallelism;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public int getFetchParallelism() {
+        return fetchParallelism;
+    }
+
+    public int getScoreParallelism() {
+        return scoreParallelism;
+    }
+}
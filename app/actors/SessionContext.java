@@ -0,0 +1,66 @@
+package actors;
+
+import akka.actor.ActorRef;
+import services.WordStatistics;
+import services.YoutubeService;
+
+/**
+ * Immutable bundle of the collaborators every {@link UserActor} needs.
+ * <p>
+ * A single instance is created per application and shared by all sessions, so a session only
+ * pays for one reference to it instead of holding each service and router itself.
+ * </p>
+ * @author Hanieh
+ */
+public class SessionContext {
+    private final ActorRef supervisorActor;
+    private final YoutubeService youtubeService;
+    private final ActorRef scoreRouter;
+    private final ActorRef channelRouter;
+    private final SessionSettings settings;
+    private final WordStatistics wordStatistics;
+
+    /**
+     * Creates the shared session context.
+     *
+     * @param supervisorActor the supervisor that keeps track of user actors
+     * @param youtubeService  the service used by search actors to query YouTube
+     * @param scoreRouter     the shared {@link ScoreActor} pool
+     * @param channelRouter   the shared {@link ChannelActor} pool
+     * @param settings        the session tunables
+     * @param wordStatistics  the word frequencies streamed videos are counted in
+     */
+    public SessionContext(ActorRef supervisorActor, YoutubeService youtubeService, ActorRef scoreRouter,
+                          ActorRef channelRouter, SessionSettings settings, WordStatistics wordStatistics) {
+        this.supervisorActor = supervisorActor;
+        this.youtubeService = youtubeService;
+        this.scoreRouter = scoreRouter;
+        this.channelRouter = channelRouter;
+        this.settings = settings;
+        this.wordStatistics = wordStatistics;
+    }
+
+    public ActorRef getSupervisorActor() {
+        return supervisorActor;
+    }
+
+    public YoutubeService getYoutubeService() {
+        return youtubeService;
+    }
+
+    public ActorRef getScoreRouter() {
+        return scoreRouter;
+    }
+
+    public ActorRef getChannelRouter() {
+        return channelRouter;
+    }
+
+    public SessionSettings getSettings() {
+        return settings;
+    }
+
+    public WordStatistics getWordStatistics() {
+        return wordStatistics;
+    }
+}
@@ -0,0 +1,205 @@
+package actors;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+import akka.dispatch.ProducesMessageQueue;
+import akka.dispatch.UnboundedMessageQueueSemantics;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import scala.Option;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mailbox for {@link UserActor} sessions that serves messages by lane instead of in arrival order.
+ * <p>
+ * Stream plumbing ({@link Lane#CONTROL}) goes first, then client commands and channel lookups
+ * ({@link Lane#INTERACTIVE}), and background stream updates ({@link Lane#BACKGROUND}) only when
+ * nothing else waits, so a new command never sits behind a backlog of refresh results. Messages
+ * keep their order within a lane.
+ * </p>
+ * <p>
+ * Background updates that are already superseded are dropped while still queued: a newer search
+ * result for the same subscription replaces the waiting one (the session diffs against its last
+ * window, so skipping a poll loses nothing), and a command that re-subscribes, pauses or cancels a
+ * subscription discards its waiting results. Other commands leave them queued. Queue-wait time and
+ * drops are recorded per lane in {@link MailboxLaneStats}.
+ * </p>
+ * Configured in {@code application.conf} as:
+ * <pre>
+ * session-mailbox {
+ *   mailbox-type = "actors.SessionMailbox"
+ * }
+ * </pre>
+ * @author Hanieh
+ */
+public class SessionMailbox implements MailboxType, ProducesMessageQueue<SessionMailbox.LaneQueue> {
+
+    /**
+     * The lanes of a session mailbox, in the order they are served.
+     */
+    public enum Lane {
+        CONTROL, INTERACTIVE, BACKGROUND;
+
+        /**
+         * Classifies a message.
+         *
+         * @param message the message
+         * @return the lane the message waits in
+         */
+        public static Lane of(Object message) {
+            if (message instanceof UserActor.ClientMessage
+                    || message instanceof UserActor.SubscriptionCommand
+                    || message instanceof UserActor.ResumeFrom
+                    || message instanceof UserActor.Heartbeat
+                    || message instanceof ChannelActor.ChannelProfileResponse) {
+                return INTERACTIVE;
+            }
+            if (message instanceof SearchActor.SearchResult || message instanceof SearchPipeline.ScoredDelta
+                    || message instanceof ObjectNode) {
+                return BACKGROUND;
+            }
+            return CONTROL;
+        }
+    }
+
+    public SessionMailbox(ActorSystem.Settings settings, Config config) {
+    }
+
+    @Override
+    public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+        return new LaneQueue(MailboxLaneStats.get(system.get()));
+    }
+
+    /**
+     * The message queue of one session. Many threads enqueue while only the session dequeues,
+     * so all access is guarded by the queue's monitor.
+     */
+    public static class LaneQueue implements MessageQueue, UnboundedMessageQueueSemantics {
+        private final MailboxLaneStats stats;
+        private final Map<Lane, ArrayDeque<Entry>> lanes = new EnumMap<>(Lane.class);
+        private final Map<String, Entry> waitingResults = new HashMap<>();
+        private int size;
+
+        public LaneQueue(MailboxLaneStats stats) {
+            this.stats = stats;
+            for (Lane lane : Lane.values()) {
+                lanes.put(lane, new ArrayDeque<>());
+            }
+        }
+
+        @Override
+        public synchronized void enqueue(ActorRef receiver, Envelope handle) {
+            Object message = handle.message();
+            if (message instanceof SearchActor.SearchResult) {
+                Entry waiting = waitingResults.get(((SearchActor.SearchResult) message).getSubscriptionId());
+                if (waiting != null) {
+                    // Superseded by the newer poll; keep the queue position and the original wait time
+                    waiting.envelope = handle;
+                    stats.recordDropped(Lane.BACKGROUND);
+                    return;
+                }
+            } else if (message instanceof UserActor.SubscriptionCommand) {
+                UserActor.SubscriptionCommand command = (UserActor.SubscriptionCommand) message;
+                if (supersedesResults(command.getAction())) {
+                    discardWaitingResult(command.getId());
+                }
+            }
+
+            Lane lane = Lane.of(message);
+            Entry entry = new Entry(handle, lane);
+            lanes.get(lane).addLast(entry);
+            if (message instanceof SearchActor.SearchResult) {
+                waitingResults.put(((SearchActor.SearchResult) message).getSubscriptionId(), entry);
+            }
+            size++;
+        }
+
+        @Override
+        public synchronized Envelope dequeue() {
+            for (ArrayDeque<Entry> lane : lanes.values()) {
+                Entry entry = lane.pollFirst();
+                while (entry != null && entry.envelope == null) {
+                    entry = lane.pollFirst();
+                }
+                if (entry != null) {
+                    size--;
+                    if (entry.envelope.message() instanceof SearchActor.SearchResult) {
+                        waitingResults.remove(((SearchActor.SearchResult) entry.envelope.message()).getSubscriptionId());
+                    }
+                    stats.recordDequeued(entry.lane, System.nanoTime() - entry.enqueuedAt);
+                    return entry.envelope;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public synchronized int numberOfMessages() {
+            return size;
+        }
+
+        @Override
+        public synchronized boolean hasMessages() {
+            return size > 0;
+        }
+
+        @Override
+        public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+            Envelope envelope;
+            while ((envelope = dequeue()) != null) {
+                deadLetters.enqueue(owner, envelope);
+            }
+        }
+
+        /**
+         * Tells whether a command makes the waiting search result of its subscription useless. Any
+         * other command, e.g. a snapshot or word-statistics request, leaves the result queued.
+         *
+         * @param action the command action
+         * @return {@code true} for a re-subscribe, pause or cancel
+         */
+        private static boolean supersedesResults(UserActor.SubscriptionCommand.Action action) {
+            switch (action) {
+                case SUBSCRIBE:
+                case PAUSE:
+                case UNSUBSCRIBE:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Drops the waiting search result of a subscription, if any. The entry stays in its lane
+         * as a tombstone and is skipped on dequeue.
+         *
+         * @param subscriptionId the subscription ID
+         */
+        private void discardWaitingResult(String subscriptionId) {
+            Entry waiting = waitingResults.remove(subscriptionId);
+            if (waiting != null) {
+                waiting.envelope = null;
+                size--;
+                stats.recordDropped(Lane.BACKGROUND);
+            }
+        }
+    }
+
+    private static class Entry {
+        private Envelope envelope;
+        private final Lane lane;
+        private final long enqueuedAt = System.nanoTime();
+
+        private Entry(Envelope envelope, Lane lane) {
+            this.envelope = envelope;
+            this.lane = lane;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package actors;
+
+import com.typesafe.config.Config;
+
+import java.time.Duration;
+
+/**
+ * Tunables shared by every {@link UserActor}, read from the {@code session} block of {@code application.conf}.
+ *
+ * @author Hanieh
+ */
+public class SessionSettings {
+    private final Duration scoreTimeout;
+    private final Duration idleTimeout;
+    private final Duration idleCheckInterval;
+    private final int outboundBufferSize;
+    private final int outboundMaxPending;
+    private final Duration outboundBatchWindow;
+    private final int outboundBatchMaxFrames;
+    private final int maxSubscriptions;
+    private final SearchSettings search;
+
+    /**
+     * Creates the settings.
+     *
+     * @param scoreTimeout           how long a session waits for a score result before giving up on it
+     * @param idleTimeout            how long a session may go without hearing from its client before it is stopped
+     * @param idleCheckInterval      how often a session checks whether it has gone idle
+     * @param outboundBufferSize     the number of frames buffered in the outbound stream of a connection
+     * @param outboundMaxPending     the number of frames a session holds back while its client is behind
+     * @param outboundBatchWindow    how long the outbound stream waits to coalesce frames into one batch; zero disables batching
+     * @param outboundBatchMaxFrames the largest number of frames coalesced into one batch
+     * @param maxSubscriptions       the number of queries a session may track at once
+     * @param search                 how subscriptions are polled and scored
+     */
+    public SessionSettings(Duration scoreTimeout, Duration idleTimeout, Duration idleCheckInterval,
+                           int outboundBufferSize, int outboundMaxPending, Duration outboundBatchWindow,
+                           int outboundBatchMaxFrames, int maxSubscriptions, SearchSettings search) {
+        this.scoreTimeout = scoreTimeout;
+        this.idleTimeout = idleTimeout;
+        this.idleCheckInterval = idleCheckInterval;
+        this.outboundBufferSize = outboundBufferSize;
+        this.outboundMaxPending = outboundMaxPending;
+        this.outboundBatchWindow = outboundBatchWindow;
+        this.outboundBatchMaxFrames = outboundBatchMaxFrames;
+        this.maxSubscriptions = maxSubscriptions;
+        this.search = search;
+    }
+
+    /**
+     * Reads the settings from configuration.
+     *
+     * @param config the application configuration
+     * @return the session settings
+     */
+    public static SessionSettings fromConfig(Config config) {
+        return new SessionSettings(
+                config.getDuration("session.score.timeout"),
+                config.getDuration("session.idle.timeout"),
+                config.getDuration("session.idle.check-interval"),
+                config.getInt("session.outbound.buffer-size"),
+                config.getInt("session.outbound.max-pending"),
+                config.getDuration("session.outbound.batch.window"),
+                config.getInt("session.outbound.batch.max-frames"),
+                config.getInt("session.subscriptions.max"),
+                SearchSettings.fromConfig(config));
+    }
+
+    public Duration getScoreTimeout() {
+        return scoreTimeout;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public Duration getIdleCheckInterval() {
+        return idleCheckInterval;
+    }
+
+    public int getOutboundBufferSize() {
+        return outboundBufferSize;
+    }
+
+    public int getOutboundMaxPending() {
+        return outboundMaxPending;
+    }
+
+    public Duration getOutboundBatchWindow() {
+        return outboundBatchWindow;
+    }
+
+    public int getOutboundBatchMaxFrames() {
+        return outboundBatchMaxFrames;
+    }
+
+    /**
+     * Tells whether outbound frames are coalesced into batches.
+     *
+     * @return {@code true} if both the batch window and the batch size allow batching
+     */
+    public boolean isOutboundBatchingEnabled() {
+        return !outboundBatchWindow.isZero() && outboundBatchMaxFrames > 1;
+    }
+
+    public int getMaxSubscriptions() {
+        return maxSubscriptions;
+    }
+
+    public SearchSettings getSearch() {
+        return search;
+    }
+}
@@ -0,0 +1,76 @@
+package actors;
+
+import akka.actor.ActorRef;
+
+/**
+ * One tracked query of a {@link UserActor} session.
+ * <p>
+ * A subscription owns the {@link SearchActor} or {@link SearchPipeline} that polls its query and the
+ * {@link ResultWindow} its delta frames are computed against. While paused it has neither, so nothing is polled
+ * or scored for it, but its window is kept so the client can resume where it left off.
+ * </p>
+ * @author Hanieh
+ */
+public class Subscription {
+    private final String id;
+    private final String query;
+    private final int limit;
+    private final ResultWindow window;
+    private ActorRef searchActor;
+    private SearchPipeline pipeline;
+    private boolean paused;
+
+    /**
+     * Creates an active subscription.
+     *
+     * @param id    the client-chosen subscription ID
+     * @param query the search query to track
+     * @param limit the number of videos in the tracked window
+     */
+    public Subscription(String id, String query, int limit) {
+        this.id = id;
+        this.query = query;
+        this.limit = limit;
+        this.window = new ResultWindow(query);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public ResultWindow getWindow() {
+        return window;
+    }
+
+    public ActorRef getSearchActor() {
+        return searchActor;
+    }
+
+    public void setSearchActor(ActorRef searchActor) {
+        this.searchActor = searchActor;
+    }
+
+    public SearchPipeline getPipeline() {
+        return pipeline;
+    }
+
+    public void setPipeline(SearchPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+}
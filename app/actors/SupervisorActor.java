@@ -43,6 +43,7 @@ public class SupervisorActor extends AbstractActor {
     public Receive createReceive() {
         return receiveBuilder()
                 .match(RegisterUserActor.class, this::onRegisterUserActor)
+                .match(UnregisterUserActor.class, this::onUnregisterUserActor)
                 .match(SearchActorFailure.class, this::onSearchActorFailure)
                 .matchAny(this::onUnknownMessage)
                 .build();
@@ -57,8 +58,30 @@ public class SupervisorActor extends AbstractActor {
         registerUserActor(message.getUserId(), message.getUserActor());
     }
 
+    /**
+     * Handles an {@link UnregisterUserActor} message by removing the user actor from the registry,
+     * provided the entry still points to that actor.
+     *
+     * @param message the {@code UnregisterUserActor} message sent by a stopping user actor
+     */
+    private void onUnregisterUserActor(UnregisterUserActor message) {
+        if (userActors.remove(message.getUserId(), message.getUserActor())) {
+            System.out.println("[SupervisorActor] Unregistered UserActor for userId: " + message.getUserId());
+        }
+    }
+
+    /**
+     * Returns the number of currently registered user actors.
+     *
+     * @return the registry size
+     */
+    public int registeredUserCount() {
+        return userActors.size();
+    }
+
     /**
      * Handles a {@link SearchActorFailure} message by attempting to recreate the search actor.
+     * Only the failed subscription is restarted, once its user actor receives the {@link RecreateSearchActor}.
      *
      * @param failure the {@code SearchActorFailure} message containing failure details
      */
@@ -76,7 +99,7 @@ public class SupervisorActor extends AbstractActor {
             getContext().system().scheduler().scheduleOnce(
                     Duration.create(10, "seconds"),
                     userActor,
-                    new RecreateSearchActor(),
+                    new RecreateSearchActor(failure.getSubscriptionId()),
                     getContext().dispatcher(),
                     getSelf()
             );
@@ -116,6 +139,27 @@ public class SupervisorActor extends AbstractActor {
         }
     }
 
+    /**
+     * Removes a user actor from the registry when its session ends.
+     */
+    public static class UnregisterUserActor {
+        private final String userId;
+        private final ActorRef userActor;
+
+        public UnregisterUserActor(String userId, ActorRef userActor) {
+            this.userId = userId;
+            this.userActor = userActor;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public ActorRef getUserActor() {
+            return userActor;
+        }
+    }
+
     public void registerUserActor(String userId, ActorRef userActor) {
         userActors.put(userId, userActor);
         System.out.println("[SupervisorActor] Registered UserActor for userId: " + userId);
@@ -123,16 +167,43 @@ public class SupervisorActor extends AbstractActor {
 
     public static class SearchActorFailure {
         private final String userId;
+        private final String subscriptionId;
         private final Throwable reason;
 
         public SearchActorFailure(String userId, Throwable reason) {
+            this(userId, null, reason);
+        }
+
+        /**
+         * @param userId         the user whose search failed
+         * @param subscriptionId the subscription whose search failed, or {@code null} for every subscription
+         * @param reason         the failure
+         */
+        public SearchActorFailure(String userId, String subscriptionId, Throwable reason) {
             this.userId = userId;
+            this.subscriptionId = subscriptionId;
             this.reason = reason;
         }
 
         public String getUserId() {return userId;}
+        public String getSubscriptionId() {return subscriptionId;}
         public Throwable getReason() {return reason;}
     }
 
-    public static class RecreateSearchActor {}
+    /**
+     * Tells a user actor to restart the search of a subscription, or of every subscription if none is named.
+     */
+    public static class RecreateSearchActor {
+        private final String subscriptionId;
+
+        public RecreateSearchActor() {
+            this(null);
+        }
+
+        public RecreateSearchActor(String subscriptionId) {
+            this.subscriptionId = subscriptionId;
+        }
+
+        public String getSubscriptionId() {return subscriptionId;}
+    }
 }
@@ -1,17 +1,19 @@
 package actors;
 
-import akka.actor.AbstractActor;
+import akka.actor.AbstractActorWithTimers;
 import akka.actor.ActorRef;
 import akka.actor.Props;
+import akka.stream.Materializer;
+import akka.stream.javadsl.SourceQueueWithComplete;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import play.libs.Json;
-import services.YoutubeService;
 import models.Video;
 import actors.ChannelActor;
+import services.WordStatistics;
+import utils.ReadabilityMemo;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * An Akka actor responsible for handling user interactions and delegating tasks to other actors.
@@ -19,56 +21,243 @@ import java.util.stream.Collectors;
  * The {@code UserActor} interacts with the client, processes user queries, and coordinates
  * tasks such as video searches, readability score calculations, and channel profile fetching.
  * </p>
+ * <p>
+ * A session is kept as small as possible while idle: scoring and channel lookups go to pools shared
+ * by every session (see {@link SessionContext}) and the {@link SearchActor} is only created once the
+ * user actually searches.
+ * </p>
+ * <p>
+ * Scoring is delegated to the shared {@link ScoreActor} pool. A session keeps at most one
+ * {@link ScoreActor.ScoreTask} in flight; search results that arrive meanwhile are held back and
+ * sent as the next batch, so a busy pool slows sessions down instead of queueing unbounded work.
+ * </p>
+ * <p>
+ * The session lives exactly as long as its client stream: it watches the outbound queue and stops
+ * when that stream completes, and it stops itself (closing the socket) when the client has been
+ * silent for longer than the configured idle timeout. Stopping cancels the search scheduler of the
+ * child {@link SearchActor} and removes the session from the {@link SupervisorActor} registry.
+ * </p>
+ * <p>
+ * Frames reach the client through an {@link OutboundChannel} on a backpressured queue. When the
+ * client falls behind, result frames for the same query are merged rather than dropped, and
+ * scoring is held back until the client catches up.
+ * </p>
+ * <p>
+ * Results are sent as delta frames: each poll is compared with the query's {@link ResultWindow}
+ * and only added, changed and removed videos are scored and sent, tagged with a per-query sequence
+ * number. A client that detects a gap sends {@code "snapshot <query>"} to receive the whole window.
+ * </p>
+ * <p>
+ * A session tracks several queries at once as {@link Subscription}s, driven by
+ * {@link SubscriptionCommand}s such as {@code {"type":"subscribe","id":"s1","query":"java","limit":5}}.
+ * Each subscription has its own {@link SearchActor}; unsubscribing or pausing stops it right away and
+ * discards any of its results still waiting to be scored or in flight. The legacy
+ * {@code "search <query>"} message subscribes with the query as its ID.
+ * </p>
+ * <p>
+ * Every scored video is also counted in the shared {@link WordStatistics}; the
+ * {@code {"type":"words","id":"s1"}} command returns the most frequent words of a subscription's
+ * query, and {@code {"type":"words"}} those of all queries.
+ * </p>
+ * <p>
+ * Sessions created by the WebSocket controller run on the {@link SessionMailbox}, so client commands
+ * overtake queued background updates and superseded updates are dropped before they are processed.
+ * </p>
+ * <p>
+ * With {@code session.search.mode = "stream"} a subscription is served by a {@link SearchPipeline}
+ * instead of a {@link SearchActor}: polling, diffing and scoring run as one stream graph and the
+ * session only applies the scored deltas. Each delta is acknowledged once the outbound queue has
+ * room, which carries the socket's backpressure all the way back to the poll.
+ * </p>
+ * <p>
+ * Server-Sent Events clients attach as <em>resumable</em>: they cannot send heartbeats, so the open
+ * stream itself keeps the session alive, and when it closes the session is detached rather than
+ * stopped. A reconnecting client re-attaches a new stream and sends {@link ResumeFrom} with the last
+ * sequence number it received; it gets a snapshot only if it missed frames. A detached session is
+ * reaped by the idle timeout like a silent WebSocket session.
+ * </p>
  * @author Hanieh and Adriana
  */
-public class UserActor extends AbstractActor {
+public class UserActor extends AbstractActorWithTimers {
+    /** The mailbox sessions run on, see {@link SessionMailbox}. */
+    public static final String MAILBOX = "session-mailbox";
+    private static final String SCORE_TIMEOUT_KEY = "score-timeout";
+    private static final String IDLE_CHECK_KEY = "idle-check";
+
     private final String userId;
-    private final ActorRef supervisorActor;
-    private final YoutubeService youtubeService;
+    private final SessionContext context;
     private final List<String> searchHistory = new ArrayList<>();
-    protected Set<String> videoIdSet = new HashSet<>();
-    private ActorRef searchActor;
-    private ActorRef scoreActor;
-    private ActorRef clientActor;
-    private final ActorRef channelActor; // Ensure channelActor is initialized
-    private String lastQuery;
-
-    public UserActor(ActorRef supervisorActor, String userId, YoutubeService youtubeService) {
-        this.userId = userId;
-        this.youtubeService = youtubeService;
+    private final LinkedHashMap<String, Subscription> subscriptions = new LinkedHashMap<>();
+    private final LinkedHashMap<Subscription, ResultWindow.Delta> pendingDeltas = new LinkedHashMap<>();
+    private final List<ActorRef> heldAcks = new ArrayList<>();
+    private boolean scoringInFlight;
+    private Subscription inFlightSubscription;
+    private ResultWindow.Delta inFlightDelta;
+    private OutboundChannel outbound;
+    private SourceQueueWithComplete<JsonNode> outboundQueue;
+    private boolean resumable;
+    private long lastClientActivity = System.nanoTime();
+    private int searchActorCount;
 
-        this.supervisorActor = supervisorActor;
-        supervisorActor.tell(new SupervisorActor.RegisterUserActor(userId, getSelf()), getSelf());
-
-        this.searchActor = getContext().actorOf(Props.create(SearchActor.class, supervisorActor, youtubeService), userId + "-SearchActor-" + (10000 + new java.util.Random().nextInt(90000)));
-        System.out.println("[UserActor] Search Actor Created for userId: " + userId);
-
-        this.scoreActor = getContext().actorOf(Props.create(ScoreActor.class), userId + "-ScoreActor-" + (10000 + new java.util.Random().nextInt(90000)));
-        System.out.println("[UserActor] Score Actor Created for userId: " + userId);
+    public UserActor(String userId, SessionContext context) {
+        this.userId = userId;
+        this.context = context;
+        context.getSupervisorActor().tell(new SupervisorActor.RegisterUserActor(userId, getSelf()), getSelf());
+        getTimers().startTimerWithFixedDelay(IDLE_CHECK_KEY, new IdleCheck(), context.getSettings().getIdleCheckInterval());
+    }
 
-        // Initialize channelActor
-        this.channelActor = getContext().actorOf(
-                ChannelActor.props(youtubeService),
-                "ChannelActor-" + userId
-        );
+    /**
+     * Deregisters the session from the supervisor and completes the client stream if it is still open.
+     * Child actors, and with them every search scheduler, are stopped by Akka together with this actor;
+     * search pipelines are stopped here.
+     */
+    @Override
+    public void postStop() {
+        subscriptions.values().forEach(this::stopPolling);
+        context.getSupervisorActor().tell(new SupervisorActor.UnregisterUserActor(userId, getSelf()), getSelf());
+        if (outbound != null) {
+            outbound.complete();
+        }
+        System.out.println("[UserActor] Session stopped for userId: " + userId);
     }
 
     @Override
     public Receive createReceive() {
         return receiveBuilder()
                 .match(ClientMessage.class, this::onClientMessage)
-                .match(List.class, this::onSearchResult)
+                .match(SubscriptionCommand.class, this::onSubscriptionCommand)
+                .match(SearchActor.SearchResult.class, this::onSearchResult)
+                .match(SearchPipeline.Started.class, started -> acknowledge(getSender()))
+                .match(SearchPipeline.ScoredDelta.class, this::onScoredDelta)
+                .match(SearchPipeline.Completed.class, completed -> { })
+                .match(SearchPipeline.Failed.class, this::onPipelineFailed)
                 .match(ObjectNode.class, this::onScoreResult)
-                .match(ActorRef.class, this::onClientActorRegistered)
+                .match(ClientConnected.class, this::onClientConnected)
+                .match(ResumeFrom.class, this::onResumeFrom)
+                .match(OutboundChannel.OfferCompleted.class, this::onOfferCompleted)
                 .match(ChannelActor.ChannelProfileResponse.class, this::onChannelProfileResponse) // Handle ChannelActor response
                 .match(SupervisorActor.RecreateSearchActor.class, this::onRecreateSearchActor)
+                .match(ScoreTimeout.class, this::onScoreTimeout)
+                .match(Heartbeat.class, this::onHeartbeat)
+                .match(IdleCheck.class, this::onIdleCheck)
+                .match(ClientDisconnected.class, this::onClientDisconnected)
                 .matchAny(this::onUnknownMessage)
                 .build();
     }
 
-    private void onClientActorRegistered(ActorRef actorRef) {
-        this.clientActor = actorRef; // Save the client actor reference
-        System.out.println("[UserActor] Client ActorRef registered: " + clientActor);
+    /**
+     * Attaches the outbound queue of the client stream and watches it for completion. A resumable
+     * session that is re-attached closes the stream it had before, and releases whatever was held
+     * back for it.
+     *
+     * @param connected the message carrying the outbound queue and its counters
+     */
+    private void onClientConnected(ClientConnected connected) {
+        SourceQueueWithComplete<JsonNode> previous = outboundQueue;
+        this.outbound = new OutboundChannel(connected.getQueue(), connected.getStats(), getSelf(),
+                context.getSettings().getOutboundMaxPending());
+        this.outboundQueue = connected.getQueue();
+        this.resumable = connected.isResumable();
+        lastClientActivity = System.nanoTime();
+        if (previous != null) {
+            previous.complete();
+        }
+        ActorRef self = getSelf();
+        connected.getQueue().watchCompletion().whenComplete((done, failure) ->
+                self.tell(new ClientDisconnected(connected.getQueue()), ActorRef.noSender()));
+        heldAcks.forEach(pipeline -> pipeline.tell(SearchPipeline.Ack.INSTANCE, getSelf()));
+        heldAcks.clear();
+        submitPendingScoring();
+        System.out.println("[UserActor] Client connected for userId: " + userId);
+    }
+
+    /**
+     * Stops the session once the client stream is gone, or only detaches it if the client may resume.
+     * The completion of a stream that was already replaced is ignored.
+     *
+     * @param disconnected the notification that an outbound stream completed
+     */
+    private void onClientDisconnected(ClientDisconnected disconnected) {
+        if (disconnected.queue != outboundQueue) {
+            return;
+        }
+        outbound = null;
+        outboundQueue = null;
+        if (resumable) {
+            System.out.println("[UserActor] Client detached, keeping session for resume, userId: " + userId);
+            lastClientActivity = System.nanoTime();
+            return;
+        }
+        System.out.println("[UserActor] Client disconnected, stopping session for userId: " + userId);
+        getContext().stop(getSelf());
+    }
+
+    /**
+     * Brings a re-attached client up to date: a subscription whose window moved on since the last
+     * frame the client received is sent as a snapshot, otherwise it is only acknowledged.
+     *
+     * @param resume the subscription and the last sequence number the client received
+     */
+    private void onResumeFrom(ResumeFrom resume) {
+        lastClientActivity = System.nanoTime();
+        Subscription subscription = subscriptions.get(resume.getSubscriptionId());
+        if (subscription == null) {
+            sendCommandError(resume.getSubscriptionId(), "Unknown subscription.");
+            return;
+        }
+        sendCommandAck("resumed", subscription);
+        if (subscription.getWindow().getSeq() != resume.getLastSeq()) {
+            sendSnapshot(subscription);
+        }
+    }
+
+    /**
+     * Passes an offer completion to the outbound channel and, once the client has caught up,
+     * resumes scoring that was held back while it was behind and acknowledges held pipeline deltas.
+     * The completion of an offer to a channel that was already replaced is ignored.
+     *
+     * @param completed the offer completion
+     */
+    private void onOfferCompleted(OutboundChannel.OfferCompleted completed) {
+        if (outbound == null || completed.getChannel() != outbound) {
+            return;
+        }
+        outbound.onOfferCompleted(completed);
+        if (!outbound.isBackpressured()) {
+            heldAcks.forEach(pipeline -> pipeline.tell(SearchPipeline.Ack.INSTANCE, getSelf()));
+            heldAcks.clear();
+            if (!pendingDeltas.isEmpty()) {
+                submitPendingScoring();
+            }
+        }
+    }
+
+    /**
+     * Records that the client is still alive without issuing a command.
+     *
+     * @param heartbeat the heartbeat message
+     */
+    private void onHeartbeat(Heartbeat heartbeat) {
+        lastClientActivity = System.nanoTime();
+    }
+
+    /**
+     * Stops the session if the client has been silent for longer than the idle timeout.
+     * This reaps half-open connections whose close was never observed.
+     *
+     * @param check the periodic idle check
+     */
+    private void onIdleCheck(IdleCheck check) {
+        if (resumable && outbound != null) {
+            // A one-way client cannot send heartbeats; its open stream shows it is alive
+            lastClientActivity = System.nanoTime();
+            return;
+        }
+        long idleNanos = System.nanoTime() - lastClientActivity;
+        if (idleNanos >= context.getSettings().getIdleTimeout().toNanos()) {
+            System.out.println("[UserActor] Session idle, stopping for userId: " + userId);
+            getContext().stop(getSelf());
+        }
     }
 
     /**
@@ -78,25 +267,254 @@ public class UserActor extends AbstractActor {
      * @author Hanieh & Adriana
      */
     private void onClientMessage(ClientMessage query) {
+        lastClientActivity = System.nanoTime();
 
         if (query.getQuery().startsWith("search")) {
-
-            lastQuery = query.getQuery().substring(7).trim();
-            // add query to user history
-            searchHistory.add(lastQuery);
+            String searchQuery = query.getQuery().substring(7).trim();
             System.out.println("[UserActor] User " + userId + " queried: " + query.getQuery());
-            searchActor.tell(new SearchActor.SearchTask(lastQuery, userId, getSelf()), getSelf());
+            subscribe(searchQuery, searchQuery, SearchActor.DEFAULT_LIMIT);
         }
 
         else if (query.getQuery().startsWith("chanel")) {
             String channelQuery = query.getQuery().substring(7).trim();
             System.out.println("[UserActor] User " + userId + " queried: " + query.getQuery());
-            channelActor.tell(new ChannelActor.FetchChannelProfile(channelQuery), getSelf());
+            context.getChannelRouter().tell(new ChannelActor.FetchChannelProfile(channelQuery), getSelf());
+        } else if (query.getQuery().startsWith("snapshot")) {
+            onSubscriptionCommand(new SubscriptionCommand(SubscriptionCommand.Action.SNAPSHOT,
+                    query.getQuery().substring(8).trim(), "", 0));
+        } else if (query.getQuery().startsWith("stats")) {
+            sendStats();
         } else {
             System.err.println("[UserActor] Wrong query parameter: " + query.getQuery());
         }
     }
 
+    /**
+     * Handles a structured subscription command from the client.
+     *
+     * @param command the command
+     */
+    private void onSubscriptionCommand(SubscriptionCommand command) {
+        lastClientActivity = System.nanoTime();
+        if (command.getAction() == SubscriptionCommand.Action.WORDS && command.getId().isEmpty()) {
+            sendWords(null, command.getLimit());
+            return;
+        }
+        if (command.getAction() == SubscriptionCommand.Action.SUBSCRIBE) {
+            if (command.getId().isEmpty() || command.getQuery().isEmpty()) {
+                sendCommandError(command.getId(), "A subscription needs an id and a query.");
+            } else {
+                subscribe(command.getId(), command.getQuery(),
+                        Math.max(1, Math.min(command.getLimit(), SearchActor.MAX_LIMIT)));
+            }
+            return;
+        }
+
+        Subscription subscription = subscriptions.get(command.getId());
+        if (subscription == null) {
+            sendCommandError(command.getId(), "Unknown subscription.");
+            return;
+        }
+        switch (command.getAction()) {
+            case UNSUBSCRIBE:
+                cancel(subscription, "unsubscribed");
+                break;
+            case PAUSE:
+                pause(subscription);
+                break;
+            case RESUME:
+                resume(subscription);
+                break;
+            case WORDS:
+                sendWords(subscription, command.getLimit());
+                break;
+            default:
+                sendSnapshot(subscription);
+        }
+    }
+
+    /**
+     * Starts tracking a query. Subscribing again with the same ID and query resumes the subscription
+     * and sends a snapshot; a different query replaces it. When the session already tracks the
+     * maximum number of queries, the oldest subscription is cancelled.
+     *
+     * @param id    the subscription ID
+     * @param query the search query
+     * @param limit the number of videos in the tracked window
+     */
+    private void subscribe(String id, String query, int limit) {
+        Subscription existing = subscriptions.get(id);
+        if (existing != null && existing.getQuery().equals(query) && existing.getLimit() == limit) {
+            resume(existing);
+            sendSnapshot(existing);
+            return;
+        }
+        if (existing != null) {
+            cancel(existing, null);
+        }
+        while (subscriptions.size() >= context.getSettings().getMaxSubscriptions()) {
+            cancel(subscriptions.values().iterator().next(), "evicted");
+        }
+
+        Subscription subscription = new Subscription(id, query, limit);
+        subscriptions.put(id, subscription);
+        // add query to user history
+        searchHistory.add(query);
+        startSearch(subscription);
+        sendCommandAck("subscribed", subscription);
+    }
+
+    /**
+     * Stops a subscription for good: its search actor is stopped and its pending work discarded.
+     *
+     * @param subscription the subscription to cancel
+     * @param reason       the reason reported to the client, or {@code null} to cancel silently
+     */
+    private void cancel(Subscription subscription, String reason) {
+        stopSearch(subscription);
+        subscriptions.remove(subscription.getId());
+        if (reason != null) {
+            ObjectNode frame = commandAck("unsubscribed", subscription);
+            frame.put("reason", reason);
+            sendToClient(frame);
+        }
+    }
+
+    /**
+     * Stops polling and scoring for a subscription while keeping its window.
+     *
+     * @param subscription the subscription to pause
+     */
+    private void pause(Subscription subscription) {
+        if (!subscription.isPaused()) {
+            stopSearch(subscription);
+            subscription.setPaused(true);
+        }
+        sendCommandAck("paused", subscription);
+    }
+
+    /**
+     * Restarts polling for a paused subscription, comparing the next poll with what the client last received.
+     *
+     * @param subscription the subscription to resume
+     */
+    private void resume(Subscription subscription) {
+        if (subscription.isPaused()) {
+            subscription.getWindow().rewind();
+            subscription.setPaused(false);
+            startSearch(subscription);
+        }
+        sendCommandAck("resumed", subscription);
+    }
+
+    /**
+     * Starts polling for a subscription with a {@link SearchPipeline} or a {@link SearchActor},
+     * depending on the configured search mode.
+     *
+     * @param subscription the subscription to poll for
+     */
+    private void startSearch(Subscription subscription) {
+        SearchSettings search = context.getSettings().getSearch();
+        if (search.getMode() == SearchSettings.Mode.STREAM) {
+            SearchPipeline pipeline = new SearchPipeline(subscription);
+            subscription.setPipeline(pipeline);
+            pipeline.start(context.getYoutubeService(), search,
+                    getContext().getSystem().dispatchers().lookup(ChannelActor.DISPATCHER),
+                    getContext().getSystem().dispatchers().lookup(ScoreActor.DISPATCHER),
+                    getSelf(), Materializer.matFromSystem(getContext().getSystem()));
+            System.out.println("[UserActor] Search Pipeline Started for userId: " + userId + ", subscription: " + subscription.getId());
+            return;
+        }
+        ActorRef searchActor = getContext().actorOf(
+                Props.create(SearchActor.class, context.getSupervisorActor(), context.getYoutubeService()),
+                userId + "-SearchActor-" + (++searchActorCount));
+        subscription.setSearchActor(searchActor);
+        searchActor.tell(new SearchActor.SearchTask(subscription.getQuery(), userId, getSelf(),
+                subscription.getId(), subscription.getLimit(), search.getPollInterval()), getSelf());
+        System.out.println("[UserActor] Search Actor Created for userId: " + userId + ", subscription: " + subscription.getId());
+    }
+
+    /**
+     * Stops polling for a subscription and drops its pending work.
+     * A batch already being scored is discarded when its result arrives.
+     *
+     * @param subscription the subscription to stop polling for
+     */
+    private void stopSearch(Subscription subscription) {
+        stopPolling(subscription);
+        pendingDeltas.remove(subscription);
+    }
+
+    /**
+     * Stops the search actor of a subscription, which cancels its scheduler, or its search pipeline.
+     *
+     * @param subscription the subscription to stop polling for
+     */
+    private void stopPolling(Subscription subscription) {
+        if (subscription.getSearchActor() != null) {
+            getContext().stop(subscription.getSearchActor());
+            subscription.setSearchActor(null);
+        }
+        if (subscription.getPipeline() != null) {
+            subscription.getPipeline().stop();
+            subscription.setPipeline(null);
+        }
+    }
+
+    /**
+     * Tells whether a subscription is still tracked and not paused.
+     *
+     * @param subscription the subscription
+     * @return {@code true} if results for it should still be scored and sent
+     */
+    private boolean isActive(Subscription subscription) {
+        return subscriptions.get(subscription.getId()) == subscription && !subscription.isPaused();
+    }
+
+    /**
+     * Sends a scored delta of a search pipeline to the client and acknowledges it. Deltas of a run
+     * that was stopped in the meantime are acknowledged but not sent.
+     *
+     * @param scored the scored delta
+     */
+    private void onScoredDelta(SearchPipeline.ScoredDelta scored) {
+        Subscription subscription = scored.getPipeline().getSubscription();
+        if (isActive(subscription) && subscription.getPipeline() == scored.getPipeline()) {
+            sendDelta(subscription, scored.getDelta(), scored.getScored());
+        }
+        acknowledge(getSender());
+    }
+
+    /**
+     * Lets a search pipeline deliver its next element, or holds the acknowledgement back while the
+     * client is behind so the pipeline stops polling and scoring until it catches up.
+     *
+     * @param pipeline the sink of the pipeline to acknowledge
+     */
+    private void acknowledge(ActorRef pipeline) {
+        if (outbound != null && outbound.isBackpressured()) {
+            heldAcks.add(pipeline);
+        } else {
+            pipeline.tell(SearchPipeline.Ack.INSTANCE, getSelf());
+        }
+    }
+
+    /**
+     * Reports a failed search pipeline to the supervisor, which schedules its restart like that of a
+     * failed {@link SearchActor}.
+     *
+     * @param failed the failure notification
+     */
+    private void onPipelineFailed(SearchPipeline.Failed failed) {
+        Subscription subscription = failed.getPipeline().getSubscription();
+        if (subscription.getPipeline() != failed.getPipeline()) {
+            return;
+        }
+        System.err.println("[UserActor] Search pipeline failed for subscription " + subscription.getId() + ": " + failed.getCause().getMessage());
+        subscription.setPipeline(null);
+        context.getSupervisorActor().tell(new SupervisorActor.SearchActorFailure(userId, subscription.getId(), failed.getCause()), getSelf());
+    }
+
     /**
      * Processes channel profile responses from the {@link ChannelActor}.
      *
@@ -111,74 +529,271 @@ public class UserActor extends AbstractActor {
             result.put("channelTitle", response.channel.getTitle());
             result.put("description", response.channel.getDescription());
             result.put("thumbnailUrl", response.channel.getThumbnailUrl());
-            clientActor.tell(result, getSelf());
+            sendToClient(result);
         } else {
             System.err.println("[UserActor] Failed to fetch channel profile.");
-            clientActor.tell(Json.newObject()
-                            .put("status", "error")
-                            .put("message", "Failed to fetch channel profile. Please try again later."),
-                    getSelf()
-            );
+            sendToClient(Json.newObject()
+                    .put("status", "error")
+                    .put("message", "Failed to fetch channel profile. Please try again later."));
         }
     }
 
     /**
-     * Handles search results and delegates them to the {@link ScoreActor}.
+     * Handles search results: compares them with the subscription's window and queues the difference
+     * for scoring on the shared {@link ScoreActor} pool. Results of subscriptions that were cancelled,
+     * paused or replaced in the meantime are dropped.
+     * <p>
+     * If a batch from this session is still being scored, the new difference is merged into the
+     * pending one for the same subscription and sent once the current batch completes.
+     * </p>
      *
-     * @param result The list of videos returned from the search.
+     * @param result The videos returned from one poll of a subscription.
      * @author Hanieh
      */
-    private void onSearchResult(List<Video> result) {
+    private void onSearchResult(SearchActor.SearchResult result) {
         System.out.println("[UserActor] Received search results ...");
 
-        // Filter the results using a stream
-        List<Video> filteredResult = result.stream()
-                .filter(video -> videoIdSet.add(video.getVideoId())) // Add to the set and filter unique IDs
-                .collect(Collectors.toList());
+        Subscription subscription = subscriptions.get(result.getSubscriptionId());
+        if (subscription == null || subscription.isPaused() || !subscription.getQuery().equals(result.getSearchQuery())) {
+            return;
+        }
+        ResultWindow.Delta delta = subscription.getWindow().diff(result.getVideos());
+        if (delta.isEmpty()) {
+            return;
+        }
+        ResultWindow.Delta waiting = pendingDeltas.get(subscription);
+        if (waiting == null) {
+            pendingDeltas.put(subscription, delta);
+        } else {
+            waiting.merge(delta);
+        }
+        submitPendingScoring();
+    }
+
+    /**
+     * Sends the oldest pending difference to the scoring pool and arms the score timeout.
+     * Differences that only remove videos need no scoring and are sent right away.
+     * Does nothing when a batch is already in flight or the client is behind; in the latter case
+     * the differences keep merging and are submitted once the outbound stream catches up.
+     */
+    private void submitPendingScoring() {
+        while (!scoringInFlight && !pendingDeltas.isEmpty() && (outbound == null || !outbound.isBackpressured())) {
+            Iterator<Map.Entry<Subscription, ResultWindow.Delta>> oldest = pendingDeltas.entrySet().iterator();
+            Map.Entry<Subscription, ResultWindow.Delta> next = oldest.next();
+            oldest.remove();
 
-        scoreActor.tell(new ScoreActor.ScoreTask(filteredResult, userId, getSelf()), getSelf());
+            List<Video> batch = next.getValue().getUpserts();
+            if (batch.isEmpty()) {
+                sendDelta(next.getKey(), next.getValue(), Json.newArray());
+                continue;
+            }
+            scoringInFlight = true;
+            inFlightSubscription = next.getKey();
+            inFlightDelta = next.getValue();
+            context.getScoreRouter().tell(new ScoreActor.ScoreTask(batch, userId, getSelf()), getSelf());
+            getTimers().startSingleTimer(SCORE_TIMEOUT_KEY, new ScoreTimeout(), context.getSettings().getScoreTimeout());
+        }
     }
 
     /**
-     * Processes readability score results and sends them to the client.
+     * Releases the in-flight slot once a score result arrives (or the task timed out)
+     * and submits whatever was held back in the meantime.
+     */
+    private void releaseScoringSlot() {
+        scoringInFlight = false;
+        inFlightSubscription = null;
+        inFlightDelta = null;
+        getTimers().cancel(SCORE_TIMEOUT_KEY);
+        submitPendingScoring();
+    }
+
+    /**
+     * Handles a scoring task that got no answer in time, typically because the pool's bounded
+     * mailbox was full and the task was dropped. The difference is queued again, merged with any
+     * later difference for the same subscription, so no change is lost.
+     *
+     * @param timeout the timeout marker message
+     */
+    private void onScoreTimeout(ScoreTimeout timeout) {
+        System.err.println("[UserActor] Score task timed out for user: " + userId);
+        if (inFlightDelta != null && isActive(inFlightSubscription)) {
+            ResultWindow.Delta later = pendingDeltas.remove(inFlightSubscription);
+            if (later != null) {
+                inFlightDelta.merge(later);
+            }
+            pendingDeltas.put(inFlightSubscription, inFlightDelta);
+        }
+        releaseScoringSlot();
+    }
+
+    /**
+     * Processes readability score results and sends them to the client as a delta frame.
+     * A late result for a task that already timed out is ignored, as its difference was requeued,
+     * and so is the result for a subscription that was cancelled or paused while it was scored.
      *
      * @param result The result containing readability scores for the videos.
      * @author Hanieh
      */
     private void onScoreResult(ObjectNode result) {
         System.out.println("[UserActor] Received score results ...");
+        JsonNode videos = result.path("videos");
+        if (inFlightDelta == null || !inFlightDelta.isScoredBy(videos)) {
+            System.err.println("[UserActor] Ignoring stale score result for user: " + userId);
+            return;
+        }
+        if (isActive(inFlightSubscription)) {
+            sendDelta(inFlightSubscription, inFlightDelta, videos);
+        }
+        releaseScoringSlot();
+    }
 
-        result.put("searchQuery", lastQuery);
-        ObjectNode response = Json.newObject();
-        response.put("status", "success");
-        response.set("result", result);
+    /**
+     * Applies a scored difference to the subscription's window and sends the resulting delta frame.
+     *
+     * @param subscription the subscription the difference belongs to
+     * @param delta        the difference
+     * @param scored       the scored added and changed videos
+     */
+    private void sendDelta(Subscription subscription, ResultWindow.Delta delta, JsonNode scored) {
+        context.getWordStatistics().record(subscription.getQuery(), scored);
+        ObjectNode frame = subscription.getWindow().apply(delta, scored);
+        frame.put("id", subscription.getId());
+        if (outbound != null) {
+            outbound.send("result:" + subscription.getId(), frame, ResultWindow::mergeFrames);
+        }
+        System.out.println("[UserActor] Sent delta " + frame.get("seq") + " for subscription: " + subscription.getId());
+    }
 
-        clientActor.tell(response, getSelf());
-        System.out.println("[UserActor] Sent result to client.");
+    /**
+     * Sends the whole current window of a subscription, e.g. after the client detected a sequence gap.
+     *
+     * @param subscription the subscription whose window is requested
+     */
+    private void sendSnapshot(Subscription subscription) {
+        ObjectNode frame = subscription.getWindow().snapshot();
+        frame.put("id", subscription.getId());
+        if (outbound != null) {
+            outbound.send("result:" + subscription.getId(), frame, ResultWindow::mergeFrames);
+        }
     }
 
     /**
-     * Recreates the {@link SearchActor} for the user and resends the last query if available.
+     * Builds the acknowledgement of a subscription command.
      *
-     * @param message The message indicating that the {@code SearchActor} should be recreated.
+     * @param type         the acknowledgement type, e.g. {@code "subscribed"}
+     * @param subscription the subscription the command applied to
+     * @return the acknowledgement frame
      */
-    private void onRecreateSearchActor(SupervisorActor.RecreateSearchActor message) {
-        System.out.println("[UserActor] Recreating SearchActor for user: " + userId);
+    private static ObjectNode commandAck(String type, Subscription subscription) {
+        ObjectNode frame = Json.newObject();
+        frame.put("status", "success");
+        frame.put("type", type);
+        frame.put("id", subscription.getId());
+        frame.put("query", subscription.getQuery());
+        frame.put("limit", subscription.getLimit());
+        return frame;
+    }
+
+    private void sendCommandAck(String type, Subscription subscription) {
+        sendToClient(commandAck(type, subscription));
+    }
 
-        if (searchActor != null) {
-            getContext().stop(searchActor);
+    /**
+     * Reports a subscription command that could not be carried out.
+     *
+     * @param id      the subscription ID named by the command
+     * @param message the error description
+     */
+    private void sendCommandError(String id, String message) {
+        System.err.println("[UserActor] Rejected command for subscription '" + id + "': " + message);
+        ObjectNode frame = Json.newObject();
+        frame.put("status", "error");
+        frame.put("type", "command");
+        frame.put("id", id);
+        frame.put("message", message);
+        sendToClient(frame);
+    }
+
+    /**
+     * Sends a frame to the client that must not be conflated with other frames.
+     *
+     * @param frame the frame to send
+     */
+    private void sendToClient(JsonNode frame) {
+        if (outbound != null) {
+            outbound.send(frame);
+        }
+    }
+
+    /**
+     * Sends this connection's outbound counters, the session mailbox lane statistics and the use of the
+     * shared readability memo to the client.
+     */
+    private void sendStats() {
+        if (outbound == null) {
+            return;
         }
-        searchActor = getContext().actorOf(Props.create(SearchActor.class, supervisorActor, youtubeService), userId + "-SearchActor-" + (10000 + new java.util.Random().nextInt(90000)));
-        //getContext().watch(searchActor);
+        ObjectNode frame = Json.newObject();
+        frame.put("status", "success");
+        frame.put("type", "stats");
+        frame.set("outbound", outbound.getStats().toJson());
+        frame.set("mailbox", MailboxLaneStats.get(getContext().getSystem()).toJson());
+        frame.set("readabilityMemo", ReadabilityMemo.shared().report().toJson());
+        sendToClient(frame);
+    }
 
-        if (lastQuery != null) {
-            System.out.println("[UserActor] Resending last query: " + lastQuery);
-            searchActor.tell(new SearchActor.SearchTask(lastQuery, userId, getSelf()), getSelf());
+    /**
+     * Sends the most frequent words of a subscription's query, or of all queries, to the client.
+     *
+     * @param subscription the subscription, or {@code null} for all queries
+     * @param limit        the largest number of words, capped at the number kept
+     */
+    private void sendWords(Subscription subscription, int limit) {
+        WordStatistics words = context.getWordStatistics();
+        int top = Math.max(1, Math.min(limit, words.getTop()));
+        ObjectNode frame;
+        ObjectNode result;
+        if (subscription == null) {
+            frame = Json.newObject();
+            frame.put("status", "success");
+            frame.put("type", "words");
+            result = words.global(top);
+        } else {
+            frame = commandAck("words", subscription);
+            result = words.forQuery(subscription.getQuery(), top).orElseGet(() -> {
+                // Nothing scored for the query yet
+                ObjectNode empty = Json.newObject();
+                empty.put("total", 0);
+                empty.set("words", Json.newArray());
+                return empty;
+            });
         }
+        frame.set("result", result);
+        sendToClient(frame);
+    }
 
-        else {
+    /**
+     * Recreates the {@link SearchActor} or {@link SearchPipeline} of the subscription whose search failed,
+     * which resends its query. Other subscriptions keep polling; a message naming no subscription
+     * restarts every active one.
+     *
+     * @param message The message indicating that the search actors should be recreated.
+     */
+    private void onRecreateSearchActor(SupervisorActor.RecreateSearchActor message) {
+        System.out.println("[UserActor] Recreating SearchActor for user: " + userId);
+
+        Collection<Subscription> failed = message.getSubscriptionId() == null ? subscriptions.values()
+                : Optional.ofNullable(subscriptions.get(message.getSubscriptionId()))
+                        .map(Collections::singletonList).orElse(Collections.emptyList());
+        if (failed.isEmpty()) {
             System.out.println("[UserActor] No previous query to resume for user: " + userId);
         }
+        for (Subscription subscription : failed) {
+            if (!subscription.isPaused()) {
+                stopPolling(subscription);
+                startSearch(subscription);
+            }
+        }
     }
 
     /**
@@ -190,6 +805,143 @@ public class UserActor extends AbstractActor {
         System.err.println("[UserActor] Unknown message received: " + message);
     }
 
+    /**
+     * Timer message signalling that the in-flight {@link ScoreActor.ScoreTask} got no answer in time.
+     */
+    private static class ScoreTimeout {}
+
+    /**
+     * Timer message triggering the periodic idle check.
+     */
+    private static class IdleCheck {}
+
+    /**
+     * Attaches the outbound queue of a newly opened client stream to the session.
+     */
+    public static class ClientConnected {
+        private final SourceQueueWithComplete<JsonNode> queue;
+        private final OutboundStats stats;
+        private final boolean resumable;
+
+        public ClientConnected(SourceQueueWithComplete<JsonNode> queue, OutboundStats stats) {
+            this(queue, stats, false);
+        }
+
+        /**
+         * @param queue     the outbound queue of the stream
+         * @param stats     the counters of the stream
+         * @param resumable whether the client is one-way and may reconnect to this session,
+         *                  as a Server-Sent Events client does
+         */
+        public ClientConnected(SourceQueueWithComplete<JsonNode> queue, OutboundStats stats, boolean resumable) {
+            this.queue = queue;
+            this.stats = stats;
+            this.resumable = resumable;
+        }
+
+        public boolean isResumable() {
+            return resumable;
+        }
+
+        public SourceQueueWithComplete<JsonNode> getQueue() {
+            return queue;
+        }
+
+        public OutboundStats getStats() {
+            return stats;
+        }
+    }
+
+    /**
+     * Sent to the session once one of its outbound streams has completed.
+     */
+    private static class ClientDisconnected {
+        private final SourceQueueWithComplete<JsonNode> queue;
+
+        private ClientDisconnected(SourceQueueWithComplete<JsonNode> queue) {
+            this.queue = queue;
+        }
+    }
+
+    /**
+     * Sent by a client re-attaching to a resumable session, naming the last frame it received.
+     */
+    public static class ResumeFrom {
+        private final String subscriptionId;
+        private final long lastSeq;
+
+        public ResumeFrom(String subscriptionId, long lastSeq) {
+            this.subscriptionId = subscriptionId;
+            this.lastSeq = lastSeq;
+        }
+
+        public String getSubscriptionId() {
+            return subscriptionId;
+        }
+
+        public long getLastSeq() {
+            return lastSeq;
+        }
+    }
+
+    /**
+     * Sent when the client signals it is alive without issuing a command.
+     */
+    public static class Heartbeat {}
+
+    /**
+     * A structured command managing one subscription, parsed from client frames such as
+     * {@code {"type":"subscribe","id":"s1","query":"java","limit":5}} or {@code {"type":"pause","id":"s1"}}.
+     */
+    public static class SubscriptionCommand {
+        public enum Action { SUBSCRIBE, UNSUBSCRIBE, PAUSE, RESUME, SNAPSHOT, WORDS }
+
+        private final Action action;
+        private final String id;
+        private final String query;
+        private final int limit;
+
+        public SubscriptionCommand(Action action, String id, String query, int limit) {
+            this.action = action;
+            this.id = id;
+            this.query = query;
+            this.limit = limit;
+        }
+
+        /**
+         * Parses a client frame into a command.
+         *
+         * @param json the client frame
+         * @return the command, or {@code null} if the frame is not a subscription command
+         */
+        public static SubscriptionCommand fromJson(JsonNode json) {
+            Action action;
+            try {
+                action = Action.valueOf(json.path("type").asText().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            return new SubscriptionCommand(action, json.path("id").asText(), json.path("query").asText().trim(),
+                    json.path("limit").asInt(SearchActor.DEFAULT_LIMIT));
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+    }
+
     /**
      * Represents a message sent by the client to the {@code UserActor}.
      */
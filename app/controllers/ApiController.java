@@ -0,0 +1,174 @@
+package controllers;
+
+import akka.NotUsed;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import models.Channel;
+import models.Video;
+import play.libs.Json;
+import play.mvc.Controller;
+import play.mvc.Result;
+import services.VideoPage;
+import services.WordStatistics;
+import services.YoutubeExecutionContext;
+import services.YoutubeService;
+import utils.ReadabilityCalculator;
+
+import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.IntStream;
+
+/**
+ * JSON API streaming search results and channel videos as newline-delimited JSON.
+ * <p>
+ * Each response is a sequence of JSON objects, one per line, told apart by their {@code type}:
+ * a {@code "video"} line per result as soon as it is parsed and scored, preceded by a {@code "channel"}
+ * line for channel requests and followed by a {@code "page"} line carrying the paging state.
+ * The YouTube request itself runs asynchronously on the {@link YoutubeExecutionContext}; the
+ * response starts once the page has been fetched, so a failed request still gets an error status.
+ * </p>
+ * <p>
+ * Word statistics are served as a single JSON object by {@link #words(String, int)}.
+ * </p>
+ * @author Hanieh
+ */
+public class ApiController extends Controller {
+    /** The media type of newline-delimited JSON. */
+    public static final String NDJSON = "application/x-ndjson";
+    /** The largest page the YouTube API returns. */
+    public static final int MAX_LIMIT = 50;
+
+    private final YoutubeService youtubeService;
+    private final YoutubeExecutionContext youtubeExecutor;
+    private final WordStatistics wordStatistics;
+
+    /**
+     * Constructs the API controller.
+     *
+     * @param youtubeService  the service responsible for interacting with YouTube API
+     * @param youtubeExecutor the execution context blocking YouTube calls run on
+     * @param wordStatistics  the word frequencies of streamed and searched videos
+     */
+    @Inject
+    public ApiController(YoutubeService youtubeService, YoutubeExecutionContext youtubeExecutor,
+                         WordStatistics wordStatistics) {
+        this.youtubeService = youtubeService;
+        this.youtubeExecutor = youtubeExecutor;
+        this.wordStatistics = wordStatistics;
+    }
+
+    /**
+     * Streams one page of search results.
+     * <p>
+     * The last line links to the next page, which is requested with the same query and limit and
+     * the returned {@code pageToken}.
+     * </p>
+     *
+     * @param q         the search query
+     * @param pageToken the token of the page to return, or an empty string for the first page
+     * @param limit     the number of results per page, from 1 to {@value #MAX_LIMIT}
+     * @return a CompletionStage holding the NDJSON stream, or a 400 or 502 JSON error
+     */
+    public CompletionStage<Result> search(String q, String pageToken, int limit) {
+        if (q == null || q.isBlank()) {
+            return CompletableFuture.completedFuture(error(BAD_REQUEST, "Parameter 'q' is required"));
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return CompletableFuture.completedFuture(error(BAD_REQUEST, "Parameter 'limit' must be between 1 and " + MAX_LIMIT));
+        }
+        return youtubeService.searchPageAsync(q, pageToken.isEmpty() ? null : pageToken, limit, youtubeExecutor)
+                .thenApply(page -> {
+                    ObjectNode paging = Json.newObject().put("type", "page").put("query", q);
+                    page.getNextPageToken().ifPresent(token -> paging.put("nextPageToken", token)
+                            .put("next", routes.ApiController.search(q, token, limit).url()));
+                    return ok().chunked(videoLines(page).concat(Source.single(line(paging)))).as(NDJSON);
+                })
+                .exceptionally(e -> {
+                    System.err.println("[ApiController] Search failed for query: " + q);
+                    return error(BAD_GATEWAY, "YouTube search failed");
+                });
+    }
+
+    /**
+     * Streams the profile of a channel followed by its most recent videos. The profile and the
+     * videos are fetched in parallel.
+     *
+     * @param channelId the ID of the channel
+     * @param limit     the number of videos, from 1 to {@value #MAX_LIMIT}
+     * @return a CompletionStage holding the NDJSON stream, or a 400, 404 or 502 JSON error
+     */
+    public CompletionStage<Result> channel(String channelId, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return CompletableFuture.completedFuture(error(BAD_REQUEST, "Parameter 'limit' must be between 1 and " + MAX_LIMIT));
+        }
+        CompletionStage<Channel> profile = youtubeService.getChannelProfileAsync(channelId, youtubeExecutor);
+        CompletionStage<VideoPage> videos = youtubeService.channelVideosPageAsync(channelId, limit, youtubeExecutor);
+        return profile.thenCombine(videos, (channel, page) -> {
+            if (channel == null) {
+                return error(NOT_FOUND, "Channel not found");
+            }
+            ObjectNode header = Json.newObject().put("type", "channel")
+                    .put("channelId", channel.getChannelId())
+                    .put("title", channel.getTitle())
+                    .put("description", channel.getDescription())
+                    .put("thumbnailUrl", channel.getThumbnailUrl());
+            return ok().chunked(Source.single(line(header)).concat(videoLines(page))).as(NDJSON);
+        }).exceptionally(e -> {
+            System.err.println("[ApiController] Channel lookup failed for: " + channelId);
+            return error(BAD_GATEWAY, "YouTube channel lookup failed");
+        });
+    }
+
+    /**
+     * Returns the most frequent words in the titles and descriptions of the videos streamed and
+     * searched so far, for one query or for all of them, as
+     * {@code {"query":"java","total":1234,"words":[{"word":"tutorial","count":42}, ...]}}.
+     * Counts are estimates that may be slightly high, never low.
+     *
+     * @param q     the search query, or an empty string for all queries
+     * @param limit the largest number of words, from 1 to the configured {@code words.top}
+     * @return the statistics, or a 400 or 404 JSON error
+     */
+    public Result words(String q, int limit) {
+        if (limit < 1 || limit > wordStatistics.getTop()) {
+            return error(BAD_REQUEST, "Parameter 'limit' must be between 1 and " + wordStatistics.getTop());
+        }
+        if (q.isBlank()) {
+            return ok(wordStatistics.global(limit));
+        }
+        return wordStatistics.forQuery(q.trim(), limit)
+                .map(words -> ok(Json.newObject().put("query", q.trim()).<JsonNode>setAll(words)))
+                .orElseGet(() -> error(NOT_FOUND, "No videos counted for query"));
+    }
+
+    /**
+     * Parses and scores the videos of a page one at a time, as the client reads them.
+     *
+     * @param page the fetched page
+     * @return one line per video; items that are not videos are skipped
+     */
+    private static Source<ByteString, NotUsed> videoLines(VideoPage page) {
+        return Source.fromJavaStream(() -> IntStream.range(0, page.size()).boxed())
+                .mapConcat(index -> {
+                    Video video = page.video(index);
+                    return video != null ? List.of(video) : List.<Video>of();
+                })
+                .map(video -> {
+                    ObjectNode node = Json.newObject().put("type", "video");
+                    node.setAll((ObjectNode) Json.toJson(ReadabilityCalculator.calculateReadabilityScores(video)));
+                    return line(node);
+                });
+    }
+
+    private static ByteString line(JsonNode node) {
+        return ByteString.fromString(Json.stringify(node) + "\n");
+    }
+
+    private static Result error(int status, String message) {
+        return status(status, Json.newObject().put("error", message));
+    }
+}
@@ -0,0 +1,143 @@
+package controllers;
+
+import com.typesafe.config.Config;
+import play.mvc.Http;
+import play.mvc.Result;
+import play.mvc.Results;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * HTTP validators and freshness headers of the pages, and the conditional GET handling built on them.
+ * <p>
+ * A page is described by an entity tag and a last-modified time derived from the versions of the
+ * cached results it shows. A request whose {@code If-None-Match} (or, without it, {@code If-Modified-Since})
+ * still matches is answered with {@code 304 Not Modified} and no body. Every response carries
+ * {@code Cache-Control} with the configured {@code max-age} and {@code stale-while-revalidate}, so
+ * browsers and shared caches can serve repeat views themselves and revalidate in the background.
+ * </p>
+ * @author Hanieh
+ */
+@Singleton
+public class HttpCaching {
+    private final long maxAgeSeconds;
+    private final long staleWhileRevalidateSeconds;
+
+    @Inject
+    public HttpCaching(Config config) {
+        this(config.getDuration("http.cache.max-age"), config.getDuration("http.cache.stale-while-revalidate"));
+    }
+
+    /**
+     * Creates the caching policy.
+     *
+     * @param maxAge               how long a response is fresh
+     * @param staleWhileRevalidate how long after that a cache may still serve it while revalidating
+     */
+    public HttpCaching(Duration maxAge, Duration staleWhileRevalidate) {
+        this.maxAgeSeconds = maxAge.getSeconds();
+        this.staleWhileRevalidateSeconds = staleWhileRevalidate.getSeconds();
+    }
+
+    /**
+     * Formats a version as a strong entity tag.
+     *
+     * @param version the version
+     * @return the quoted entity tag
+     */
+    public static String etag(long version) {
+        return "\"" + Long.toHexString(version) + "\"";
+    }
+
+    /**
+     * Answers a conditional request whose validators still match.
+     *
+     * @param request      the request
+     * @param etag         the entity tag of the current representation
+     * @param lastModified when the current representation last changed, or {@code null} if unknown
+     * @param shared       whether shared caches may store the response, or only the browser
+     * @return a {@code 304 Not Modified} carrying the validators, or empty if the full page must be sent
+     */
+    public Optional<Result> notModified(Http.Request request, String etag, Instant lastModified, boolean shared) {
+        Optional<String> ifNoneMatch = request.header(Http.HeaderNames.IF_NONE_MATCH);
+        boolean matches = ifNoneMatch.isPresent()
+                ? matchesAny(ifNoneMatch.get(), etag)
+                : lastModified != null && request.header(Http.HeaderNames.IF_MODIFIED_SINCE)
+                        .flatMap(HttpCaching::parseDate)
+                        .map(since -> !lastModified.truncatedTo(ChronoUnit.SECONDS).isAfter(since))
+                        .orElse(false);
+        return matches ? Optional.of(withValidators(Results.status(Http.Status.NOT_MODIFIED), etag, lastModified, shared))
+                : Optional.empty();
+    }
+
+    /**
+     * Adds the validators and freshness headers to a response.
+     *
+     * @param result       the response
+     * @param etag         the entity tag of the representation
+     * @param lastModified when the representation last changed, or {@code null} if unknown
+     * @param shared       whether shared caches may store the response, or only the browser
+     * @return the response with {@code ETag}, {@code Last-Modified} and {@code Cache-Control}
+     */
+    public Result withValidators(Result result, String etag, Instant lastModified, boolean shared) {
+        Result tagged = result.withHeader(Http.HeaderNames.ETAG, etag)
+                .withHeader(Http.HeaderNames.CACHE_CONTROL, cacheControl(shared));
+        return lastModified != null ? tagged.withHeader(Http.HeaderNames.LAST_MODIFIED, formatDate(lastModified)) : tagged;
+    }
+
+    /**
+     * Marks a response that has no validators yet, because its content was still being fetched when
+     * the headers were sent, so that no cache stores it.
+     *
+     * @param result the response
+     * @return the response with {@code Cache-Control: no-store}
+     */
+    public Result uncached(Result result) {
+        return result.withHeader(Http.HeaderNames.CACHE_CONTROL, "no-store");
+    }
+
+    private String cacheControl(boolean shared) {
+        return (shared ? "public" : "private") + ", max-age=" + maxAgeSeconds
+                + ", stale-while-revalidate=" + staleWhileRevalidateSeconds;
+    }
+
+    /**
+     * Tells whether an {@code If-None-Match} header matches an entity tag, comparing weakly as
+     * RFC 9110 requires for GET.
+     */
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || stripWeak(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String formatDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC));
+    }
+
+    private static Optional<Instant> parseDate(String value) {
+        try {
+            return Optional.of(ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+}
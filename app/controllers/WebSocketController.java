@@ -20,29 +20,53 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import play.libs.Json;
 import play.mvc.Controller;
 import play.mvc.WebSocket;
+import play.libs.EventSource;
+import play.http.websocket.Message;
+import akka.util.ByteString;
+import utils.FrameEncoding;
+import services.WordStatistics;
 import services.YoutubeService;
+import actors.OutboundBatch;
+import actors.OutboundStats;
+import actors.SessionContext;
+import actors.SessionSettings;
 import actors.UserActor;
 import actors.SupervisorActor;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Controller to manage WebSocket connections for real-time updates and interactions.
  * <p>
  * This controller establishes WebSocket connections and links them with actor-based
  * message handling using Akka. Each user gets an individual {@link UserActor} for
- * managing their WebSocket communication.
+ * managing their WebSocket communication; the helpers those sessions delegate to are shared
+ * through a single {@link SessionContext}. The same sessions also serve Server-Sent Events
+ * streams for clients that cannot use WebSockets, see {@link #events(Http.Request, String, int)}.
  * </p>
  * @author Hanieh
  */
 public class WebSocketController extends Controller {
+    /** The subscription ID of the query an event stream tracks. */
+    public static final String EVENTS_SUBSCRIPTION = "events";
+    /** The prefix of the IDs of sessions created for event streams, followed by a random UUID. */
+    private static final String EVENTS_SESSION_PREFIX = "Events-";
+    private static final AtomicLong SESSION_IDS = new AtomicLong(10000);
+    private static final String USER_ACTOR_PREFIX = "UserActor-";
+
     private final ActorSystem actorSystem;
     private final Materializer materializer;
     private final ActorRef supervisorActor;
     private final YoutubeService youtubeService; // Add this dependency
+    private final SessionContext sessionContext;
 
     /**
      * Constructs the WebSocketController with the required dependencies.
@@ -50,25 +74,78 @@ public class WebSocketController extends Controller {
      * @param actorSystem    The Akka ActorSystem used for actor-based message handling.
      * @param materializer   The Akka Materializer for managing streams.
      * @param supervisorActor The SupervisorActor responsible for overseeing UserActor instances.
+     * @param scoreRouter    The pooled ScoreActor router shared by all sessions.
+     * @param channelRouter  The pooled ChannelActor router shared by all sessions.
      * @param youtubeService A service to interact with YouTube data.
+     * @param wordStatistics The word frequencies streamed videos are counted in.
      * @author Hanieh
      */
     @Inject
-    public WebSocketController(ActorSystem actorSystem, Materializer materializer, @Named("supervisor-actor") ActorRef supervisorActor, YoutubeService youtubeService) {
+    public WebSocketController(ActorSystem actorSystem, Materializer materializer, @Named("supervisor-actor") ActorRef supervisorActor,
+                               @Named("score-router") ActorRef scoreRouter, @Named("channel-router") ActorRef channelRouter,
+                               YoutubeService youtubeService, WordStatistics wordStatistics) {
         this.actorSystem = actorSystem;
         this.materializer = materializer;
         this.supervisorActor = supervisorActor;
         this.youtubeService = youtubeService; // Initialize the service
+        this.sessionContext = new SessionContext(supervisorActor, youtubeService, scoreRouter, channelRouter,
+                SessionSettings.fromConfig(actorSystem.settings().config()), wordStatistics);
     }
 
     /**
      * Handles WebSocket requests by establishing a stream and connecting it to a {@link UserActor}.
+     * <p>
+     * The frame encoding is chosen at connect time with the {@code encoding} query parameter:
+     * {@code json} (the default) sends text frames, {@code cbor} and {@code smile} send the same
+     * messages as binary frames. Clients may send commands in either text JSON or the chosen encoding.
+     * </p>
      *
-     * @return A {@link WebSocket} that facilitates real-time JSON communication between the client and server.
+     * @return A {@link WebSocket} that facilitates real-time communication between the client and server.
      * @author Hanieh
      */
     public WebSocket stream() {
-        return WebSocket.Json.acceptOrResult(this::createActorBasedFlow);
+        return new WebSocket() {
+            @Override
+            public CompletionStage<F.Either<Result, Flow<Message, Message, ?>>> apply(Http.RequestHeader request) {
+                FrameEncoding encoding;
+                try {
+                    encoding = FrameEncoding.fromName(request.queryString("encoding").orElse(null));
+                } catch (IllegalArgumentException e) {
+                    return CompletableFuture.completedFuture(F.Either.Left(Results.badRequest("Unsupported encoding.")));
+                }
+                return createActorBasedFlow(request).thenApply(accepted -> accepted.right
+                        .<F.Either<Result, Flow<Message, Message, ?>>>map(flow -> F.Either.Right(encoded(flow, encoding)))
+                        .orElseGet(() -> F.Either.Left(accepted.left.get())));
+            }
+        };
+    }
+
+    /**
+     * Wraps a JSON flow so that it reads and writes WebSocket messages in the given encoding.
+     * Frames that cannot be decoded are logged and skipped.
+     *
+     * @param flow     the session flow
+     * @param encoding the encoding negotiated at connect time
+     * @return the flow of WebSocket messages
+     */
+    private static Flow<Message, Message, ?> encoded(Flow<JsonNode, JsonNode, ?> flow, FrameEncoding encoding) {
+        return Flow.<Message>create()
+                .mapConcat(message -> {
+                    try {
+                        if (message instanceof Message.Text) {
+                            return List.of(Json.parse(((Message.Text) message).data()));
+                        } else if (message instanceof Message.Binary) {
+                            return List.of(encoding.decode(((Message.Binary) message).data().toArray()));
+                        }
+                    } catch (RuntimeException e) {
+                        System.err.println("[WebSocketController] Undecodable frame: " + e.getMessage());
+                    }
+                    return List.<JsonNode>of();
+                })
+                .via(flow)
+                .map(frame -> encoding.isBinary()
+                        ? new Message.Binary(ByteString.fromArrayUnsafe(encoding.encode(frame)))
+                        : new Message.Text(Json.stringify(frame)));
     }
 
     /**
@@ -76,7 +153,12 @@ public class WebSocketController extends Controller {
      * <p>
      * This method sets up a message sink for receiving JSON messages from the client and
      * a source for sending JSON messages to the client. The connection is tied to a {@link UserActor}
-     * for handling user-specific interactions.
+     * for handling user-specific interactions; the actor watches the outbound queue, so closing the socket
+     * stops the session. Outbound frames go through a backpressured queue, so a slow client makes the
+     * session merge or hold back updates instead of losing them silently. Frames produced close together
+     * are coalesced into batch frames (see {@link OutboundBatch}). Clients keep an otherwise
+     * quiet session alive with {@code {"type":"heartbeat"}} frames, and manage tracked queries with
+     * {@link UserActor.SubscriptionCommand} frames.
      * </p>
      *
      * @param request The HTTP request header initiating the WebSocket connection.
@@ -87,15 +169,21 @@ public class WebSocketController extends Controller {
     private CompletionStage<F.Either<Result, Flow<JsonNode, JsonNode, ?>>> createActorBasedFlow(Http.RequestHeader request) {
         try {
             System.out.println("[WebSocketController] Establishing WebSocket connection...");
-            String userId = "User-" + (10000 + new java.util.Random().nextInt(90000)); // Assign a meaningful user ID
-            ActorRef userActor = actorSystem.actorOf(
-                    Props.create(UserActor.class, () -> new UserActor(supervisorActor, userId, youtubeService)),
-                    "UserActor-" + userId
-            );
+            String userId = "User-" + SESSION_IDS.incrementAndGet(); // Unique even with many concurrent connections
+            ActorRef userActor = createSession(userId);
 
             Sink<JsonNode, ?> sink = Sink.foreach(jsonNode -> {
                 System.out.println("[WebSocketController] Received WebSocket message: " + jsonNode);
                 try {
+                    if ("heartbeat".equals(jsonNode.path("type").asText())) {
+                        userActor.tell(new UserActor.Heartbeat(), ActorRef.noSender());
+                        return;
+                    }
+                    UserActor.SubscriptionCommand command = UserActor.SubscriptionCommand.fromJson(jsonNode);
+                    if (command != null) {
+                        userActor.tell(command, ActorRef.noSender());
+                        return;
+                    }
                     String query = jsonNode.get("query").asText();
                     userActor.tell(new UserActor.ClientMessage(query), ActorRef.noSender());
                 } catch (Exception e) {
@@ -103,11 +191,14 @@ public class WebSocketController extends Controller {
                 }
             });
 
-            Source<JsonNode, ActorRef> source = Source.<JsonNode>actorRef(10, OverflowStrategy.dropHead())
-                    .mapMaterializedValue(clientActor -> {
-                        System.out.println("[WebSocketController] Source actor created.");
-                        userActor.tell(clientActor, ActorRef.noSender());
-                        return clientActor;
+            OutboundStats stats = new OutboundStats();
+            Source<JsonNode, SourceQueueWithComplete<JsonNode>> source = OutboundBatch.batched(
+                    Source.<JsonNode>queue(sessionContext.getSettings().getOutboundBufferSize(), OverflowStrategy.backpressure()),
+                    sessionContext.getSettings(), stats)
+                    .mapMaterializedValue(queue -> {
+                        System.out.println("[WebSocketController] Outbound queue created.");
+                        userActor.tell(new UserActor.ClientConnected(queue, stats), ActorRef.noSender());
+                        return queue;
                     });
 
             Flow<JsonNode, JsonNode, ?> flow = Flow.fromSinkAndSourceCoupled(sink, source);
@@ -117,4 +208,130 @@ public class WebSocketController extends Controller {
             return CompletableFuture.completedFuture(F.Either.Left(Results.badRequest("Unable to establish WebSocket connection.")));
         }
     }
+
+    /**
+     * Creates the {@link UserActor} of a new session.
+     *
+     * @param userId the unique ID of the session
+     * @return the session actor
+     */
+    private ActorRef createSession(String userId) {
+        return actorSystem.actorOf(
+                Props.create(UserActor.class, () -> new UserActor(userId, sessionContext)).withMailbox(UserActor.MAILBOX),
+                USER_ACTOR_PREFIX + userId
+        );
+    }
+
+    /**
+     * Streams the scored result frames of one query as Server-Sent Events.
+     * <p>
+     * The stream is served by a regular {@link UserActor} session subscribed to the query, so
+     * it receives the same {@code subscribed}, {@code delta} and {@code snapshot} frames as a
+     * WebSocket client, each as an event named after the frame type. Frames carrying a sequence
+     * number get the event ID {@code <session>:<seq>}.
+     * </p>
+     * <p>
+     * When the connection drops, the session is kept until the idle timeout. A client reconnecting
+     * with that event ID in {@code Last-Event-ID} (sent by browsers automatically, or as the
+     * {@code lastEventId} query parameter) is re-attached to it and only gets a snapshot if it missed
+     * frames; the query of a resumed stream is that of the original request. An unknown or expired
+     * ID starts a new session. Only sessions created by this endpoint can be resumed: their IDs hold a
+     * random UUID, which is checked before the session is looked up, so a WebSocket session or an
+     * actor path pattern can never be attached to.
+     * </p>
+     * <p>
+     * Delivery is flow controlled like the WebSocket: events go through the session's backpressured
+     * outbound queue, so a slow reader makes the session merge pending frames and pause its search
+     * pipeline instead of buffering without bound. A comment line is sent when the stream is quiet
+     * so that proxies keep the connection open.
+     * </p>
+     *
+     * @param request the HTTP request, possibly carrying {@code Last-Event-ID}
+     * @param query   the search query to track
+     * @param limit   the number of videos in the tracked window
+     * @return a CompletionStage holding the {@code text/event-stream} response, or a 400 without a query
+     */
+    public CompletionStage<Result> events(Http.Request request, String query, int limit) {
+        Optional<String> lastEventId = request.header("Last-Event-ID").or(() -> request.queryString("lastEventId"));
+        Optional<String[]> resumeFrom = lastEventId.map(id -> id.split(":", 2))
+                .filter(parts -> parts.length == 2 && isEventSessionId(parts[0]));
+        if (query.isBlank() && resumeFrom.isEmpty()) {
+            return CompletableFuture.completedFuture(badRequest("Parameter 'query' is required."));
+        }
+
+        CompletionStage<ActorRef> existing = resumeFrom
+                .map(parts -> actorSystem.actorSelection("/user/" + USER_ACTOR_PREFIX + parts[0])
+                        .resolveOne(Duration.ofSeconds(1))
+                        .exceptionally(e -> null))
+                .orElseGet(() -> CompletableFuture.completedFuture(null));
+        return existing.thenApply(session -> {
+            boolean resumed = session != null;
+            if (!resumed && query.isBlank()) {
+                return badRequest("The event stream to resume has expired and no query was given.");
+            }
+            String userId = resumed ? resumeFrom.get()[0] : EVENTS_SESSION_PREFIX + UUID.randomUUID();
+            ActorRef userActor = resumed ? session : createSession(userId);
+            Object start = resumed
+                    ? new UserActor.ResumeFrom(EVENTS_SUBSCRIPTION, parseSeq(resumeFrom.get()[1]))
+                    : new UserActor.SubscriptionCommand(UserActor.SubscriptionCommand.Action.SUBSCRIBE,
+                            EVENTS_SUBSCRIPTION, query.trim(), limit);
+            System.out.println("[WebSocketController] " + (resumed ? "Resuming" : "Opening") + " event stream for userId: " + userId);
+
+            OutboundStats stats = new OutboundStats();
+            Source<ByteString, ?> events = Source.<JsonNode>queue(
+                            sessionContext.getSettings().getOutboundBufferSize(), OverflowStrategy.backpressure())
+                    .mapMaterializedValue(queue -> {
+                        userActor.tell(new UserActor.ClientConnected(queue, stats, true), ActorRef.noSender());
+                        userActor.tell(start, ActorRef.noSender());
+                        return queue;
+                    })
+                    .map(frame -> {
+                        stats.recordDelivered(1);
+                        return event(userId, frame);
+                    })
+                    .via(EventSource.flow())
+                    .keepAlive(actorSystem.settings().config().getDuration("session.events.keep-alive"),
+                            () -> ByteString.fromString(":\n\n"));
+            return ok().chunked(events).as(Http.MimeTypes.EVENT_STREAM).withHeader(Http.HeaderNames.CACHE_CONTROL, "no-cache");
+        });
+    }
+
+    /**
+     * Wraps a session frame in a Server-Sent Event.
+     *
+     * @param userId the ID of the session
+     * @param frame  the frame
+     * @return the event, named after the frame type and identified by the session and sequence number if it has one
+     */
+    private static EventSource.Event event(String userId, JsonNode frame) {
+        String id = frame.has("seq") ? userId + ":" + frame.get("seq").asLong() : null;
+        return new EventSource.Event(Json.stringify(frame), id, frame.path("type").asText(null));
+    }
+
+    /**
+     * Tells whether an ID names a session created for an event stream: the events prefix followed by
+     * a UUID in canonical form, so it holds no other session's ID and no actor path pattern.
+     *
+     * @param userId the session ID taken from the client
+     * @return {@code true} if the ID may be looked up
+     */
+    static boolean isEventSessionId(String userId) {
+        if (!userId.startsWith(EVENTS_SESSION_PREFIX)) {
+            return false;
+        }
+        String uuid = userId.substring(EVENTS_SESSION_PREFIX.length());
+        try {
+            return UUID.fromString(uuid).toString().equals(uuid);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static long parseSeq(String seq) {
+        try {
+            return Long.parseLong(seq);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
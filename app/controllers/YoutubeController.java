@@ -1,18 +1,27 @@
 package controllers;
 
+import akka.NotUsed;
+import akka.stream.javadsl.Source;
+import akka.util.ByteString;
 import play.mvc.*;
+import play.twirl.api.HtmlFormat;
 import javax.inject.Inject;
-import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.List;
-import java.util.Map;
 import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import scala.jdk.javaapi.CollectionConverters;
 
 import models.*;
+import services.SearchCache;
+import services.SearchHistory;
+import services.YoutubeExecutionContext;
 import services.YoutubeService;
 import utils.*;
 import views.html.*;
@@ -25,98 +34,217 @@ import views.html.*;
  * @author Hanieh, Adriana
  */
 public class YoutubeController extends Controller {
+    /** The session cookie entry identifying a browser session's search history. */
+    public static final String SESSION_KEY = "sid";
+    /** The marker in the search page layout where the streamed results are inserted. */
+    private static final String RESULTS_SLOT = "<!-- results -->";
 
-    private final LinkedHashMap<String, List<Video>> cachedResults = new LinkedHashMap<>();
     private final YoutubeService youtubeService;
-    private Map<String, ReadabilityStats> readabilityScores = new LinkedHashMap<>();
+    private final YoutubeExecutionContext youtubeExecutor;
+    private final SearchCache searchCache;
+    private final SearchHistory searchHistory;
+    private final HttpCaching httpCaching;
 
     /**
-     * Constructs a new YoutubeController with the specified YouTube service.
-     * <p>Initializes the sentiment analysis service.</p>
+     * Constructs a new YoutubeController.
      *
-     * @param youtubeService the service responsible for interacting with YouTube API
+     * @param youtubeService  the service responsible for interacting with YouTube API
+     * @param youtubeExecutor the execution context blocking YouTube calls run on
+     * @param searchCache     the search results shared by all sessions
+     * @param searchHistory   the queries of each browser session
+     * @param httpCaching     the validators and freshness headers of the pages
      */
     @Inject
-    public YoutubeController(YoutubeService youtubeService) {
+    public YoutubeController(YoutubeService youtubeService, YoutubeExecutionContext youtubeExecutor,
+                             SearchCache searchCache, SearchHistory searchHistory, HttpCaching httpCaching) {
         this.youtubeService = youtubeService;
+        this.youtubeExecutor = youtubeExecutor;
+        this.searchCache = searchCache;
+        this.searchHistory = searchHistory;
+        this.httpCaching = httpCaching;
     }
 
-    public CompletionStage<Result> search(String searchQuery) {
-        if (searchQuery == null || searchQuery.isEmpty()) {
-            return CompletableFuture.completedFuture(ok(search.render(Helper.reverseMap(cachedResults), readabilityScores)));
+    /**
+     * Searches for a query and streams the search page with the new results above the earlier
+     * searches of the same browser session.
+     * <p>
+     * The page is sent in chunks so the browser can render it while the search is still running:
+     * the header and form go out at once, the newest page of the session's history as soon as it is
+     * looked up, and the new query's results once they are scored. The results are placed above the
+     * history with CSS ordering, so they can arrive last. Older history pages are loaded on demand
+     * from {@link #history(Http.Request, int)}.
+     * </p>
+     * <p>
+     * The action never blocks: results come from the shared {@link SearchCache}, which searches on the
+     * {@link YoutubeExecutionContext} when a query is not cached. A failed search is reported in
+     * its place on the page, since the response status has already been sent.
+     * </p>
+     * <p>
+     * When every result on the page is already cached, the page gets an entity tag and last-modified
+     * time derived from the cached versions, and a matching conditional request is answered with
+     * {@code 304 Not Modified}. Pages still waiting for a search are sent without validators and
+     * are not stored by caches.
+     * </p>
+     *
+     * @param request     the HTTP request, carrying the session ID if the browser has one
+     * @param searchQuery the query, or an empty string to only show the history
+     * @return a CompletionStage holding the streamed search page
+     */
+    public CompletionStage<Result> search(Http.Request request, String searchQuery) {
+        String sessionId = request.session().get(SESSION_KEY).orElseGet(() -> UUID.randomUUID().toString());
+        boolean hasQuery = searchQuery != null && !searchQuery.isEmpty();
+
+        Source<String, NotUsed> results = Source.empty();
+        if (hasQuery) {
+            results = Source.completionStage(searchCache.get(searchQuery).handle((entry, failure) -> {
+                if (failure != null) {
+                    System.err.println("[YoutubeController] Search failed for query: " + searchQuery);
+                    return "<div style=\"order: 1\"><p>Search for \"" + HtmlFormat.escape(searchQuery).body()
+                            + "\" failed. Please try again later.</p></div>";
+                }
+                LinkedHashMap<String, SearchCache.Entry> entries = new LinkedHashMap<>();
+                entries.put(searchQuery, entry);
+                return "<div style=\"order: 1\">" + searchResults.render(entries, -1).body() + "</div>";
+            }));
+            searchHistory.record(sessionId, searchQuery);
         }
 
-        List<Video> videos;
-        // Check if the result is already cached
-        if (cachedResults.containsKey(searchQuery)) {
-            videos = cachedResults.get(searchQuery);
-            // Move this query to the front to indicate it's the newest
-            cachedResults.remove(searchQuery);
-        } else {
-            // Call the YoutubeService for new results
-            try {
-                videos = youtubeService.searchVideos(searchQuery).stream()
-                        .limit(10) // Limit to the first 10 videos
-                        .collect(Collectors.toList());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        SearchHistory.Page page = searchHistory.page(sessionId, 0);
+        List<String> earlier = page.getQueries().stream()
+                .filter(query -> !hasQuery || !query.equals(searchQuery))
+                .collect(Collectors.toList());
+
+        List<String> shown = new ArrayList<>(earlier);
+        if (hasQuery) {
+            shown.add(0, searchQuery);
+        }
+        Optional<Validators> validators = validators(shown, page.getNextOffset());
+        Optional<Result> notModified = validators.flatMap(v -> httpCaching.notModified(request, v.etag, v.lastModified, false));
+        if (notModified.isPresent()) {
+            return CompletableFuture.completedFuture(notModified.get().addingToSession(request, SESSION_KEY, sessionId));
+        }
+        Source<String, NotUsed> history = Source.completionStage(lookUp(earlier).thenApply(entries ->
+                "<div style=\"order: 2\">" + searchResults.render(entries, page.getNextOffset()).body() + "</div>"));
+
+        String[] layout = search.render().body().split(RESULTS_SLOT, 2);
+        Source<ByteString, NotUsed> chunks = Source.single(layout[0])
+                .concat(history)
+                .concat(results)
+                .concat(Source.single(layout[1]))
+                .map(ByteString::fromString);
+        Result streamed = ok().chunked(chunks).as("text/html; charset=utf-8");
+        Result cacheable = validators.map(v -> httpCaching.withValidators(streamed, v.etag, v.lastModified, false))
+                .orElseGet(() -> httpCaching.uncached(streamed));
+        return CompletableFuture.completedFuture(cacheable.addingToSession(request, SESSION_KEY, sessionId));
+    }
+
+    /**
+     * Derives the validators of a search page from the versions of the cached results it shows.
+     *
+     * @param queries    the queries shown, in display order
+     * @param nextOffset the offset of the older history page the page links to
+     * @return the validators, or empty if a query is not cached yet and the content is still unknown
+     */
+    private Optional<Validators> validators(List<String> queries, int nextOffset) {
+        long version = ContentHash.append(ContentHash.of("search"), nextOffset);
+        Instant lastModified = Instant.EPOCH;
+        for (String query : queries) {
+            Optional<SearchCache.Entry> entry = searchCache.getIfReady(query);
+            if (entry.isEmpty()) {
+                return Optional.empty();
+            }
+            version = ContentHash.append(ContentHash.append(version, query), entry.get().getVersion());
+            if (entry.get().getFetchedAt().isAfter(lastModified)) {
+                lastModified = entry.get().getFetchedAt();
             }
         }
+        return Optional.of(new Validators(HttpCaching.etag(version), lastModified));
+    }
 
-        // Add the query and its results to the front
-        cachedResults.put(searchQuery, videos);
-        readabilityScores.put(searchQuery, getReadabilityStats(videos));
+    /**
+     * The entity tag and last-modified time of a search page.
+     */
+    private static class Validators {
+        private final String etag;
+        private final Instant lastModified;
 
-        return CompletableFuture.completedFuture(ok(search.render(Helper.reverseMap(cachedResults), readabilityScores)));
+        Validators(String etag, Instant lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
     }
 
+    /**
+     * Renders an older page of the session's search history, to be appended to the search page.
+     *
+     * @param request the HTTP request, carrying the session ID
+     * @param offset  the number of newer queries to skip
+     * @return a CompletionStage that renders the page as an HTML fragment
+     */
+    public CompletionStage<Result> history(Http.Request request, int offset) {
+        SearchHistory.Page page = request.session().get(SESSION_KEY)
+                .map(sessionId -> searchHistory.page(sessionId, offset))
+                .orElseGet(() -> new SearchHistory.Page(Collections.emptyList(), -1));
+        return lookUp(page.getQueries()).thenApply(results -> ok(searchResults.render(results, page.getNextOffset())));
+    }
 
     /**
-     * Fetches the profile of a YouTube channel and its recent videos asynchronously.
-     * <p>
-     * This method retrieves channel details and the most recent 10 videos uploaded by the channel
-     * using the YouTube service. The operation is performed asynchronously.
-     * </p>
+     * Looks up the results of several queries at once. Queries whose results have expired are
+     * fetched again; those that fail are left out.
      *
-     * @param channelId the ID of the YouTube channel
-     * @return a CompletionStage that renders the channel profile page
+     * @param queries the queries, in display order
+     * @return the results of the queries that could be looked up, in display order
      */
-    public CompletionStage<Result> channelProfile(String channelId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Fetch channel data
-                Channel channel = youtubeService.getChannelProfile(channelId);
-                if (channel == null) {
-                    return notFound("Channel not found");
+    private CompletionStage<LinkedHashMap<String, SearchCache.Entry>> lookUp(List<String> queries) {
+        List<CompletableFuture<SearchCache.Entry>> lookups = queries.stream()
+                .map(query -> searchCache.get(query).toCompletableFuture().exceptionally(e -> null))
+                .collect(Collectors.toList());
+        return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            LinkedHashMap<String, SearchCache.Entry> entries = new LinkedHashMap<>();
+            for (int i = 0; i < queries.size(); i++) {
+                SearchCache.Entry entry = lookups.get(i).join();
+                if (entry != null) {
+                    entries.put(queries.get(i), entry);
                 }
-
-                // Fetch last 10 videos for the channel
-                List<Video> recentVideos = youtubeService.searchVideosByChannel(channelId, 10);
-                scala.collection.immutable.List<Video> scalaRecentVideos = CollectionConverters.asScala(
-                        recentVideos != null ? recentVideos : Collections.emptyList()
-                ).toList();
-
-                // Render the response
-                return ok(views.html.channel.render(channel, scalaRecentVideos));
-            } catch (Exception e) {
-                // Handle exceptions and return an error response
-                return notFound("Channel not found due to service error.");
             }
+            return entries;
         });
     }
 
-
     /**
-     * @param videos
-     * @return ReadabilityStats
-     * @author Hanieh
+     * Fetches the profile of a YouTube channel and its recent videos asynchronously.
+     * <p>
+     * The channel details and the 10 most recent videos are requested in parallel on the
+     * {@link YoutubeExecutionContext}, and the videos are scored for readability as soon as they
+     * arrive, so the page takes as long as the slower of the two calls rather than their sum.
+     * </p>
+     * <p>
+     * The page is the same for every user, so it carries an entity tag hashed from its content and
+     * may be stored by shared caches; a conditional request for an unchanged page gets {@code 304 Not Modified}.
+     * </p>
+     *
+     * @param request   the HTTP request, possibly conditional
+     * @param channelId the ID of the YouTube channel
+     * @return a CompletionStage that renders the channel profile page
      */
-    private ReadabilityStats getReadabilityStats(List<Video> videos){
-        ReadabilityCalculator.calculateReadabilityScores(videos);
-        return ReadabilityCalculator.calculateAverageReadabilityStats(videos);
-    }
-
-    public LinkedHashMap<String, List<Video>> getCachedResult(){
-        return cachedResults;
+    public CompletionStage<Result> channelProfile(Http.Request request, String channelId) {
+        CompletableFuture<Channel> profile = CompletableFuture.supplyAsync(
+                () -> youtubeService.getChannelProfile(channelId), youtubeExecutor);
+        CompletableFuture<List<Video>> recentVideos = CompletableFuture.supplyAsync(() -> {
+            // Fetch last 10 videos for the channel and score them in the same task
+            List<Video> videos = youtubeService.searchVideosByChannel(channelId, 10);
+            return videos != null ? ReadabilityCalculator.calculateReadabilityScores(videos) : Collections.<Video>emptyList();
+        }, youtubeExecutor);
+
+        return profile.thenCombine(recentVideos, (channel, videos) -> {
+            if (channel == null) {
+                return notFound("Channel not found");
+            }
+            // Render the response
+            play.twirl.api.Html page = views.html.channel.render(channel, CollectionConverters.asScala(videos).toList());
+            String etag = HttpCaching.etag(ContentHash.of(page.body()));
+            return httpCaching.notModified(request, etag, null, true)
+                    .orElseGet(() -> httpCaching.withValidators(ok(page), etag, null, true));
+        }).exceptionally(e -> notFound("Channel not found due to service error."));
     }
 }
@@ -0,0 +1,159 @@
+package services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.typesafe.config.Config;
+import models.Video;
+import play.libs.Json;
+import utils.ContentHash;
+import utils.ReadabilityCalculator;
+import utils.ReadabilityStats;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * Scored search results of the search page, shared by every user.
+ * <p>
+ * A query is searched and scored once on the {@link YoutubeExecutionContext} and then served from
+ * memory until it expires or is evicted; concurrent requests for a query that is still being fetched
+ * wait for the same search. The store is bounded by the number of queries. Failed searches are not kept.
+ * </p>
+ * @author Hanieh
+ */
+@Singleton
+public class SearchCache {
+    /** The number of videos kept per query. */
+    public static final int VIDEOS_PER_QUERY = 10;
+
+    private final YoutubeService youtubeService;
+    private final Executor youtubeExecutor;
+    private final WordStatistics wordStatistics;
+    private final AsyncCache<String, Entry> entries;
+
+    @Inject
+    public SearchCache(YoutubeService youtubeService, YoutubeExecutionContext youtubeExecutor, Config config,
+                       WordStatistics wordStatistics) {
+        this(youtubeService, youtubeExecutor, config.getInt("search.cache.max-queries"), config.getDuration("search.cache.ttl"),
+                wordStatistics);
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param youtubeService  the service to search with
+     * @param youtubeExecutor the executor blocking searches run on
+     * @param maxQueries      the number of queries kept
+     * @param ttl             how long a query is served from the cache after it was fetched
+     * @param wordStatistics  the word frequencies fetched videos are counted in
+     */
+    public SearchCache(YoutubeService youtubeService, Executor youtubeExecutor, int maxQueries, Duration ttl,
+                       WordStatistics wordStatistics) {
+        this.youtubeService = youtubeService;
+        this.youtubeExecutor = youtubeExecutor;
+        this.wordStatistics = wordStatistics;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxQueries)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+    }
+
+    /**
+     * Returns the scored results of a query, searching for it if it is not cached.
+     *
+     * @param query the search query
+     * @return the cached or freshly fetched results
+     */
+    public CompletionStage<Entry> get(String query) {
+        return entries.get(query, (key, executor) -> CompletableFuture.supplyAsync(() -> fetch(key), youtubeExecutor));
+    }
+
+    /**
+     * Returns the results of a query if they are cached and the search for them has completed,
+     * without starting a search.
+     *
+     * @param query the search query
+     * @return the cached results, or empty if the query is not cached, still being searched or failed
+     */
+    public Optional<Entry> getIfReady(String query) {
+        CompletableFuture<Entry> entry = entries.getIfPresent(query);
+        if (entry == null || !entry.isDone() || entry.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.join());
+    }
+
+    /**
+     * Searches for a query and scores the results.
+     *
+     * @param query the search query
+     * @return the scored results
+     * @throws CompletionException wrapping the failure of the search
+     */
+    private Entry fetch(String query) {
+        List<Video> videos;
+        try {
+            videos = youtubeService.searchVideos(query).stream()
+                    .limit(VIDEOS_PER_QUERY)
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        ReadabilityStats stats = ReadabilityCalculator.scoreBatch(videos).getStats();
+        wordStatistics.record(query, videos);
+        return new Entry(Collections.unmodifiableList(videos), stats);
+    }
+
+    /**
+     * The scored results of one query. Entries are shared between requests and must not be modified.
+     * <p>
+     * Every entry carries a version hashed from its content and the time it was fetched, from which
+     * pages showing it derive their HTTP validators. Fetching a query again yields the same version
+     * as long as YouTube returns the same videos.
+     * </p>
+     */
+    public static class Entry {
+        private final List<Video> videos;
+        private final ReadabilityStats stats;
+        private final long version;
+        private final Instant fetchedAt;
+
+        public Entry(List<Video> videos, ReadabilityStats stats) {
+            this(videos, stats, ContentHash.of(Json.toJson(videos).toString()), Instant.now());
+        }
+
+        public Entry(List<Video> videos, ReadabilityStats stats, long version, Instant fetchedAt) {
+            this.videos = videos;
+            this.stats = stats;
+            this.version = version;
+            this.fetchedAt = fetchedAt;
+        }
+
+        public List<Video> getVideos() {
+            return videos;
+        }
+
+        public ReadabilityStats getStats() {
+            return stats;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public Instant getFetchedAt() {
+            return fetchedAt;
+        }
+    }
+}
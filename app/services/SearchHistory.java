@@ -0,0 +1,137 @@
+package services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.typesafe.config.Config;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The queries each browser session searched for on the search page, newest first.
+ * <p>
+ * Every session keeps a bounded deque of queries: a new query is pushed to the front, searching for
+ * a query again moves it to the front, and the oldest query falls off once the bound is reached.
+ * Pages are read by walking the deque from the front, so a render only touches the entries it shows.
+ * Sessions that stay idle are forgotten, and so are the least recently used ones once the number of
+ * sessions reaches its bound. The results themselves live in the {@link SearchCache} shared by all
+ * sessions.
+ * </p>
+ * @author Hanieh
+ */
+@Singleton
+public class SearchHistory {
+    private final int maxQueries;
+    private final int pageSize;
+    private final Cache<String, QueryDeque> sessions;
+
+    @Inject
+    public SearchHistory(Config config) {
+        this(config.getInt("search.history.max-queries"), config.getInt("search.history.page-size"),
+                config.getInt("search.history.max-sessions"), config.getDuration("search.history.idle-timeout"));
+    }
+
+    /**
+     * Creates a history.
+     *
+     * @param maxQueries  the number of queries kept per session
+     * @param pageSize    the number of queries shown at once
+     * @param maxSessions the number of sessions kept
+     * @param idleTimeout how long a session is kept after it was last used
+     */
+    public SearchHistory(int maxQueries, int pageSize, int maxSessions, Duration idleTimeout) {
+        this.maxQueries = maxQueries;
+        this.pageSize = pageSize;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    /**
+     * Records a query as the newest of a session.
+     *
+     * @param sessionId the session ID
+     * @param query     the search query
+     */
+    public void record(String sessionId, String query) {
+        sessions.get(sessionId, id -> new QueryDeque(maxQueries)).push(query);
+    }
+
+    /**
+     * Returns a page of a session's queries, newest first.
+     *
+     * @param sessionId the session ID
+     * @param offset    the number of newer queries to skip
+     * @return at most a page size of queries; empty for an unknown session
+     */
+    public Page page(String sessionId, int offset) {
+        QueryDeque queries = sessions.getIfPresent(sessionId);
+        return queries != null ? queries.page(Math.max(offset, 0), pageSize) : new Page(Collections.emptyList(), -1);
+    }
+
+    /**
+     * A slice of a session's queries.
+     */
+    public static class Page {
+        private final List<String> queries;
+        private final int nextOffset;
+
+        public Page(List<String> queries, int nextOffset) {
+            this.queries = queries;
+            this.nextOffset = nextOffset;
+        }
+
+        /**
+         * @return the queries of the page, newest first
+         */
+        public List<String> getQueries() {
+            return queries;
+        }
+
+        /**
+         * @return the offset of the next older page, or {@code -1} if this page holds the oldest query
+         */
+        public int getNextOffset() {
+            return nextOffset;
+        }
+    }
+
+    /**
+     * The bounded, newest-first deque of one session, guarded by its own monitor.
+     */
+    private static class QueryDeque {
+        private final int capacity;
+        private final ArrayDeque<String> queries;
+
+        QueryDeque(int capacity) {
+            this.capacity = capacity;
+            this.queries = new ArrayDeque<>(capacity);
+        }
+
+        synchronized void push(String query) {
+            if (!queries.remove(query) && queries.size() == capacity) {
+                queries.pollLast();
+            }
+            queries.addFirst(query);
+        }
+
+        synchronized Page page(int offset, int limit) {
+            List<String> page = new ArrayList<>(Math.min(limit, queries.size()));
+            Iterator<String> newestFirst = queries.iterator();
+            for (int skipped = 0; skipped < offset && newestFirst.hasNext(); skipped++) {
+                newestFirst.next();
+            }
+            while (page.size() < limit && newestFirst.hasNext()) {
+                page.add(newestFirst.next());
+            }
+            return new Page(page, newestFirst.hasNext() ? offset + page.size() : -1);
+        }
+    }
+}
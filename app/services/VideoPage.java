@@ -0,0 +1,57 @@
+package services;
+
+import models.Video;
+
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+/**
+ * One page of videos returned by the YouTube API, parsed lazily.
+ * <p>
+ * The response is fetched as a whole, but its items are only turned into {@link Video}s when they
+ * are read, so a consumer can process the first videos while later ones are still unparsed.
+ * </p>
+ * @author Hanieh
+ */
+public class VideoPage {
+    private final int size;
+    private final IntFunction<Video> parser;
+    private final String nextPageToken;
+
+    /**
+     * Creates a page.
+     *
+     * @param size          the number of items on the page
+     * @param parser        parses the item at an index; may return {@code null} for an item that is not a video
+     * @param nextPageToken the token of the next page, or {@code null} on the last page
+     */
+    public VideoPage(int size, IntFunction<Video> parser, String nextPageToken) {
+        this.size = size;
+        this.parser = parser;
+        this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * @return the number of items on the page
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Parses an item of the page.
+     *
+     * @param index the index of the item, from 0 to {@link #size()} exclusive
+     * @return the video, or {@code null} if the item could not be read as a video
+     */
+    public Video video(int index) {
+        return parser.apply(index);
+    }
+
+    /**
+     * @return the token of the next page, or empty on the last page
+     */
+    public Optional<String> getNextPageToken() {
+        return Optional.ofNullable(nextPageToken);
+    }
+}
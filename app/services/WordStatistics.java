@@ -0,0 +1,144 @@
+package services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.typesafe.config.Config;
+import models.Video;
+import utils.WordFrequency;
+import utils.WordFrequency.Words;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Word frequencies of the titles and descriptions of every video the application streams or searches,
+ * globally and per query, shared by all users.
+ * <p>
+ * Videos are counted as they arrive, by {@link WordFrequency} counts whose memory is fixed: one large
+ * count for all queries and a smaller one for each of the most recently used queries. A video is
+ * counted once per query and once globally however many sessions receive it, as long as it is among
+ * the recently counted videos; only the IDs of those are remembered, up to a bound.
+ * </p>
+ * <p>
+ * The words of a new video are extracted once, outside any lock, and then counted under the lock of
+ * the global count and under that of its query's count. Sessions streaming different queries therefore
+ * only meet on the global count, and only for the update of its sketch and heap; videos already counted
+ * take no lock at all.
+ * </p>
+ * @author Hanieh
+ */
+@Singleton
+public class WordStatistics {
+    /** Cells per row of the global count-min sketch. */
+    public static final int GLOBAL_WIDTH = 1 << 15;
+    /** Cells per row of the count-min sketch of each query. */
+    public static final int QUERY_WIDTH = 1 << 10;
+    /** Rows of every count-min sketch. */
+    public static final int DEPTH = 4;
+
+    private final int top;
+    private final WordFrequency global;
+    private final Cache<String, WordFrequency> queries;
+    private final Cache<String, Boolean> seen;
+
+    @Inject
+    public WordStatistics(Config config) {
+        this(config.getInt("words.max-queries"), config.getInt("words.top"), config.getInt("words.seen-videos"));
+    }
+
+    /**
+     * Creates empty statistics.
+     *
+     * @param maxQueries the number of queries with their own statistics
+     * @param top        the number of most frequent words kept per query and globally
+     * @param seenVideos the number of recently counted videos remembered
+     */
+    public WordStatistics(int maxQueries, int top, int seenVideos) {
+        this.top = top;
+        this.global = new WordFrequency(GLOBAL_WIDTH, DEPTH, top);
+        this.queries = Caffeine.newBuilder().maximumSize(maxQueries).build();
+        this.seen = Caffeine.newBuilder().maximumSize(seenVideos).build();
+    }
+
+    /**
+     * Counts the words of videos found for a query.
+     *
+     * @param query  the search query
+     * @param videos the videos
+     */
+    public void record(String query, List<Video> videos) {
+        for (Video video : videos) {
+            record(query, video.getVideoId(), video.getTitle(), video.getDescription());
+        }
+    }
+
+    /**
+     * Counts the words of videos found for a query, as sent to clients.
+     *
+     * @param query  the search query
+     * @param videos the videos as JSON
+     */
+    public void record(String query, JsonNode videos) {
+        for (JsonNode video : videos) {
+            record(query, video.path("videoId").asText(), video.path("title").asText(),
+                    video.path("description").asText());
+        }
+    }
+
+    private void record(String query, String videoId, String title, String description) {
+        boolean newGlobally = seen.asMap().putIfAbsent(videoId, Boolean.TRUE) == null;
+        boolean newForQuery = seen.asMap().putIfAbsent(query + '\n' + videoId, Boolean.TRUE) == null;
+        if (!newGlobally && !newForQuery) {
+            return;
+        }
+        Words words = Words.of(title, description);
+        if (newGlobally) {
+            synchronized (global) {
+                global.add(words);
+            }
+        }
+        if (newForQuery) {
+            WordFrequency frequency = queries.get(query, key -> new WordFrequency(QUERY_WIDTH, DEPTH, top));
+            synchronized (frequency) {
+                frequency.add(words);
+            }
+        }
+    }
+
+    /**
+     * @param limit the largest number of words listed
+     * @return the most frequent words of all videos, as {@link WordFrequency#toJson(int)}
+     */
+    public ObjectNode global(int limit) {
+        synchronized (global) {
+            return global.toJson(limit);
+        }
+    }
+
+    /**
+     * @param query the search query
+     * @param limit the largest number of words listed
+     * @return the most frequent words of the videos of the query, as {@link WordFrequency#toJson(int)},
+     * or empty if no video of the query was counted recently
+     */
+    public Optional<ObjectNode> forQuery(String query, int limit) {
+        WordFrequency words = queries.getIfPresent(query);
+        if (words == null) {
+            return Optional.empty();
+        }
+        synchronized (words) {
+            return Optional.of(words.toJson(limit));
+        }
+    }
+
+    /**
+     * @return the number of most frequent words kept per query and globally
+     */
+    public int getTop() {
+        return top;
+    }
+}
@@ -0,0 +1,28 @@
+package services;
+
+import akka.actor.ActorSystem;
+import play.libs.concurrent.CustomExecutionContext;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Execution context for blocking calls to the YouTube API made outside of actors.
+ * <p>
+ * It runs on the {@code youtube-blocking-dispatcher}, the fixed-size thread pool that also serves the
+ * channel lookup actors, so upstream HTTP calls never block Play's default dispatcher or the common
+ * ForkJoinPool. The pool size is set in {@code application.conf}.
+ * </p>
+ * @author Hanieh
+ */
+@Singleton
+public class YoutubeExecutionContext extends CustomExecutionContext {
+
+    /** Dispatcher reserved for work that blocks on YouTube HTTP calls. */
+    public static final String DISPATCHER = "youtube-blocking-dispatcher";
+
+    @Inject
+    public YoutubeExecutionContext(ActorSystem actorSystem) {
+        super(actorSystem, DISPATCHER);
+    }
+}
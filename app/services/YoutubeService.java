@@ -13,6 +13,10 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 import javax.inject.Inject;
 import play.api.Configuration;
 import org.json.JSONArray;
@@ -82,6 +86,80 @@ public class YoutubeService {
         return videos;
     }
 
+    /**
+     * Fetches one page of search results asynchronously.
+     * <p>
+     * The request runs on the given executor, which is expected to allow blocking calls (the
+     * {@link YoutubeExecutionContext}). The items of the page are parsed only when they are read.
+     * </p>
+     *
+     * @param keyword    the keyword to search for
+     * @param pageToken  the token of the page to fetch, or {@code null} for the first page
+     * @param maxResults the number of results per page, from 1 to 50
+     * @param executor   the executor the request blocks on
+     * @return a CompletionStage holding the page, failing with the {@link IOException} of the request
+     */
+    public CompletionStage<VideoPage> searchPageAsync(String keyword, String pageToken, int maxResults, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            JSONObject response = fetchJson(() -> buildUrl(keyword, pageToken, maxResults));
+            JSONArray items = response.getJSONArray("items");
+            return new VideoPage(items.length(), i -> parseVideo(items.getJSONObject(i)), response.optString("nextPageToken", null));
+        }, executor);
+    }
+
+    /**
+     * Fetches the most recent videos of a channel asynchronously.
+     *
+     * @param channelId  the ID of the channel
+     * @param maxResults the number of videos to fetch, from 1 to 50
+     * @param executor   the executor the request blocks on
+     * @return a CompletionStage holding the page, failing with the {@link IOException} of the request
+     */
+    public CompletionStage<VideoPage> channelVideosPageAsync(String channelId, int maxResults, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            JSONObject response = fetchJson(() -> String.format("%s?part=snippet&channelId=%s&maxResults=%d&key=%s",
+                    this.searchURL, channelId, maxResults, this.apiKey));
+            JSONArray items = response.getJSONArray("items");
+            return new VideoPage(items.length(), i -> parseChannelVideo(items.getJSONObject(i), channelId),
+                    response.optString("nextPageToken", null));
+        }, executor);
+    }
+
+    /**
+     * Retrieves the profile of a channel asynchronously.
+     *
+     * @param channelId the ID of the channel
+     * @param executor  the executor the request blocks on
+     * @return a CompletionStage holding the channel, or {@code null} if it was not found
+     */
+    public CompletionStage<Channel> getChannelProfileAsync(String channelId, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getChannelProfile(channelId), executor);
+    }
+
+    /**
+     * Fetches and parses a JSON response, wrapping I/O failures for use in a CompletionStage.
+     *
+     * @param url supplies the URL to fetch
+     * @return the parsed response
+     * @throws CompletionException wrapping the failure of the request
+     */
+    private JSONObject fetchJson(UrlSupplier url) {
+        try {
+            return new JSONObject(fetchResponse(createConnection(url.get())));
+        } catch (IOException e) {
+            System.err.println("[YoutubeService] Error fetching videos: " + e.getMessage());
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Supplies a URL whose construction may fail with an {@link IOException}.
+     */
+    @FunctionalInterface
+    private interface UrlSupplier {
+        String get() throws IOException;
+    }
+
     /**
      * Builds a URL for searching videos on YouTube based on the given keyword.
      * <p>
@@ -98,6 +176,21 @@ public class YoutubeService {
                 this.searchURL, encodedKeyword, videoCount, this.apiKey);
     }
 
+    /**
+     * Builds a URL for one page of search results.
+     *
+     * @param keyword    the keyword to search for
+     * @param pageToken  the token of the page, or {@code null} for the first page
+     * @param maxResults the number of results per page
+     * @return the URL of the page
+     * @throws UnsupportedEncodingException if the keyword cannot be encoded using UTF-8
+     */
+    protected String buildUrl(String keyword, String pageToken, int maxResults) throws UnsupportedEncodingException {
+        String url = String.format("%s?part=snippet&q=%s&type=video&maxResults=%d&key=%s",
+                this.searchURL, URLEncoder.encode(keyword, StandardCharsets.UTF_8.toString()), maxResults, this.apiKey);
+        return pageToken != null ? url + "&pageToken=" + URLEncoder.encode(pageToken, StandardCharsets.UTF_8.toString()) : url;
+    }
+
     /**
      * Creates an HTTP connection to the specified URL.
      * <p>
@@ -262,23 +355,10 @@ public class YoutubeService {
             JSONArray items = responseJson.getJSONArray("items");
 
             for (int i = 0; i < items.length(); i++) {
-                JSONObject video = items.getJSONObject(i);
-                JSONObject snippet = video.getJSONObject("snippet");
-
-                String videoId = video.optJSONObject("id") != null ? video.getJSONObject("id").optString("videoId", null) : null;
-                if (videoId == null) {
-                    System.out.println("[YoutubeService] Skipping item with missing videoId: " + video.toString());
-                    continue;
+                Video video = parseChannelVideo(items.getJSONObject(i), channelId);
+                if (video != null) {
+                    videos.add(video);
                 }
-
-                String title = snippet.optString("title", "Untitled");
-                String thumbnailUrl = snippet.optJSONObject("thumbnails") != null
-                        ? snippet.getJSONObject("thumbnails").getJSONObject("high").optString("url", null)
-                        : null;
-                String description = snippet.optString("description", null);
-
-                videos.add(new Video(thumbnailUrl, title, snippet.optString("channelTitle", "Unknown"),
-                        description, videoId, channelId, null));
             }
         } catch (Exception e) {
             System.err.println("[YoutubeService] Error fetching videos: " + e.getMessage());
@@ -286,4 +366,30 @@ public class YoutubeService {
         }
         return videos;
     }
+
+    /**
+     * Parses an item of a channel's video list.
+     *
+     * @param video     the item from the YouTube API response
+     * @param channelId the ID of the channel the videos were requested for
+     * @return the video, or {@code null} if the item has no video ID (for example a playlist)
+     */
+    protected Video parseChannelVideo(JSONObject video, String channelId) {
+        JSONObject snippet = video.getJSONObject("snippet");
+
+        String videoId = video.optJSONObject("id") != null ? video.getJSONObject("id").optString("videoId", null) : null;
+        if (videoId == null) {
+            System.out.println("[YoutubeService] Skipping item with missing videoId: " + video.toString());
+            return null;
+        }
+
+        String title = snippet.optString("title", "Untitled");
+        String thumbnailUrl = snippet.optJSONObject("thumbnails") != null
+                ? snippet.getJSONObject("thumbnails").getJSONObject("high").optString("url", null)
+                : null;
+        String description = snippet.optString("description", null);
+
+        return new Video(thumbnailUrl, title, snippet.optString("channelTitle", "Unknown"),
+                description, videoId, channelId, null);
+    }
 }
@@ -0,0 +1,106 @@
+package utils;
+
+/**
+ * A 64-bit FNV-1a hash of text, used to derive versions and cache keys from content.
+ * <p>
+ * The hash is stable across JVMs and runs, so versions derived from it can be handed to clients
+ * (for example as HTTP entity tags). It is not cryptographic.
+ * </p>
+ * @author Hanieh
+ */
+public final class ContentHash {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+    private ContentHash() {
+    }
+
+    /**
+     * Hashes a character sequence.
+     *
+     * @param text the text; {@code null} hashes like an empty string
+     * @return the 64-bit hash
+     */
+    public static long of(CharSequence text) {
+        return append(OFFSET_BASIS, text);
+    }
+
+    /**
+     * Continues a hash with more text, so several parts can be hashed without concatenating them.
+     *
+     * @param hash the hash so far, from {@link #of(CharSequence)} or a previous call
+     * @param text the text to add; {@code null} adds nothing
+     * @return the combined hash
+     */
+    public static long append(long hash, CharSequence text) {
+        if (text == null) {
+            return hash;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xff)) * PRIME;
+            hash = (hash ^ (c >>> 8)) * PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Continues a hash with a number.
+     *
+     * @param hash  the hash so far
+     * @param value the number to add
+     * @return the combined hash
+     */
+    public static long append(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes a character sequence for use as an in-memory key, several times faster than
+     * {@link #of(CharSequence)} on long texts.
+     * <p>
+     * Whole characters are mixed into four independent lanes so the multiplications overlap, and the
+     * lanes and the length are then folded and scrambled into one value. The result differs from
+     * {@link #of(CharSequence)} and is meant for keys that never leave the process.
+     * </p>
+     *
+     * @param text the text; {@code null} hashes like an empty string
+     * @return the 64-bit hash
+     */
+    public static long keyOf(CharSequence text) {
+        return text == null ? keyOf("", 0, 0) : keyOf(text, 0, text.length());
+    }
+
+    /**
+     * Hashes part of a character sequence like {@link #keyOf(CharSequence)} hashes that part on its own.
+     *
+     * @param text  the text
+     * @param start the index of the first character hashed
+     * @param end   the index after the last character hashed
+     * @return the 64-bit hash
+     */
+    public static long keyOf(CharSequence text, int start, int end) {
+        int length = end - start;
+        long a = OFFSET_BASIS;
+        long b = OFFSET_BASIS;
+        long c = OFFSET_BASIS;
+        long d = OFFSET_BASIS;
+        int i = start;
+        for (; i + 4 <= end; i += 4) {
+            a = (a + text.charAt(i)) * GOLDEN;
+            b = (b + text.charAt(i + 1)) * GOLDEN;
+            c = (c + text.charAt(i + 2)) * GOLDEN;
+            d = (d + text.charAt(i + 3)) * GOLDEN;
+        }
+        for (; i < end; i++) {
+            a = (a + text.charAt(i)) * GOLDEN;
+        }
+        long hash = a ^ Long.rotateLeft(b, 16) ^ Long.rotateLeft(c, 32) ^ Long.rotateLeft(d, 48) ^ length;
+        hash = (hash ^ (hash >>> 29)) * GOLDEN;
+        return hash ^ (hash >>> 32);
+    }
+}
@@ -0,0 +1,118 @@
+package utils;
+
+/**
+ * A count-min sketch: approximate counts of any number of distinct keys in a fixed table.
+ * <p>
+ * Each key is counted in one cell of each of {@code depth} rows of {@code width} cells, chosen from its
+ * 64-bit hash, and its estimate is the smallest of those cells. Estimates never undercount; they
+ * overcount by at most {@code e / width} of the total with probability {@code 1 - e^-depth}. Updates
+ * are conservative, raising only the cells below the new estimate, which keeps the overcount of
+ * infrequent keys much lower in practice. A sketch is not thread-safe.
+ * </p>
+ * @author Hanieh
+ */
+public final class CountMinSketch {
+    private final int width;
+    private final int depth;
+    private final int mask;
+    private final int[] cells;
+    private long total;
+
+    /**
+     * Creates an empty sketch of {@code width * depth} counters.
+     *
+     * @param width the cells per row, a power of two
+     * @param depth the number of rows, from 1 to 8
+     * @throws IllegalArgumentException if a dimension is out of range
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a power of two: " + width);
+        }
+        if (depth < 1 || depth > 8) {
+            throw new IllegalArgumentException("depth must be between 1 and 8: " + depth);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.mask = width - 1;
+        this.cells = new int[width * depth];
+    }
+
+    /**
+     * Counts one occurrence of a key.
+     *
+     * @param hash the 64-bit hash of the key, e.g. {@link ContentHash#keyOf(CharSequence)}
+     * @return the new estimate of the key
+     */
+    public int add(long hash) {
+        int estimate = estimate(hash) + 1;
+        long mixed = mix(hash);
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32) | 1;
+        for (int row = 0; row < depth; row++) {
+            int cell = row * width + ((h1 + row * h2) & mask);
+            if (cells[cell] < estimate) {
+                cells[cell] = estimate;
+            }
+        }
+        total++;
+        return estimate;
+    }
+
+    /**
+     * @param hash the 64-bit hash of the key
+     * @return the estimated number of occurrences of the key, never lower than the true count
+     */
+    public int estimate(long hash) {
+        long mixed = mix(hash);
+        int h1 = (int) mixed;
+        int h2 = (int) (mixed >>> 32) | 1;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells[row * width + ((h1 + row * h2) & mask)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds the counts of another sketch to this one. Estimates of the merged sketch still never
+     * undercount, but the conservative-update advantage of each side is kept only approximately.
+     *
+     * @param other a sketch of the same dimensions; it is not modified
+     * @throws IllegalArgumentException if the dimensions differ
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge a " + other.width + "x" + other.depth
+                    + " sketch into a " + width + "x" + depth + " sketch");
+        }
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] += other.cells[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * @return the number of occurrences counted
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return the size of the counter table in bytes, which does not grow with the stream
+     */
+    public long getBytes() {
+        return 4L * cells.length;
+    }
+
+    /**
+     * Spreads every bit of a hash over the others, so that the cells chosen by the low bits of the
+     * two halves are independent even for hashes of similar keys.
+     */
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,82 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import play.libs.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * The wire encodings a WebSocket client can choose for its frames.
+ * <p>
+ * All encodings carry the same JSON message model; {@link #JSON} is sent as text frames, while
+ * {@link #CBOR} and {@link #SMILE} are compact binary encodings of the same tree, sent as binary frames.
+ * </p>
+ * @author Hanieh
+ */
+public enum FrameEncoding {
+    JSON(null),
+    CBOR(new ObjectMapper(new CBORFactory())),
+    SMILE(new ObjectMapper(new SmileFactory()));
+
+    private final ObjectMapper binaryMapper;
+
+    FrameEncoding(ObjectMapper binaryMapper) {
+        this.binaryMapper = binaryMapper;
+    }
+
+    /**
+     * Looks up an encoding by name, ignoring case.
+     *
+     * @param name the encoding name, e.g. {@code "cbor"}; {@code null} or empty selects {@link #JSON}
+     * @return the encoding
+     * @throws IllegalArgumentException if the name is not a known encoding
+     */
+    public static FrameEncoding fromName(String name) {
+        if (name == null || name.isEmpty()) {
+            return JSON;
+        }
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Tells whether frames of this encoding are sent as binary WebSocket frames.
+     *
+     * @return {@code true} for binary encodings
+     */
+    public boolean isBinary() {
+        return binaryMapper != null;
+    }
+
+    /**
+     * Encodes a frame.
+     *
+     * @param frame the frame
+     * @return the encoded bytes (UTF-8 text for {@link #JSON})
+     */
+    public byte[] encode(JsonNode frame) {
+        try {
+            return isBinary() ? binaryMapper.writeValueAsBytes(frame) : Json.mapper().writeValueAsBytes(frame);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes a frame produced by {@link #encode(JsonNode)}.
+     *
+     * @param bytes the encoded bytes
+     * @return the frame
+     */
+    public JsonNode decode(byte[] bytes) {
+        try {
+            return isBinary() ? binaryMapper.readTree(bytes) : Json.mapper().readTree(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A compact, mergeable sketch of a distribution answering quantile queries with a bounded relative error.
+ * <p>
+ * Values are counted in logarithmic bins, as in DDSketch: a value {@code x} falls into bin
+ * {@code ceil(log(|x|) / log(gamma))} with {@code gamma = (1 + a) / (1 - a)}, so any quantile is
+ * returned within a relative error {@code a} of a value of the stream at that rank. Negative values
+ * have bins of their own, and values too close to zero to be binned are counted as zero. Two sketches
+ * with the same accuracy merge exactly by adding their bins, in any order, and a value that was added
+ * can be removed again by decrementing its bin.
+ * </p>
+ * <p>
+ * The size depends on the spread of the values, not on their number: readability scores need a few
+ * hundred bins at the default 2% accuracy. A sketch is not thread-safe.
+ * </p>
+ * @author Hanieh
+ */
+public final class QuantileSketch {
+    /** The default relative accuracy of quantiles. */
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.02;
+    /** Values closer to zero than this are counted as zero. */
+    private static final double MIN_INDEXABLE = 1e-9;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final Bins positive = new Bins();
+    private final Bins negative = new Bins();
+    private long zeroCount;
+
+    /**
+     * Creates an empty sketch with the {@linkplain #DEFAULT_RELATIVE_ACCURACY default accuracy}.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param relativeAccuracy the relative error of quantiles, between 0 and 1 exclusive
+     * @throws IllegalArgumentException if the accuracy is out of range
+     */
+    public QuantileSketch(double relativeAccuracy) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("relativeAccuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if the value is not finite
+     */
+    public void add(double value) {
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException("value must be finite: " + value);
+        }
+        if (value > MIN_INDEXABLE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_INDEXABLE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+    }
+
+    /**
+     * Removes a value that was added before.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if no value of its bin is counted
+     */
+    public void remove(double value) {
+        boolean removed;
+        if (value > MIN_INDEXABLE) {
+            removed = positive.remove(index(value));
+        } else if (value < -MIN_INDEXABLE) {
+            removed = negative.remove(index(-value));
+        } else {
+            removed = zeroCount > 0;
+            if (removed) {
+                zeroCount--;
+            }
+        }
+        if (!removed) {
+            throw new IllegalArgumentException("value was not added: " + value);
+        }
+    }
+
+    /**
+     * Adds every value counted by another sketch to this one.
+     *
+     * @param other a sketch with the same accuracy; it is not modified
+     * @throws IllegalArgumentException if the accuracies differ
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches of accuracy " + relativeAccuracy
+                    + " and " + other.relativeAccuracy);
+        }
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+    }
+
+    /**
+     * @return the number of values added
+     */
+    public long getCount() {
+        return positive.total + negative.total + zeroCount;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * @return the number of bins allocated, which bounds the memory taken by the sketch
+     */
+    public int getBinCount() {
+        return positive.counts.length + negative.counts.length;
+    }
+
+    /**
+     * Returns the value at a quantile: the value of rank {@code q * (count - 1)} in sorted order,
+     * within the relative accuracy.
+     *
+     * @param q the quantile, from 0 for the minimum to 1 for the maximum
+     * @return the estimated value, or {@code NaN} if the sketch is empty
+     * @throws IllegalArgumentException if {@code q} is not between 0 and 1
+     */
+    public double quantile(double q) {
+        if (!(q >= 0 && q <= 1)) {
+            throw new IllegalArgumentException("q must be between 0 and 1: " + q);
+        }
+        long count = getCount();
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+
+        // Most negative values first: negative bins from the largest magnitude down
+        long seen = 0;
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            seen += negative.counts[i];
+            if (seen > rank) {
+                return -value(negative.offset + i);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0.0;
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            seen += positive.counts[i];
+            if (seen > rank) {
+                return value(positive.offset + i);
+            }
+        }
+        // Unreachable while the counts are consistent
+        return value(positive.offset + positive.counts.length - 1);
+    }
+
+    private int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    /**
+     * The value representing a bin: the point of equal relative distance to both of its bounds.
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /**
+     * Counts per bin index in a dense array covering the indices seen so far.
+     */
+    private static final class Bins {
+        private long[] counts = new long[0];
+        private int offset;
+        private long total;
+
+        void add(int index, long count) {
+            if (counts.length == 0) {
+                counts = new long[1];
+                offset = index;
+            } else if (index < offset) {
+                long[] grown = new long[counts.length + offset - index];
+                System.arraycopy(counts, 0, grown, offset - index, counts.length);
+                counts = grown;
+                offset = index;
+            } else if (index >= offset + counts.length) {
+                counts = Arrays.copyOf(counts, index - offset + 1);
+            }
+            counts[index - offset] += count;
+            total += count;
+        }
+
+        boolean remove(int index) {
+            int i = index - offset;
+            if (i < 0 || i >= counts.length || counts[i] == 0) {
+                return false;
+            }
+            counts[i]--;
+            total--;
+            return true;
+        }
+
+        void merge(Bins other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+    }
+}
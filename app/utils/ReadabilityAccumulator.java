@@ -0,0 +1,119 @@
+package utils;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import models.Video;
+import play.libs.Json;
+
+import java.util.List;
+
+/**
+ * Running readability statistics of a stream of scored videos, one {@link ScoreAccumulator} per
+ * Flesch score.
+ * <p>
+ * Unlike {@link ReadabilityCalculator#calculateAverageReadabilityStats(List)}, which walks a whole
+ * list, an accumulator is updated as each video enters or leaves a window and accumulators of different
+ * streams merge, so query-level statistics cost O(1) per changed video. An accumulator is not thread-safe.
+ * </p>
+ * @author Hanieh
+ */
+public final class ReadabilityAccumulator {
+    private final ScoreAccumulator gradeLevel = new ScoreAccumulator();
+    private final ScoreAccumulator readingEase = new ScoreAccumulator();
+
+    /**
+     * Creates an accumulator holding a list of scored videos.
+     *
+     * @param videos the scored videos
+     * @return the accumulator
+     */
+    public static ReadabilityAccumulator of(List<Video> videos) {
+        ReadabilityAccumulator accumulator = new ReadabilityAccumulator();
+        videos.forEach(accumulator::add);
+        return accumulator;
+    }
+
+    /**
+     * Adds the scores of a scored video.
+     *
+     * @param video the video
+     * @return this accumulator
+     */
+    public ReadabilityAccumulator add(Video video) {
+        return add(video.getFleschKincaidGradeLevel(), video.getFleschReadingEaseScore());
+    }
+
+    /**
+     * Adds the scores of one video.
+     *
+     * @param gradeLevelScore  its Flesch-Kincaid Grade Level
+     * @param readingEaseScore its Flesch Reading Ease Score
+     * @return this accumulator
+     */
+    public ReadabilityAccumulator add(double gradeLevelScore, double readingEaseScore) {
+        gradeLevel.add(gradeLevelScore);
+        readingEase.add(readingEaseScore);
+        return this;
+    }
+
+    /**
+     * Removes the scores of one video that were added before, e.g. when it leaves a window or its
+     * scores change.
+     *
+     * @param gradeLevelScore  its Flesch-Kincaid Grade Level
+     * @param readingEaseScore its Flesch Reading Ease Score
+     * @return this accumulator
+     * @throws IllegalArgumentException if the scores were not added
+     */
+    public ReadabilityAccumulator remove(double gradeLevelScore, double readingEaseScore) {
+        gradeLevel.remove(gradeLevelScore);
+        readingEase.remove(readingEaseScore);
+        return this;
+    }
+
+    /**
+     * Adds every video counted by another accumulator to this one.
+     *
+     * @param other the other accumulator; it is not modified
+     * @return this accumulator
+     */
+    public ReadabilityAccumulator merge(ReadabilityAccumulator other) {
+        gradeLevel.merge(other.gradeLevel);
+        readingEase.merge(other.readingEase);
+        return this;
+    }
+
+    /**
+     * @return the number of videos counted
+     */
+    public long getCount() {
+        return gradeLevel.getCount();
+    }
+
+    public ScoreAccumulator getGradeLevel() {
+        return gradeLevel;
+    }
+
+    public ScoreAccumulator getReadingEase() {
+        return readingEase;
+    }
+
+    /**
+     * @return both means rounded to two decimals, as shown on the search page
+     */
+    public ReadabilityStats toStats() {
+        return new ReadabilityStats(Math.round(gradeLevel.getMean() * 100.0) / 100.0,
+                Math.round(readingEase.getMean() * 100.0) / 100.0);
+    }
+
+    /**
+     * @return {@code {"count":n,"gradeLevel":{...},"readingEase":{...}}} with the statistics of
+     * {@link ScoreAccumulator#toJson()}
+     */
+    public ObjectNode toJson() {
+        ObjectNode json = Json.newObject();
+        json.put("count", getCount());
+        json.set("gradeLevel", gradeLevel.toJson());
+        json.set("readingEase", readingEase.toJson());
+        return json;
+    }
+}
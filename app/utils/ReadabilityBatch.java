@@ -0,0 +1,66 @@
+package utils;
+
+import models.Video;
+
+import java.util.List;
+
+/**
+ * The result of scoring a list of videos in one batch, see {@link ReadabilityCalculator#scoreBatch(List)}.
+ * <p>
+ * The videos themselves are updated with their scores, as by
+ * {@link ReadabilityCalculator#calculateReadabilityScores(List)}; the batch additionally holds the
+ * per-video scores by index and the averages over the whole list.
+ * </p>
+ * @author Hanieh
+ */
+public class ReadabilityBatch {
+    private final List<Video> videos;
+    private final double[] gradeLevels;
+    private final double[] readingEaseScores;
+    private final ReadabilityStats stats;
+
+    ReadabilityBatch(List<Video> videos, double[] gradeLevels, double[] readingEaseScores, ReadabilityStats stats) {
+        this.videos = videos;
+        this.gradeLevels = gradeLevels;
+        this.readingEaseScores = readingEaseScores;
+        this.stats = stats;
+    }
+
+    /**
+     * @return the scored videos, in the order they were given
+     */
+    public List<Video> getVideos() {
+        return videos;
+    }
+
+    /**
+     * @return the number of videos in the batch
+     */
+    public int size() {
+        return gradeLevels.length;
+    }
+
+    /**
+     * @param index the index of a video in the batch
+     * @return its Flesch-Kincaid Grade Level, rounded to two decimals
+     */
+    public double getGradeLevel(int index) {
+        return gradeLevels[index];
+    }
+
+    /**
+     * @param index the index of a video in the batch
+     * @return its Flesch Reading Ease Score, rounded to two decimals
+     */
+    public double getReadingEaseScore(int index) {
+        return readingEaseScores[index];
+    }
+
+    /**
+     * @return the average scores of the batch, equal to
+     * {@link ReadabilityCalculator#calculateAverageReadabilityStats(List)} of the scored videos
+     */
+    public ReadabilityStats getStats() {
+        return stats;
+    }
+}
@@ -3,8 +3,13 @@ package utils;
 import models.Video;
 import utils.ReadabilityStats;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.lang.Math;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.DoubleStream;
 
 /**
  * Utility class to calculate readability scores for text.
@@ -14,9 +19,17 @@ import java.lang.Math;
  * <p>This class is useful for evaluating the readability of text content, which is
  * often beneficial for assessing video descriptions or other textual metadata.</p>
  *
+ * <p>Sentences, words and syllables are counted in one pass by {@link ReadabilityTokenizer}. The scores
+ * of videos are memoized by description in the shared {@link ReadabilityMemo}.</p>
+ *
  * @author Hanieh
  */
 public class ReadabilityCalculator {
+    /**
+     * The number of videos up to which {@link #scoreBatch(List)} scores on the calling thread.
+     * A description takes about a microsecond to score, so smaller batches are not worth forking.
+     */
+    public static final int PARALLEL_THRESHOLD = 1024;
 
     /**
      * Calculates the Flesch-Kincaid Grade Level for a given text.
@@ -26,13 +39,7 @@ public class ReadabilityCalculator {
      * @return the Flesch-Kincaid Grade Level as a double
      */
     public static double calculateFleschKincaidGradeLevel(String text) {
-        int sentenceCount = countSentences(text);
-        int wordCount = countWords(text);
-        int syllableCount = countSyllables(text);
-
-        if (sentenceCount == 0 || wordCount == 0) return 0.0;
-
-        return 0.39 * ((double) wordCount / sentenceCount) + 11.8 * ((double) syllableCount / wordCount) - 15.59;
+        return new ReadabilityTokenizer().scan(text).gradeLevel();
     }
 
     /**
@@ -43,91 +50,83 @@ public class ReadabilityCalculator {
      * @return the Flesch Reading Ease Score as a double
      */
     public static double calculateFleschReadingEaseScore(String text) {
-        int sentenceCount = countSentences(text);
-        int wordCount = countWords(text);
-        int syllableCount = countSyllables(text);
-
-        if (sentenceCount == 0 || wordCount == 0) return 0.0;
-
-        return 206.835 - (1.015 * ((double) wordCount / sentenceCount)) - (84.6 * ((double) syllableCount / wordCount));
+        return new ReadabilityTokenizer().scan(text).readingEase();
     }
 
     /**
-     * Counts the number of sentences in the text.
-     * Assumes sentences end with periods, exclamation points, or question marks.
+     * Calculates the Flesch-Kincaid Grade Level and Flesch Reading Ease Score
+     * for each video in the list, and updates the video object with these scores.
      *
-     * @param text the text to be analyzed
-     * @return the number of sentences as an integer
+     * @param videos list of Video objects to process
      */
-    private static int countSentences(String text) {
-        return text.split("[.!?]").length;
+    public static List<Video> calculateReadabilityScores(List<Video> videos) {
+        ReadabilityTokenizer tokenizer = new ReadabilityTokenizer();
+        videos.forEach(video -> score(video, tokenizer));
+        return videos;
     }
 
     /**
-     * Counts the number of words in the text.
-     * Assumes words are separated by whitespace.
+     * Calculates the readability scores of a single video and updates the video with them.
      *
-     * @param text the text to be analyzed
-     * @return the number of words as an integer
+     * @param video the video to score
+     * @return the same video
      */
-    private static int countWords(String text) {
-        return text.split("\\s+").length;
+    public static Video calculateReadabilityScores(Video video) {
+        return score(video, new ReadabilityTokenizer());
     }
 
     /**
-     * Counts the approximate number of syllables in the text.
-     * Splits the text into words and counts syllables for each word.
+     * Scores every video of a list and computes their average scores in the same pass.
+     * Lists of more than {@value #PARALLEL_THRESHOLD} videos are split across the common fork-join pool.
      *
-     * @param text the text to be analyzed
-     * @return the total syllable count as an integer
+     * @param videos list of Video objects to process; each is updated with its scores
+     * @return the per-video scores and their averages
      */
-    private static int countSyllables(String text) {
-        String[] words = text.split("\\s+");
-        int syllableCount = 0;
-        for (String word : words) {
-            syllableCount += countSyllablesInWord(word);
-        }
-        return syllableCount;
+    public static ReadabilityBatch scoreBatch(List<Video> videos) {
+        return scoreBatch(videos, ForkJoinPool.commonPool(), PARALLEL_THRESHOLD);
     }
 
     /**
-     * Counts the approximate number of syllables in a single word.
-     * Uses vowel clusters as a heuristic to estimate syllables.
+     * Scores every video of a list and computes their average scores in the same pass.
+     * <p>
+     * Lists no longer than the threshold are scored on the calling thread. Longer lists are split in
+     * halves until no range is longer than the threshold, and the ranges are scored in the pool.
+     * The averages are taken from the scores in list order once every range is scored, so they do not
+     * depend on how the list was split and equal {@link #calculateAverageReadabilityStats(List)}.
+     * </p>
      *
-     * @param word the word to be analyzed
-     * @return the syllable count of the word, with a minimum count of 1
+     * @param videos    list of Video objects to process; each is updated with its scores
+     * @param pool      the pool large lists are scored in
+     * @param threshold the largest range scored by a single task, at least 1
+     * @return the per-video scores and their averages
+     * @throws IllegalArgumentException if the threshold is less than 1
      */
-    private static int countSyllablesInWord(String word) {
-        word = word.toLowerCase();
-        int count = 0;
-        boolean lastWasVowel = false;
-        for (int i = 0; i < word.length(); i++) {
-            char c = word.charAt(i);
-            if ("aeiouy".indexOf(c) >= 0) {
-                if (!lastWasVowel) count++;
-                lastWasVowel = true;
-            } else {
-                lastWasVowel = false;
-            }
+    public static ReadabilityBatch scoreBatch(List<Video> videos, ForkJoinPool pool, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be at least 1: " + threshold);
         }
-        if (word.endsWith("e")) count--;
-        return Math.max(count, 1);
+        List<Video> indexed = videos instanceof RandomAccess ? videos : new ArrayList<>(videos);
+        ScoreRange task = new ScoreRange(indexed, new double[indexed.size()], new double[indexed.size()],
+                0, indexed.size(), threshold);
+        if (indexed.size() <= threshold) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        ReadabilityStats stats = new ReadabilityStats(roundedAverage(DoubleStream.of(task.gradeLevels)),
+                roundedAverage(DoubleStream.of(task.readingEaseScores)));
+        return new ReadabilityBatch(videos, task.gradeLevels, task.readingEaseScores, stats);
     }
 
     /**
-     * Calculates the Flesch-Kincaid Grade Level and Flesch Reading Ease Score
-     * for each video in the list, and updates the video object with these scores.
-     *
-     * @param videos list of Video objects to process
+     * Scores a video from the shared {@link ReadabilityMemo}, which scans a description it has not
+     * seen once for both scores.
      */
-    public static List<Video> calculateReadabilityScores(List<Video> videos) {
-        videos.forEach(video -> {
-            double gradeLevel = calculateFleschKincaidGradeLevel(video.getDescription());
-            double readingEase = calculateFleschReadingEaseScore(video.getDescription());
-            video.setFleschKincaidGradeLevel(Math.round(gradeLevel * 100.0) / 100.0);
-            video.setFleschReadingEaseScore(Math.round(readingEase * 100.0) / 100.0);
-        });
-        return videos;
+    private static Video score(Video video, ReadabilityTokenizer tokenizer) {
+        long scores = ReadabilityMemo.shared().scores(video.getDescription(), tokenizer);
+        video.setFleschKincaidGradeLevel(ReadabilityMemo.gradeLevel(scores));
+        video.setFleschReadingEaseScore(ReadabilityMemo.readingEase(scores));
+        return video;
     }
 
     /**
@@ -138,16 +137,54 @@ public class ReadabilityCalculator {
      * @return a ReadabilityStats object containing the average grade level and reading ease score
      */
     public static ReadabilityStats calculateAverageReadabilityStats(List<Video> videos) {
-        double avgGradeLevel = videos.stream()
-                .mapToDouble(Video::getFleschKincaidGradeLevel)
-                .average()
-                .orElse(0.0);
+        return new ReadabilityStats(roundedAverage(videos.stream().mapToDouble(Video::getFleschKincaidGradeLevel)),
+                roundedAverage(videos.stream().mapToDouble(Video::getFleschReadingEaseScore)));
+    }
 
-        double avgReadingEaseScore = videos.stream()
-                .mapToDouble(Video::getFleschReadingEaseScore)
-                .average()
-                .orElse(0.0);
+    /**
+     * Averages raw scores and rounds the average once to two decimals; no scores average 0.
+     */
+    private static double roundedAverage(DoubleStream scores) {
+        return Math.round(scores.average().orElse(0.0) * 100.0) / 100.0;
+    }
+
+    /**
+     * Scores a range of a list, writing the scores by index.
+     */
+    private static final class ScoreRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Video> videos;
+        private final double[] gradeLevels;
+        private final double[] readingEaseScores;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        ScoreRange(List<Video> videos, double[] gradeLevels, double[] readingEaseScores, int from, int to, int threshold) {
+            this.videos = videos;
+            this.gradeLevels = gradeLevels;
+            this.readingEaseScores = readingEaseScores;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
 
-        return new ReadabilityStats(Math.round(avgGradeLevel * 100.0) / 100.0, Math.round(avgReadingEaseScore * 100.0) / 100.0);
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                ReadabilityTokenizer tokenizer = new ReadabilityTokenizer();
+                for (int i = from; i < to; i++) {
+                    Video video = score(videos.get(i), tokenizer);
+                    gradeLevels[i] = video.getFleschKincaidGradeLevel();
+                    readingEaseScores[i] = video.getFleschReadingEaseScore();
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            ScoreRange left = new ScoreRange(videos, gradeLevels, readingEaseScores, from, middle, threshold);
+            ScoreRange right = new ScoreRange(videos, gradeLevels, readingEaseScores, middle, to, threshold);
+            invokeAll(left, right);
+        }
     }
 }
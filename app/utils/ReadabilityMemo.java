@@ -0,0 +1,182 @@
+package utils;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import play.libs.Json;
+
+/**
+ * A bounded memo of readability scores keyed by a 64-bit hash of the description, shared by every
+ * caller of {@link ReadabilityCalculator}.
+ * <p>
+ * Popular videos come back on every poll of every session that follows them, each time as a freshly
+ * parsed description. Hashing a description with {@link ContentHash#keyOf(CharSequence)} costs about a
+ * tenth of scanning it, so repeated descriptions are scored once. Only the hash is kept, not the text:
+ * an entry holds both rounded scores packed into one {@code long}, in hundredths.
+ * The memo keeps the most useful {@value #MAX_ENTRIES} descriptions, about
+ * {@value #BYTES_PER_ENTRY} bytes each.
+ * </p>
+ * <p>
+ * Two different descriptions hashing alike would share scores; with 64-bit keys this is negligible
+ * for the number of entries kept, but the hash is not meant to withstand crafted collisions.
+ * </p>
+ * @author Hanieh
+ */
+public final class ReadabilityMemo {
+    /** The number of descriptions the shared memo keeps. */
+    public static final int MAX_ENTRIES = 65_536;
+    /**
+     * The estimated heap taken by one entry: the cache node and its map slot, with the boxed key and value.
+     */
+    public static final int BYTES_PER_ENTRY = 128;
+
+    private static final ReadabilityMemo SHARED = new ReadabilityMemo(MAX_ENTRIES);
+
+    private final Cache<Long, Long> scores;
+
+    /**
+     * Creates a memo of its own, for tests and benchmarks; the application uses {@link #shared()}.
+     *
+     * @param maxEntries the number of descriptions kept
+     */
+    public ReadabilityMemo(int maxEntries) {
+        this.scores = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the memo used by {@link ReadabilityCalculator}
+     */
+    public static ReadabilityMemo shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the rounded scores of a text, scanning it only if it is not memoized.
+     *
+     * @param text      the text to score
+     * @param tokenizer the tokenizer to scan with on a miss, owned by the calling thread
+     * @return both scores packed, to be read with {@link #gradeLevel(long)} and {@link #readingEase(long)}
+     */
+    public long scores(CharSequence text, ReadabilityTokenizer tokenizer) {
+        Long key = ContentHash.keyOf(text);
+        Long packed = scores.getIfPresent(key);
+        if (packed == null) {
+            tokenizer.scan(text);
+            packed = pack(tokenizer.gradeLevel(), tokenizer.readingEase());
+            scores.put(key, packed);
+        }
+        return packed;
+    }
+
+    /**
+     * @param packed scores returned by {@link #scores(CharSequence, ReadabilityTokenizer)}
+     * @return the Flesch-Kincaid Grade Level, rounded to two decimals
+     */
+    public static double gradeLevel(long packed) {
+        return (int) (packed >> 32) / 100.0;
+    }
+
+    /**
+     * @param packed scores returned by {@link #scores(CharSequence, ReadabilityTokenizer)}
+     * @return the Flesch Reading Ease Score, rounded to two decimals
+     */
+    public static double readingEase(long packed) {
+        return (int) packed / 100.0;
+    }
+
+    /**
+     * Packs both scores in hundredths. Descriptions are far too short for a score to overflow an int.
+     */
+    private static long pack(double gradeLevel, double readingEase) {
+        long grade = Math.round(gradeLevel * 100.0);
+        long ease = Math.round(readingEase * 100.0);
+        return (grade << 32) | (ease & 0xffffffffL);
+    }
+
+    /**
+     * Removes every entry; the hit and miss counts are kept.
+     */
+    public void clear() {
+        scores.invalidateAll();
+    }
+
+    /**
+     * @return the hit rate and footprint of the memo so far
+     */
+    public Report report() {
+        scores.cleanUp();
+        return new Report(scores.stats(), scores.estimatedSize());
+    }
+
+    /**
+     * A snapshot of the use of a memo.
+     */
+    public static final class Report {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long entries;
+
+        Report(CacheStats stats, long entries) {
+            this.hits = stats.hitCount();
+            this.misses = stats.missCount();
+            this.evictions = stats.evictionCount();
+            this.entries = entries;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getEntries() {
+            return entries;
+        }
+
+        /**
+         * @return the share of lookups answered from the memo, or 0 before any lookup
+         */
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+
+        /**
+         * @return the estimated heap taken by the entries, in bytes
+         */
+        public long getEstimatedBytes() {
+            return entries * BYTES_PER_ENTRY;
+        }
+
+        /**
+         * @return {@code {"hits":n,"misses":n,"hitRate":0.5,"entries":n,"evictions":n,"estimatedBytes":n}}
+         */
+        public ObjectNode toJson() {
+            ObjectNode json = Json.newObject();
+            json.put("hits", hits);
+            json.put("misses", misses);
+            json.put("hitRate", getHitRate());
+            json.put("entries", entries);
+            json.put("evictions", evictions);
+            json.put("estimatedBytes", getEstimatedBytes());
+            return json;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d hitRate=%.1f%% entries=%d evictions=%d memory=%.1f KiB",
+                    hits, misses, getHitRate() * 100.0, entries, evictions, getEstimatedBytes() / 1024.0);
+        }
+    }
+}
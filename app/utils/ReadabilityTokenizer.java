@@ -0,0 +1,195 @@
+package utils;
+
+/**
+ * Counts the sentences, words and syllables of a text in a single pass over its characters.
+ * <p>
+ * The counts are exactly those of the original regex-based counting in {@link ReadabilityCalculator},
+ * including its quirks, so scores do not change:
+ * </p>
+ * <ul>
+ *     <li>sentences are the pieces of {@code text.split("[.!?]")}: trailing empty pieces are not
+ *     counted, and a text without any terminator is one sentence, even when empty;</li>
+ *     <li>words are the pieces of {@code text.split("\\s+")}, so leading whitespace adds an empty
+ *     word and a text without whitespace is one word, even when empty;</li>
+ *     <li>a word has one syllable per cluster of {@code aeiouy} (either case), minus one if it ends in
+ *     {@code e}, and at least one.</li>
+ * </ul>
+ * <p>
+ * Vowels are matched on the character itself rather than on a lower-cased copy of the word. Apart
+ * from the ASCII letters, the only character whose lower case was a vowel is {@code U+0130}, which
+ * lower-cases to {@code i} followed by a combining dot and is counted the same way. No strings or
+ * arrays are created; a tokenizer can be reused for any number of texts, but not concurrently.
+ * </p>
+ * @author Hanieh
+ */
+public final class ReadabilityTokenizer {
+    private static final char DOTTED_CAPITAL_I = 'İ';
+
+    private int sentences;
+    private int words;
+    private int syllables;
+
+    /**
+     * Counts a text, replacing the counts of the previous text.
+     *
+     * @param text the text to count
+     * @return this tokenizer, holding the counts of the text
+     * @throws NullPointerException if the text is {@code null}
+     */
+    public ReadabilityTokenizer scan(CharSequence text) {
+        int length = text.length();
+
+        int terminators = 0;
+        int lastNonEmptySentence = -1;
+        int whitespaceRuns = 0;
+        int wordCount = 0;
+        int syllableCount = 0;
+        boolean inWhitespace = false;
+        boolean inWord = false;
+        int wordSyllables = 0;
+        boolean lastWasVowel = false;
+        boolean endsWithE = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            if (c == '.' || c == '!' || c == '?') {
+                terminators++;
+            } else {
+                lastNonEmptySentence = terminators;
+            }
+
+            if (isWhitespace(c)) {
+                if (inWord) {
+                    syllableCount += Math.max(endsWithE ? wordSyllables - 1 : wordSyllables, 1);
+                    inWord = false;
+                }
+                if (!inWhitespace) {
+                    whitespaceRuns++;
+                    inWhitespace = true;
+                }
+                continue;
+            }
+            inWhitespace = false;
+            if (!inWord) {
+                wordCount++;
+                inWord = true;
+                wordSyllables = 0;
+                lastWasVowel = false;
+            }
+            if (isVowel(c)) {
+                if (!lastWasVowel) {
+                    wordSyllables++;
+                }
+                // The lower case of U+0130 ends in a combining dot, which breaks the vowel cluster
+                lastWasVowel = c != DOTTED_CAPITAL_I;
+            } else {
+                lastWasVowel = false;
+            }
+            endsWithE = c == 'e' || c == 'E';
+        }
+        if (inWord) {
+            syllableCount += Math.max(endsWithE ? wordSyllables - 1 : wordSyllables, 1);
+        }
+
+        sentences = terminators == 0 ? 1 : lastNonEmptySentence + 1;
+        if (whitespaceRuns == 0) {
+            // No separator: the whole text is the only word, and an empty word still counts one syllable
+            words = 1;
+            syllables = wordCount == 0 ? 1 : syllableCount;
+        } else if (wordCount == 0) {
+            words = 0;
+            syllables = 0;
+        } else {
+            // Leading whitespace yields an empty first word of one syllable
+            boolean leadingEmptyWord = isWhitespace(text.charAt(0));
+            words = wordCount + (leadingEmptyWord ? 1 : 0);
+            syllables = syllableCount + (leadingEmptyWord ? 1 : 0);
+        }
+        return this;
+    }
+
+    /**
+     * Visits the words of a text as split by {@link #scan(CharSequence)}: the maximal runs of
+     * non-whitespace characters. Empty words are not visited, and no strings are created.
+     *
+     * @param text    the text
+     * @param visitor called with each word as a range of the text
+     */
+    public static void forEachWord(CharSequence text, WordVisitor visitor) {
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i < length; i++) {
+            if (isWhitespace(text.charAt(i))) {
+                if (start >= 0) {
+                    visitor.visit(text, start, i);
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        if (start >= 0) {
+            visitor.visit(text, start, length);
+        }
+    }
+
+    public int getSentences() {
+        return sentences;
+    }
+
+    public int getWords() {
+        return words;
+    }
+
+    public int getSyllables() {
+        return syllables;
+    }
+
+    /**
+     * @return the Flesch-Kincaid Grade Level of the last text, or 0 if it has no sentence or word
+     */
+    public double gradeLevel() {
+        if (sentences == 0 || words == 0) return 0.0;
+        return 0.39 * ((double) words / sentences) + 11.8 * ((double) syllables / words) - 15.59;
+    }
+
+    /**
+     * @return the Flesch Reading Ease Score of the last text, or 0 if it has no sentence or word
+     */
+    public double readingEase() {
+        if (sentences == 0 || words == 0) return 0.0;
+        return 206.835 - (1.015 * ((double) words / sentences)) - (84.6 * ((double) syllables / words));
+    }
+
+    /**
+     * The characters of the regex class {@code \s}.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Receives the words of a text from {@link #forEachWord(CharSequence, WordVisitor)}.
+     */
+    @FunctionalInterface
+    public interface WordVisitor {
+        /**
+         * @param text  the text
+         * @param start the index of the first character of the word
+         * @param end   the index after its last character
+         */
+        void visit(CharSequence text, int start, int end);
+    }
+
+    private static boolean isVowel(char c) {
+        switch (c) {
+            case 'a': case 'e': case 'i': case 'o': case 'u': case 'y':
+            case 'A': case 'E': case 'I': case 'O': case 'U': case 'Y':
+            case DOTTED_CAPITAL_I:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
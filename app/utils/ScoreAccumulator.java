@@ -0,0 +1,158 @@
+package utils;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import play.libs.Json;
+
+/**
+ * Running statistics of one score: count, sum, sum of squares, minimum, maximum and a
+ * {@link QuantileSketch} for percentiles.
+ * <p>
+ * Adding or removing a value is O(1) and accumulators merge exactly, so statistics can be kept per
+ * stream, follow a window whose values come and go, and be combined across streams without revisiting
+ * any value. The minimum and maximum are exact until the value holding one of them is removed; they are
+ * then taken from the bounds of the sketch, within its relative accuracy. An accumulator is not
+ * thread-safe.
+ * </p>
+ * @author Hanieh
+ */
+public final class ScoreAccumulator {
+    private long count;
+    private double sum;
+    private double sumOfSquares;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final QuantileSketch sketch = new QuantileSketch();
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if the value is not finite
+     */
+    public void add(double value) {
+        sketch.add(value);
+        count++;
+        sum += value;
+        sumOfSquares += value * value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Removes a value that was added before.
+     *
+     * @param value the value
+     * @throws IllegalArgumentException if the value was not added
+     */
+    public void remove(double value) {
+        sketch.remove(value);
+        if (--count == 0) {
+            sum = 0.0;
+            sumOfSquares = 0.0;
+            min = Double.POSITIVE_INFINITY;
+            max = Double.NEGATIVE_INFINITY;
+            return;
+        }
+        sum -= value;
+        sumOfSquares -= value * value;
+        if (value <= min) {
+            min = sketch.quantile(0);
+        }
+        if (value >= max) {
+            max = sketch.quantile(1);
+        }
+    }
+
+    /**
+     * Adds every value counted by another accumulator to this one.
+     *
+     * @param other the other accumulator; it is not modified
+     */
+    public void merge(ScoreAccumulator other) {
+        sketch.merge(other.sketch);
+        count += other.count;
+        sum += other.sum;
+        sumOfSquares += other.sumOfSquares;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * @return the mean, or 0 if no value was added
+     */
+    public double getMean() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    /**
+     * @return the population variance, or 0 if no value was added
+     */
+    public double getVariance() {
+        if (count == 0) {
+            return 0.0;
+        }
+        double mean = sum / count;
+        // Cancellation can leave a tiny negative remainder for constant values
+        return Math.max(sumOfSquares / count - mean * mean, 0.0);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * @return the smallest value, or 0 if no value was added
+     */
+    public double getMin() {
+        return count == 0 ? 0.0 : min;
+    }
+
+    /**
+     * @return the largest value, or 0 if no value was added
+     */
+    public double getMax() {
+        return count == 0 ? 0.0 : max;
+    }
+
+    /**
+     * @param q the quantile, from 0 to 1
+     * @return the estimated value at the quantile, the minimum at 0 and the maximum at 1, or 0 if empty
+     * @see QuantileSketch#quantile(double)
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return 0.0;
+        }
+        double estimate = sketch.quantile(q);
+        if (q == 0) {
+            return min;
+        }
+        return q == 1 ? max : Math.min(Math.max(estimate, min), max);
+    }
+
+    /**
+     * @return the statistics rounded to two decimals, with the median, 90th and 99th percentiles
+     */
+    public ObjectNode toJson() {
+        return Json.newObject()
+                .put("mean", round(getMean()))
+                .put("stddev", round(getStandardDeviation()))
+                .put("min", round(getMin()))
+                .put("max", round(getMax()))
+                .put("p50", round(quantile(0.5)))
+                .put("p90", round(quantile(0.9)))
+                .put("p99", round(quantile(0.99)));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,372 @@
+package utils;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import play.libs.Json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Approximate word frequencies of a stream of texts, with the most frequent words, in fixed memory.
+ * <p>
+ * Texts are split into words by {@link ReadabilityTokenizer#forEachWord(CharSequence, ReadabilityTokenizer.WordVisitor)},
+ * then each word is trimmed of surrounding punctuation and lower-cased. Stop words, single characters,
+ * words without a letter and links are skipped. Every remaining word is counted in a
+ * {@link CountMinSketch}, and a min-heap of {@code capacity} words keeps the words with the highest
+ * estimates. A word that falls out of the heap can come back once its estimate beats the smallest one.
+ * </p>
+ * <p>
+ * Memory depends only on the dimensions given at construction, never on the length of the stream;
+ * words are only turned into strings when they enter the heap. Instances are not thread-safe; to count
+ * the same texts into several instances, or outside the lock guarding one, extract their words once
+ * with {@link Words#of(CharSequence...)} and {@linkplain #add(Words) add} those.
+ * </p>
+ * @author Hanieh
+ */
+public final class WordFrequency {
+    /** English words too common to say anything about a video, with the HTML entities titles may hold. */
+    private static final Set<Long> STOP_WORDS = new HashSet<>();
+
+    static {
+        for (String word : ("a about above after again all also am an and any are as at be because been before being "
+                + "below between both but by can could did do does doing don't down during each few for from further "
+                + "get got had has have having he her here hers herself him himself his how i i'm if in into is it "
+                + "it's its itself just let's like me more most my myself no nor not now of off on once only or other "
+                + "our ours ourselves out over own same she should so some such than that that's the their theirs "
+                + "them themselves then there these they this those through to too under until up very was we we're "
+                + "were what when where which while who whom why will with would you you're your yours yourself "
+                + "yourselves amp quot").split(" ")) {
+            STOP_WORDS.add(ContentHash.keyOf(word));
+        }
+    }
+
+    private final CountMinSketch sketch;
+    private final int capacity;
+    private final Entry[] heap;
+    private final Map<Long, Entry> heapIndex;
+    private final StringBuilder word = new StringBuilder();
+    private final ReadabilityTokenizer.WordVisitor counter = this::count;
+    private int size;
+
+    /**
+     * Creates an empty word count.
+     *
+     * @param width    the cells per row of the count-min sketch, a power of two
+     * @param depth    the rows of the count-min sketch
+     * @param capacity the number of most frequent words kept
+     * @throws IllegalArgumentException if a dimension is out of range
+     */
+    public WordFrequency(int width, int depth, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.sketch = new CountMinSketch(width, depth);
+        this.capacity = capacity;
+        this.heap = new Entry[capacity];
+        this.heapIndex = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Counts the words of a text.
+     *
+     * @param text the text; {@code null} is ignored
+     * @return this word count
+     */
+    public WordFrequency add(CharSequence text) {
+        if (text != null) {
+            ReadabilityTokenizer.forEachWord(text, counter);
+        }
+        return this;
+    }
+
+    /**
+     * Counts words extracted before.
+     *
+     * @param words the words
+     * @return this word count
+     */
+    public WordFrequency add(Words words) {
+        int start = 0;
+        for (int i = 0; i < words.size; i++) {
+            count(words.hashes[i], words.text, start, words.ends[i]);
+            start = words.ends[i];
+        }
+        return this;
+    }
+
+    /**
+     * Adds the counts of another word count with the same sketch dimensions to this one. The merged
+     * heap is chosen among the words of both heaps, ranked by their merged estimates.
+     *
+     * @param other the other word count; it is not modified
+     * @return this word count
+     */
+    public WordFrequency merge(WordFrequency other) {
+        sketch.merge(other.sketch);
+        Map<Long, String> candidates = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            candidates.put(heap[i].hash, heap[i].word);
+        }
+        for (int i = 0; i < other.size; i++) {
+            candidates.put(other.heap[i].hash, other.heap[i].word);
+        }
+        Arrays.fill(heap, 0, size, null);
+        heapIndex.clear();
+        size = 0;
+        candidates.forEach((hash, text) -> offer(hash, text, sketch.estimate(hash)));
+        return this;
+    }
+
+    /**
+     * @param limit the largest number of words returned
+     * @return the most frequent words with their estimated counts, most frequent first
+     */
+    public List<WordCount> top(int limit) {
+        List<WordCount> words = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            words.add(new WordCount(heap[i].word, heap[i].count));
+        }
+        words.sort(Comparator.comparingInt(WordCount::getCount).reversed().thenComparing(WordCount::getWord));
+        return words.subList(0, Math.min(Math.max(limit, 0), words.size()));
+    }
+
+    /**
+     * @return the number of words counted, stop words excluded
+     */
+    public long getTotal() {
+        return sketch.getTotal();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param limit the largest number of words listed
+     * @return {@code {"total":n,"words":[{"word":"java","count":12}, ...]}}
+     */
+    public ObjectNode toJson(int limit) {
+        ArrayNode words = Json.newArray();
+        for (WordCount count : top(limit)) {
+            words.addObject().put("word", count.getWord()).put("count", count.getCount());
+        }
+        ObjectNode json = Json.newObject();
+        json.put("total", getTotal());
+        json.set("words", words);
+        return json;
+    }
+
+    private void count(CharSequence text, int start, int end) {
+        word.setLength(0);
+        if (normalize(text, start, end, word)) {
+            long hash = ContentHash.keyOf(word);
+            if (!STOP_WORDS.contains(hash)) {
+                count(hash, word, 0, word.length());
+            }
+        }
+    }
+
+    /**
+     * Counts one normalized word, found in {@code text} between {@code start} and {@code end}.
+     */
+    private void count(long hash, CharSequence text, int start, int end) {
+        int estimate = sketch.add(hash);
+        Entry entry = heapIndex.get(hash);
+        if (entry != null) {
+            entry.count = estimate;
+            siftDown(entry.position);
+        } else if (size < capacity || estimate > heap[0].count) {
+            offer(hash, text.subSequence(start, end).toString(), estimate);
+        }
+    }
+
+    /**
+     * Appends a token, trimmed of surrounding punctuation and lower-cased, to {@code word}.
+     *
+     * @return {@code false} if the token is not a word to count; {@code word} may then hold part of it
+     */
+    private static boolean normalize(CharSequence text, int start, int end, StringBuilder word) {
+        while (start < end && !Character.isLetterOrDigit(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && !Character.isLetterOrDigit(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end - start < 2) {
+            return false;
+        }
+        boolean hasLetter = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '/') {
+                return false; // links and paths
+            }
+            hasLetter |= Character.isLetter(c);
+            word.append(c == '\u2019' ? '\'' : Character.toLowerCase(c));
+        }
+        return hasLetter;
+    }
+
+    /**
+     * Puts a word into the heap if it is not full, or in place of the least frequent word otherwise.
+     */
+    private void offer(long hash, String text, int estimate) {
+        Entry entry = new Entry(text, hash, estimate);
+        heapIndex.put(hash, entry);
+        if (size < capacity) {
+            entry.position = size;
+            heap[size++] = entry;
+            siftUp(entry.position);
+        } else if (estimate > heap[0].count) {
+            heapIndex.remove(heap[0].hash);
+            entry.position = 0;
+            heap[0] = entry;
+            siftDown(0);
+        } else {
+            heapIndex.remove(hash);
+        }
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heap[parent].count <= heap[position].count) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            int right = left + 1;
+            if (left < size && heap[left].count < heap[smallest].count) {
+                smallest = left;
+            }
+            if (right < size && heap[right].count < heap[smallest].count) {
+                smallest = right;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Entry entry = heap[i];
+        heap[i] = heap[j];
+        heap[j] = entry;
+        heap[i].position = i;
+        heap[j].position = j;
+    }
+
+    /**
+     * A word in the heap with its latest estimate.
+     */
+    private static final class Entry {
+        private final String word;
+        private final long hash;
+        private int count;
+        private int position;
+
+        Entry(String word, long hash, int count) {
+            this.word = word;
+            this.hash = hash;
+            this.count = count;
+        }
+    }
+
+    /**
+     * The countable words of some texts, normalized and hashed once so that they can be counted into
+     * several word counts, or outside the lock of the count they go into. Stop words are left out.
+     */
+    public static final class Words {
+        private final StringBuilder text = new StringBuilder();
+        private long[] hashes = new long[32];
+        private int[] ends = new int[32];
+        private int size;
+
+        private Words() {
+        }
+
+        /**
+         * Extracts the words of texts.
+         *
+         * @param texts the texts; {@code null} ones are ignored
+         * @return their words, in order
+         */
+        public static Words of(CharSequence... texts) {
+            Words words = new Words();
+            for (CharSequence text : texts) {
+                if (text != null) {
+                    ReadabilityTokenizer.forEachWord(text, words::append);
+                }
+            }
+            return words;
+        }
+
+        /**
+         * @return the number of words
+         */
+        public int size() {
+            return size;
+        }
+
+        private void append(CharSequence token, int start, int end) {
+            int mark = text.length();
+            if (!normalize(token, start, end, text)) {
+                text.setLength(mark);
+                return;
+            }
+            long hash = ContentHash.keyOf(text, mark, text.length());
+            if (STOP_WORDS.contains(hash)) {
+                text.setLength(mark);
+                return;
+            }
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            hashes[size] = hash;
+            ends[size++] = text.length();
+        }
+    }
+
+    /**
+     * A word with its estimated number of occurrences.
+     */
+    public static final class WordCount {
+        private final String word;
+        private final int count;
+
+        public WordCount(String word, int count) {
+            this.word = word;
+            this.count = count;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return word + "=" + count;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package benchmarks.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result reports its allocation rate
+ * ({@code gc.alloc.rate} in MB/s and {@code gc.alloc.rate.norm} in bytes per operation) next to its
+ * throughput.
+ * <p>
+ * Run all of them, or those matching a pattern, with:
+ * </p>
+ * <pre>
+ *     sbt "jmh/Jmh/runMain benchmarks.jmh.BenchmarkRunner"
+ *     sbt "jmh/Jmh/runMain benchmarks.jmh.BenchmarkRunner Readability"
+ * </pre>
+ * The standard JMH command line works as well: {@code sbt "jmh/Jmh/run -prof gc"}.
+ * @author Hanieh
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BenchmarkRunner.class.getPackageName() + "\\..*" + (args.length > 0 ? args[0] : ""))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
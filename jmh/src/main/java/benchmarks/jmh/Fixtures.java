@@ -0,0 +1,150 @@
+package benchmarks.jmh;
+
+import models.Video;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic fixtures shaped like YouTube Data API search results.
+ * <p>
+ * Descriptions mix short and long sentences, links, hashtags and timestamps, titles carry the HTML
+ * entities the API escapes, and every fixture comes from a fixed seed so runs compare.
+ * </p>
+ * @author Hanieh
+ */
+public final class Fixtures {
+    /** The largest page the YouTube API returns. */
+    public static final int PAGE_SIZE = 50;
+
+    private static final String[] SENTENCES = {
+            "In this video we walk through the whole setup step by step.",
+            "Don't forget to like and subscribe for more content every week!",
+            "Timestamps are listed below so you can jump straight to the interesting parts.",
+            "Our sponsor helped make this episode possible, check the link for a discount.",
+            "Let us know in the comments what you would like to see next time?",
+            "This is an experimental format, so feedback is extremely appreciated.",
+            "Thanks for watching.",
+            "Huge shout-out to everyone who supported the channel on Patreon this month!",
+            "The full source code is available on GitHub: https://github.com/example/tutorial-series",
+            "00:00 Intro 01:35 Installation 07:12 First steps 15:40 Deployment 21:03 Outro",
+            "#java #programming #tutorial #coding",
+            "Music: Lofi Beats by an independent artist, licensed under Creative Commons."
+    };
+    private static final String[] TITLE_WORDS = {
+            "Java", "Tutorial", "Beginners", "&amp;", "Advanced", "&quot;Streams&quot;", "Akka", "Play",
+            "Framework", "Guide", "2024", "&#39;Full&#39;", "Course", "Tips", "&lt;Live&gt;", "Review"
+    };
+
+    private Fixtures() {
+    }
+
+    /**
+     * @param seed the seed of the description
+     * @return a description of 2 to 13 sentences
+     */
+    public static String description(long seed) {
+        Random random = new Random(seed);
+        StringBuilder description = new StringBuilder();
+        int sentences = 2 + random.nextInt(12);
+        for (int s = 0; s < sentences; s++) {
+            if (s > 0) {
+                description.append(random.nextInt(4) == 0 ? "\n\n" : " ");
+            }
+            description.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+        }
+        return description.toString();
+    }
+
+    /**
+     * @param seed the seed of the title
+     * @return an escaped title of 4 to 9 words, as the API returns it
+     */
+    public static String escapedTitle(long seed) {
+        Random random = new Random(seed);
+        StringBuilder title = new StringBuilder();
+        int words = 4 + random.nextInt(6);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                title.append(' ');
+            }
+            title.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        }
+        return title.toString();
+    }
+
+    /**
+     * @param count the number of videos
+     * @param seed  the seed of the first video
+     * @return unscored videos with distinct descriptions
+     */
+    public static List<Video> videos(int count, long seed) {
+        List<Video> videos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String videoId = "vid" + (seed + i);
+            videos.add(new Video("https://i.ytimg.com/vi/" + videoId + "/hqdefault.jpg",
+                    escapedTitle(seed + i), "Channel " + (i % 7), description(seed + i),
+                    videoId, "UC" + (i % 7), List.of("java", "tutorial", "tag" + i)));
+        }
+        return videos;
+    }
+
+    /**
+     * @param count the number of items
+     * @return the body of a search response with {@code count} video items
+     */
+    public static String searchResponse(int count) {
+        JSONArray items = new JSONArray();
+        for (int i = 0; i < count; i++) {
+            items.put(searchItem(i));
+        }
+        return new JSONObject()
+                .put("kind", "youtube#searchListResponse")
+                .put("nextPageToken", "CDIQAA")
+                .put("regionCode", "CA")
+                .put("pageInfo", new JSONObject().put("totalResults", 1000000).put("resultsPerPage", count))
+                .put("items", items)
+                .toString();
+    }
+
+    /**
+     * @param index the index of the item, which seeds its content
+     * @return one video item of a search response
+     */
+    public static JSONObject searchItem(int index) {
+        String videoId = "vid" + index;
+        JSONObject thumbnail = new JSONObject().put("url", "https://i.ytimg.com/vi/" + videoId + "/hqdefault.jpg")
+                .put("width", 480).put("height", 360);
+        JSONObject snippet = new JSONObject()
+                .put("publishedAt", "2024-05-01T12:00:00Z")
+                .put("channelId", "UC" + (index % 7))
+                .put("title", escapedTitle(index))
+                .put("description", description(index))
+                .put("thumbnails", new JSONObject().put("default", thumbnail).put("medium", thumbnail).put("high", thumbnail))
+                .put("channelTitle", "Channel " + (index % 7))
+                .put("liveBroadcastContent", "none")
+                .put("tags", new JSONArray(List.of("java", "tutorial", "tag" + index)));
+        return new JSONObject()
+                .put("kind", "youtube#searchResult")
+                .put("etag", "etag" + index)
+                .put("id", new JSONObject().put("kind", "youtube#video").put("videoId", videoId))
+                .put("snippet", snippet);
+    }
+
+    /**
+     * @param size the number of queries
+     * @return a search history in insertion order, as kept per session
+     */
+    public static LinkedHashMap<String, List<Video>> history(int size) {
+        LinkedHashMap<String, List<Video>> history = new LinkedHashMap<>();
+        List<Video> results = videos(10, 0);
+        for (int i = 0; i < size; i++) {
+            history.put("query " + i, results);
+        }
+        return history;
+    }
+}
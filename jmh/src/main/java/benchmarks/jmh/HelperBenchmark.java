@@ -0,0 +1,47 @@
+package benchmarks.jmh;
+
+import models.Video;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.Helper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reversing search histories of various sizes with {@link Helper#reverseMap(LinkedHashMap)}.
+ * @author Hanieh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelperBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int historySize;
+
+    private LinkedHashMap<String, List<Video>> history;
+
+    @Setup
+    public void setUp() {
+        history = Fixtures.history(historySize);
+    }
+
+    @Benchmark
+    public LinkedHashMap<String, List<Video>> reverseMap() {
+        return Helper.reverseMap(history);
+    }
+}
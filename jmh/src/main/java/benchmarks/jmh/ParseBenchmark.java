@@ -0,0 +1,77 @@
+package benchmarks.jmh;
+
+import com.typesafe.config.ConfigFactory;
+import models.Video;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import play.api.Configuration;
+import services.YoutubeService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a full {@value Fixtures#PAGE_SIZE}-item search response, and a single item of one.
+ * @author Hanieh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    private Parser parser;
+    private String response;
+    private JSONObject item;
+
+    @Setup
+    public void setUp() {
+        parser = new Parser();
+        response = Fixtures.searchResponse(Fixtures.PAGE_SIZE);
+        item = Fixtures.searchItem(7);
+    }
+
+    @Benchmark
+    public List<Video> parseVideos() {
+        return parser.parseVideos(response);
+    }
+
+    @Benchmark
+    public Video parseVideo() {
+        return parser.parseVideo(item);
+    }
+
+    /**
+     * Exposes the parsing of {@link YoutubeService} without any network access.
+     */
+    static final class Parser extends YoutubeService {
+        Parser() {
+            super(new Configuration(ConfigFactory.parseString(
+                    "youtube.api.key = \"benchmark\"\n"
+                            + "youtube.search.url = \"http://localhost/search\"\n"
+                            + "youtube.channel.profile.url = \"http://localhost/channels\"\n"
+                            + "video.count = " + Fixtures.PAGE_SIZE)));
+        }
+
+        @Override
+        protected List<Video> parseVideos(String jsonResponse) {
+            return super.parseVideos(jsonResponse);
+        }
+
+        @Override
+        protected Video parseVideo(JSONObject videoJson) {
+            return super.parseVideo(videoJson);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package benchmarks.jmh;
+
+import models.Video;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.ReadabilityBatch;
+import utils.ReadabilityCalculator;
+import utils.ReadabilityMemo;
+import utils.ReadabilityStats;
+import utils.ReadabilityTokenizer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring a page of videos and averaging their scores.
+ * <p>
+ * {@code scanPage} scans every description, as a page of descriptions never seen before costs;
+ * {@code scorePage} goes through {@link ReadabilityCalculator} and so mostly hits the shared
+ * {@link ReadabilityMemo}, as repeated polls do.
+ * </p>
+ * @author Hanieh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadabilityBenchmark {
+
+    @Param({"10", "50"})
+    public int videos;
+
+    private List<Video> page;
+    private List<Video> catalog;
+    private final ReadabilityTokenizer tokenizer = new ReadabilityTokenizer();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        page = ReadabilityCalculator.calculateReadabilityScores(Fixtures.videos(videos, 0));
+        catalog = Fixtures.videos(videos * 100, 1_000_000);
+    }
+
+    @Benchmark
+    public double scanPage() {
+        double sum = 0;
+        for (Video video : page) {
+            tokenizer.scan(video.getDescription());
+            sum += tokenizer.gradeLevel() + tokenizer.readingEase();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public List<Video> scorePage() {
+        return ReadabilityCalculator.calculateReadabilityScores(page);
+    }
+
+    @Benchmark
+    public ReadabilityStats averagePage() {
+        return ReadabilityCalculator.calculateAverageReadabilityStats(page);
+    }
+
+    /**
+     * A back-catalog of a hundred pages scored and averaged in one batch.
+     */
+    @Benchmark
+    public ReadabilityBatch scoreCatalog() {
+        return ReadabilityCalculator.scoreBatch(catalog);
+    }
+}
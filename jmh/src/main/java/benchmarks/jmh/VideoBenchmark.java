@@ -0,0 +1,58 @@
+package benchmarks.jmh;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import models.Video;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import play.libs.Json;
+import utils.ReadabilityCalculator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering videos: unescaping titles in {@link Video#getTitle()} and serializing a scored page with
+ * {@link Json#toJson(Object)}, which unescapes every title again.
+ * @author Hanieh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VideoBenchmark {
+
+    private List<Video> page;
+
+    @Setup
+    public void setUp() {
+        page = ReadabilityCalculator.calculateReadabilityScores(Fixtures.videos(Fixtures.PAGE_SIZE, 0));
+    }
+
+    @Benchmark
+    public void getTitle(Blackhole blackhole) {
+        for (Video video : page) {
+            blackhole.consume(video.getTitle());
+        }
+    }
+
+    @Benchmark
+    public JsonNode toJson() {
+        return Json.toJson(page);
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return Json.stringify(Json.toJson(page));
+    }
+}
@@ -0,0 +1,107 @@
+package actors;
+
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.testkit.javadsl.TestKit;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for {@link OutboundBatch}.
+ * @author Hanieh
+ */
+public class OutboundBatchTest {
+
+    private ActorSystem system;
+
+    @Before
+    public void setup() {
+        system = ActorSystem.create("OutboundBatchTest");
+    }
+
+    @After
+    public void teardown() {
+        TestKit.shutdownActorSystem(system);
+        system = null;
+    }
+
+    private static SessionSettings settings(Duration window, int maxFrames) {
+        return new SessionSettings(Duration.ofSeconds(10), Duration.ofMinutes(5), Duration.ofSeconds(30),
+                16, 32, window, maxFrames, 8,
+                new SearchSettings(SearchSettings.Mode.STREAM, Duration.ofSeconds(1000), 2, 4));
+    }
+
+    private static List<JsonNode> frames(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> (JsonNode) Json.newObject().put("n", i))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that a lone frame is sent unchanged and several frames are wrapped in one batch frame.
+     */
+    @Test
+    public void testCombine() {
+        JsonNode single = frames(1).get(0);
+        assertSame(single, OutboundBatch.combine(List.of(single)));
+
+        JsonNode batch = OutboundBatch.combine(frames(3));
+        assertEquals("batch", batch.get("type").asText());
+        assertEquals(3, batch.get("frames").size());
+        assertEquals(2, batch.get("frames").get(2).get("n").asInt());
+    }
+
+    /**
+     * Tests that a burst of frames is coalesced into batches no larger than the size cap and
+     * that the counters see every frame but only one write per batch.
+     *
+     * @throws Exception if the stream does not complete
+     */
+    @Test
+    public void testBurstIsCoalescedUpToSizeCap() throws Exception {
+        OutboundStats stats = new OutboundStats();
+
+        List<JsonNode> written = OutboundBatch.batched(Source.from(frames(5)), settings(Duration.ofSeconds(1), 3), stats)
+                .runWith(Sink.seq(), Materializer.matFromSystem(system))
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, written.size());
+        assertEquals(3, written.get(0).get("frames").size());
+        assertEquals(2, written.get(1).get("frames").size());
+        assertEquals(5, stats.getDelivered());
+        assertEquals(2, stats.getWrites());
+    }
+
+    /**
+     * Tests that a zero window disables batching.
+     *
+     * @throws Exception if the stream does not complete
+     */
+    @Test
+    public void testZeroWindowDisablesBatching() throws Exception {
+        OutboundStats stats = new OutboundStats();
+
+        List<JsonNode> written = OutboundBatch.batched(Source.from(frames(3)), settings(Duration.ZERO, 32), stats)
+                .runWith(Sink.seq(), Materializer.matFromSystem(system))
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(frames(3), written);
+        assertEquals(3, stats.getWrites());
+    }
+}
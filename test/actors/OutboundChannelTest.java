@@ -0,0 +1,103 @@
+package actors;
+
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.javadsl.AsPublisher;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
+import akka.testkit.javadsl.TestKit;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link OutboundChannel}.
+ * <p>
+ * The outbound queue in these tests has no downstream demand, which simulates a client that
+ * stopped reading: the single buffer slot fills up and every further frame has to wait.
+ * </p>
+ * @author Hanieh
+ */
+public class OutboundChannelTest {
+
+    private ActorSystem system;
+
+    @Before
+    public void setup() {
+        system = ActorSystem.create("OutboundChannelTest");
+    }
+
+    @After
+    public void teardown() {
+        TestKit.shutdownActorSystem(system);
+        system = null;
+    }
+
+    private SourceQueueWithComplete<JsonNode> stalledQueue() {
+        return Source.<JsonNode>queue(1, OverflowStrategy.backpressure())
+                .toMat(Sink.asPublisher(AsPublisher.WITHOUT_FANOUT), Keep.left())
+                .run(Materializer.matFromSystem(system));
+    }
+
+    private static JsonNode deltaFrame(String query, long seq, String... addedIds) {
+        ObjectNode result = Json.newObject();
+        result.put("searchQuery", query);
+        result.set("added", Json.toJson(List.of(addedIds).stream()
+                .map(id -> Json.newObject().put("videoId", id))
+                .toArray()));
+        result.set("changed", Json.newArray());
+        result.set("removed", Json.newArray());
+        ObjectNode frame = Json.newObject();
+        frame.put("status", "success");
+        frame.put("type", "delta");
+        frame.put("seq", seq);
+        frame.put("baseSeq", seq);
+        frame.set("result", result);
+        return frame;
+    }
+
+    /**
+     * Tests that frames for the same query are merged while the client is behind and that the
+     * oldest waiting frame is dropped once too many frames wait.
+     */
+    @Test
+    public void testConflatesAndDropsWhileBackpressured() {
+        new TestKit(system) {{
+            OutboundStats stats = new OutboundStats();
+            OutboundChannel channel = new OutboundChannel(stalledQueue(), stats, getRef(), 2);
+
+            // First frame fills the single buffer slot
+            channel.send("result:a", deltaFrame("a", 1, "1"), ResultWindow::mergeFrames);
+            channel.onOfferCompleted(expectMsgClass(OutboundChannel.OfferCompleted.class));
+            assertFalse(channel.isBackpressured());
+
+            // Second frame cannot be buffered: the client is now behind
+            channel.send("result:a", deltaFrame("a", 2, "2"), ResultWindow::mergeFrames);
+            assertTrue(channel.isBackpressured());
+
+            // Frames for the same query are merged while waiting
+            channel.send("result:a", deltaFrame("a", 3, "3"), ResultWindow::mergeFrames);
+            channel.send("result:a", deltaFrame("a", 4, "4"), ResultWindow::mergeFrames);
+            assertEquals(1, stats.getConflated());
+
+            // Two unrelated frames push the merged one out
+            channel.send(Json.newObject().put("status", "success"));
+            channel.send(Json.newObject().put("status", "success"));
+            assertEquals(1, stats.getDropped());
+            assertEquals(1, stats.getEnqueued());
+            assertEquals(3, stats.getBufferDepth());
+        }};
+    }
+}
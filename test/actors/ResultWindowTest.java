@@ -0,0 +1,171 @@
+package actors;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import models.Video;
+import org.junit.Test;
+import play.libs.Json;
+import test.MockVideoUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link ResultWindow}.
+ * @author Hanieh
+ */
+public class ResultWindowTest {
+
+    private static JsonNode scored(ResultWindow.Delta delta) {
+        return Json.toJson(delta.getUpserts());
+    }
+
+    private static List<String> ids(JsonNode videos) {
+        List<String> ids = new ArrayList<>();
+        videos.forEach(video -> ids.add(video.isTextual() ? video.asText() : video.get("videoId").asText()));
+        return ids;
+    }
+
+    /**
+     * Tests that consecutive polls produce added, changed and removed videos with increasing sequence numbers.
+     */
+    @Test
+    public void testDiffAndApply() {
+        ResultWindow window = new ResultWindow("q");
+
+        ResultWindow.Delta first = window.diff(List.of(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2")));
+        ObjectNode frame = window.apply(first, scored(first));
+        assertEquals("delta", frame.get("type").asText());
+        assertEquals(1, frame.get("seq").asLong());
+        assertEquals(List.of("1", "2"), ids(frame.get("result").get("added")));
+
+        // Same window again: nothing to send
+        assertTrue(window.diff(List.of(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2"))).isEmpty());
+
+        Video renamed = new Video("http://example.com/thumbnail2.jpg", "New title", "Channel 2",
+                "Description for video 2", "2", "ChannelId2", List.of("tag1"));
+        ResultWindow.Delta second = window.diff(List.of(renamed, MockVideoUtil.mockingVideo("3")));
+        frame = window.apply(second, scored(second));
+        assertEquals(2, frame.get("seq").asLong());
+        assertEquals(List.of("3"), ids(frame.get("result").get("added")));
+        assertEquals(List.of("2"), ids(frame.get("result").get("changed")));
+        assertEquals(List.of("1"), ids(frame.get("result").get("removed")));
+
+        ObjectNode snapshot = window.snapshot();
+        assertEquals(2, snapshot.get("seq").asLong());
+        assertEquals(List.of("2", "3"), ids(snapshot.get("result").get("videos")));
+        assertEquals("New title", snapshot.get("result").get("videos").get(0).get("title").asText());
+    }
+
+    /**
+     * Tests that the readability statistics describe the current window, changed videos counted once.
+     */
+    @Test
+    public void testReadabilityDescribesCurrentWindow() {
+        ResultWindow window = new ResultWindow("q");
+        ResultWindow.Delta first = window.diff(List.of(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2")));
+        ObjectNode frame = window.apply(first, scored(first));
+        assertEquals(2, frame.get("result").get("readability").get("count").asLong());
+
+        Video renamed = new Video("http://example.com/thumbnail2.jpg", "New title", "Channel 2",
+                "Description for video 2", "2", "ChannelId2", List.of("tag1"));
+        ResultWindow.Delta second = window.diff(List.of(renamed, MockVideoUtil.mockingVideo("3")));
+        frame = window.apply(second, scored(second));
+
+        assertEquals(2, window.getReadability().getCount());
+        assertEquals(window.getReadability().toJson(), frame.get("result").get("readability"));
+        assertEquals(window.getReadability().toJson(), window.snapshot().get("result").get("readability"));
+    }
+
+    /**
+     * Tests that a removed video leaves the readability statistics and counts once when it comes back.
+     */
+    @Test
+    public void testReadabilityOfRemovedAndReaddedVideo() {
+        ResultWindow window = new ResultWindow("q");
+        Video easy = MockVideoUtil.mockingVideo("1");
+        easy.setFleschKincaidGradeLevel(2.0);
+        easy.setFleschReadingEaseScore(90.0);
+        Video hard = MockVideoUtil.mockingVideo("2");
+        hard.setFleschKincaidGradeLevel(12.0);
+        hard.setFleschReadingEaseScore(30.0);
+
+        ResultWindow.Delta first = window.diff(List.of(easy, hard));
+        window.apply(first, scored(first));
+        assertEquals(7.0, window.getReadability().getGradeLevel().getMean(), 0.001);
+
+        ResultWindow.Delta second = window.diff(List.of(easy));
+        ObjectNode frame = window.apply(second, scored(second));
+        assertEquals(1, frame.get("result").get("readability").get("count").asLong());
+        assertEquals(2.0, window.getReadability().getGradeLevel().getMean(), 0.001);
+        assertEquals(90.0, window.getReadability().getReadingEase().getMean(), 0.001);
+
+        ResultWindow.Delta third = window.diff(List.of(easy, hard));
+        frame = window.apply(third, scored(third));
+        assertEquals(2, frame.get("result").get("readability").get("count").asLong());
+        assertEquals(7.0, window.getReadability().getGradeLevel().getMean(), 0.001);
+        assertEquals(60.0, window.getReadability().getReadingEase().getMean(), 0.001);
+    }
+
+    /**
+     * Tests that merging two waiting deltas covers both sequence ranges and cancels out a video
+     * that was added and removed again.
+     */
+    @Test
+    public void testMergeDeltaFrames() {
+        ResultWindow window = new ResultWindow("q");
+        ResultWindow.Delta first = window.diff(List.of(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2")));
+        JsonNode firstFrame = window.apply(first, scored(first));
+        ResultWindow.Delta second = window.diff(List.of(MockVideoUtil.mockingVideo("2"), MockVideoUtil.mockingVideo("3")));
+        JsonNode secondFrame = window.apply(second, scored(second));
+
+        JsonNode merged = ResultWindow.mergeFrames(firstFrame, secondFrame);
+
+        assertEquals(1, merged.get("baseSeq").asLong());
+        assertEquals(2, merged.get("seq").asLong());
+        assertEquals(List.of("2", "3"), ids(merged.get("result").get("added")));
+        assertEquals(0, merged.get("result").get("removed").size());
+    }
+
+    /**
+     * Tests that a delta waiting behind a snapshot is folded into the snapshot.
+     */
+    @Test
+    public void testMergeDeltaIntoSnapshot() {
+        ResultWindow window = new ResultWindow("q");
+        ResultWindow.Delta first = window.diff(List.of(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2")));
+        window.apply(first, scored(first));
+        JsonNode snapshot = window.snapshot();
+        ResultWindow.Delta second = window.diff(List.of(MockVideoUtil.mockingVideo("2"), MockVideoUtil.mockingVideo("3")));
+        JsonNode delta = window.apply(second, scored(second));
+
+        JsonNode merged = ResultWindow.mergeFrames(snapshot, delta);
+
+        assertEquals("snapshot", merged.get("type").asText());
+        assertEquals(2, merged.get("seq").asLong());
+        assertEquals(List.of("2", "3"), ids(merged.get("result").get("videos")));
+        assertEquals(window.snapshot().get("result"), merged.get("result"));
+    }
+
+    /**
+     * Tests that pending deltas of the same query merge so that a video removed and re-added is only re-sent.
+     */
+    @Test
+    public void testMergePendingDeltas() {
+        ResultWindow window = new ResultWindow("q");
+        ResultWindow.Delta first = window.diff(List.of(MockVideoUtil.mockingVideo("1")));
+        window.apply(first, scored(first));
+
+        ResultWindow.Delta gone = window.diff(List.of(MockVideoUtil.mockingVideo("2")));
+        ResultWindow.Delta back = window.diff(List.of(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2")));
+        gone.merge(back);
+        JsonNode frame = window.apply(gone, scored(gone));
+
+        assertEquals(List.of("2"), ids(frame.get("result").get("added")));
+        assertEquals(List.of("1"), ids(frame.get("result").get("changed")));
+        assertEquals(0, frame.get("result").get("removed").size());
+    }
+}
@@ -83,4 +83,24 @@ public class ScoreActorTest {
             assertEquals("Channel 2", videoNode2.get("channel").asText());
         }};
     }
+
+    /**
+     * Test to verify a ScoreTask routed through the shared ScoreActor pool is scored
+     * and answered to the requesting actor.
+     */
+    @Test
+    public void testScorePoolRoutesScoreTask() {
+        new TestKit(system) {{
+            final ActorRef probe = getRef();
+            final ActorRef scoreRouter = system.actorOf(ScoreActor.poolProps(2));
+
+            List<Video> videoList = List.of(MockVideoUtil.mockingVideo("1"));
+            scoreRouter.tell(new ScoreActor.ScoreTask(videoList, "user1", probe), probe);
+
+            ObjectNode result = expectMsgClass(ObjectNode.class);
+            ArrayNode videos = (ArrayNode) result.get("videos");
+            assertEquals(1, videos.size());
+            assertEquals("Title 1", videos.get(0).get("title").asText());
+        }};
+    }
 }
@@ -110,6 +110,7 @@ public class SearchActorTest {
             // Verify that the scheduler is stopped
             SupervisorActor.SearchActorFailure failure = expectMsgClass(SupervisorActor.SearchActorFailure.class);
             assertEquals("userId", failure.getUserId());
+            assertEquals("testQuery", failure.getSubscriptionId());
         }};
     }
 }
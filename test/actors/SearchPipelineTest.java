@@ -0,0 +1,131 @@
+package actors;
+
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Sink;
+import akka.testkit.javadsl.TestKit;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+import models.Video;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import services.YoutubeService;
+import test.MockVideoUtil;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link SearchPipeline}.
+ * @author Hanieh
+ */
+public class SearchPipelineTest {
+
+    private ActorSystem system;
+    private Executor executor;
+
+    @Before
+    public void setup() {
+        system = ActorSystem.create("SearchPipelineTest");
+        executor = system.dispatcher();
+    }
+
+    @After
+    public void teardown() {
+        TestKit.shutdownActorSystem(system);
+        system = null;
+    }
+
+    private static List<Video> videos(String... ids) {
+        return List.of(ids).stream().map(MockVideoUtil::mockingVideo).collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that polls that changed nothing are dropped and changed polls come out as scored deltas.
+     *
+     * @throws Exception if the stream does not produce two deltas in time
+     */
+    @Test
+    public void testOnlyChangedPollsAreScoredAndEmitted() throws Exception {
+        YoutubeService youtubeService = mock(YoutubeService.class);
+        when(youtubeService.searchVideos("java"))
+                .thenReturn(videos("1", "2"))
+                .thenReturn(videos("1", "2"))
+                .thenReturn(videos("2", "3"));
+        Subscription subscription = new Subscription("s1", "java", 10);
+        SearchSettings settings = new SearchSettings(SearchSettings.Mode.STREAM, Duration.ofMillis(20), 1, 2);
+
+        List<SearchPipeline.ScoredDelta> deltas = new SearchPipeline(subscription)
+                .source(youtubeService, settings, executor, executor)
+                .take(2)
+                .runWith(Sink.seq(), Materializer.matFromSystem(system))
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, deltas.get(0).getScored().size());
+        assertTrue(deltas.get(0).getScored().get(0).has("fleschReadingEaseScore"));
+        SearchPipeline.ScoredDelta second = deltas.get(1);
+        assertEquals(1, second.getScored().size());
+        assertEquals("3", second.getScored().get(0).get("videoId").asText());
+        assertEquals(List.of("1"), List.copyOf(second.getDelta().getRemoved()));
+    }
+
+    /**
+     * Tests that scoring in parallel chunks keeps the order of the videos.
+     *
+     * @throws Exception if scoring does not complete in time
+     */
+    @Test
+    public void testScoringInChunksKeepsOrder() throws Exception {
+        List<Video> videos = IntStream.range(0, 7).mapToObj(i -> MockVideoUtil.mockingVideo(String.valueOf(i)))
+                .collect(Collectors.toList());
+
+        JsonNode scored = SearchPipeline.score(videos, 3, executor).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(7, scored.size());
+        for (int i = 0; i < 7; i++) {
+            assertEquals(String.valueOf(i), scored.get(i).get("videoId").asText());
+        }
+    }
+
+    /**
+     * Tests that every materialization of a pipeline diffs from the starting window on its own.
+     *
+     * @throws Exception if a run does not produce a delta in time
+     */
+    @Test
+    public void testEachRunDiffsWithItsOwnWindow() throws Exception {
+        YoutubeService youtubeService = mock(YoutubeService.class);
+        when(youtubeService.searchVideos("java")).thenReturn(videos("1", "2"));
+        SearchSettings settings = new SearchSettings(SearchSettings.Mode.STREAM, Duration.ofMillis(20), 1, 2);
+        SearchPipeline pipeline = new SearchPipeline(new Subscription("s1", "java", 10));
+
+        for (int run = 0; run < 2; run++) {
+            SearchPipeline.ScoredDelta delta = pipeline.source(youtubeService, settings, executor, executor)
+                    .runWith(Sink.head(), Materializer.matFromSystem(system))
+                    .toCompletableFuture()
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(2, delta.getScored().size());
+        }
+    }
+
+    /**
+     * Tests that a score parallelism below 1 is rejected when the settings are read.
+     */
+    @Test(expected = ConfigException.BadValue.class)
+    public void testZeroScoreParallelismIsRejected() {
+        SearchSettings.fromConfig(ConfigFactory.parseString("session.search.score-parallelism = 0")
+                .withFallback(system.settings().config()));
+    }
+}
@@ -0,0 +1,142 @@
+package actors;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.dispatch.Envelope;
+import akka.stream.QueueOfferResult;
+import akka.testkit.javadsl.TestKit;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+import services.WordStatistics;
+import services.YoutubeService;
+import test.MockVideoUtil;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link SessionMailbox}.
+ * @author Hanieh
+ */
+public class SessionMailboxTest {
+
+    private ActorSystem system;
+    private MailboxLaneStats stats;
+    private SessionMailbox.LaneQueue queue;
+
+    @Before
+    public void setup() {
+        system = ActorSystem.create("SessionMailboxTest");
+        stats = MailboxLaneStats.get(system);
+        queue = new SessionMailbox.LaneQueue(stats);
+    }
+
+    @After
+    public void teardown() {
+        TestKit.shutdownActorSystem(system);
+        system = null;
+    }
+
+    private void enqueue(Object message) {
+        queue.enqueue(ActorRef.noSender(), new Envelope(message, ActorRef.noSender()));
+    }
+
+    private static SearchActor.SearchResult result(String subscriptionId, String videoId) {
+        return new SearchActor.SearchResult(subscriptionId, "q", List.of(MockVideoUtil.mockingVideo(videoId)));
+    }
+
+    /**
+     * Tests that control messages go first, then client commands, then background updates.
+     */
+    @Test
+    public void testLanesAreServedInPriorityOrder() {
+        enqueue(result("s1", "1"));
+        enqueue(Json.newObject());
+        enqueue(new UserActor.ClientMessage("search java"));
+        enqueue(new OutboundChannel.OfferCompleted(null, QueueOfferResult.enqueued(), null));
+
+        assertEquals(4, queue.numberOfMessages());
+        assertTrue(queue.dequeue().message() instanceof OutboundChannel.OfferCompleted);
+        assertTrue(queue.dequeue().message() instanceof UserActor.ClientMessage);
+        assertTrue(queue.dequeue().message() instanceof SearchActor.SearchResult);
+        assertTrue(queue.dequeue().message() instanceof ObjectNode);
+        assertNull(queue.dequeue());
+        assertFalse(queue.hasMessages());
+        assertEquals(2, stats.getDequeued(SessionMailbox.Lane.BACKGROUND));
+    }
+
+    /**
+     * Tests that a newer search result for a subscription replaces the waiting one.
+     */
+    @Test
+    public void testNewerSearchResultSupersedesWaitingOne() {
+        enqueue(result("s1", "1"));
+        enqueue(result("s2", "2"));
+        enqueue(result("s1", "3"));
+
+        assertEquals(2, queue.numberOfMessages());
+        SearchActor.SearchResult first = (SearchActor.SearchResult) queue.dequeue().message();
+        assertEquals("s1", first.getSubscriptionId());
+        assertEquals("3", first.getVideos().get(0).getVideoId());
+        assertEquals("s2", ((SearchActor.SearchResult) queue.dequeue().message()).getSubscriptionId());
+        assertEquals(1, stats.getDropped(SessionMailbox.Lane.BACKGROUND));
+    }
+
+    /**
+     * Tests that cancelling a subscription discards its waiting search result.
+     */
+    @Test
+    public void testUnsubscribeDiscardsWaitingResult() {
+        enqueue(result("s1", "1"));
+        enqueue(new UserActor.SubscriptionCommand(UserActor.SubscriptionCommand.Action.UNSUBSCRIBE, "s1", "", 0));
+
+        assertEquals(1, queue.numberOfMessages());
+        assertTrue(queue.dequeue().message() instanceof UserActor.SubscriptionCommand);
+        assertNull(queue.dequeue());
+        assertEquals(1, stats.getDropped(SessionMailbox.Lane.BACKGROUND));
+    }
+
+    /**
+     * Tests that commands which do not supersede a subscription keep its waiting search result.
+     */
+    @Test
+    public void testWordsCommandKeepsWaitingResult() {
+        enqueue(result("s1", "1"));
+        enqueue(new UserActor.SubscriptionCommand(UserActor.SubscriptionCommand.Action.WORDS, "s1", "", 10));
+        enqueue(new UserActor.SubscriptionCommand(UserActor.SubscriptionCommand.Action.SNAPSHOT, "s1", "", 0));
+
+        assertEquals(3, queue.numberOfMessages());
+        assertTrue(queue.dequeue().message() instanceof UserActor.SubscriptionCommand);
+        assertTrue(queue.dequeue().message() instanceof UserActor.SubscriptionCommand);
+        assertEquals("s1", ((SearchActor.SearchResult) queue.dequeue().message()).getSubscriptionId());
+        assertEquals(0, stats.getDropped(SessionMailbox.Lane.BACKGROUND));
+    }
+
+    /**
+     * Tests that a session created with the configured mailbox runs on it and records queue waits.
+     */
+    @Test
+    public void testSessionRunsOnConfiguredMailbox() {
+        new TestKit(system) {{
+            SessionContext context = new SessionContext(getRef(), mock(YoutubeService.class), getRef(), getRef(),
+                    SessionSettings.fromConfig(system.settings().config()), new WordStatistics(16, 20, 1024));
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, "mailboxUser", context).withMailbox(UserActor.MAILBOX));
+
+            expectMsgClass(SupervisorActor.RegisterUserActor.class);
+            userActor.tell(new UserActor.Heartbeat(), getRef());
+            awaitAssert(() -> {
+                assertEquals(1, stats.getDequeued(SessionMailbox.Lane.INTERACTIVE));
+                return null;
+            });
+        }};
+    }
+}
@@ -3,12 +3,14 @@ package actors;
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
 import akka.actor.Props;
+import akka.testkit.TestActorRef;
 import akka.testkit.javadsl.TestKit;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import services.YoutubeService;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -113,4 +115,24 @@ public class SupervisorActorTest {
             expectNoMessage();
         }};
     }
+
+    @Test
+    public void testUnregisterUserActor() {
+        new TestKit(system) {{
+            YoutubeService mockYoutubeService = mock(YoutubeService.class);
+            TestActorRef<SupervisorActor> supervisorActor = TestActorRef.create(system, Props.create(SupervisorActor.class, mockYoutubeService));
+            ActorRef userActor = getTestActor();
+
+            supervisorActor.tell(new SupervisorActor.RegisterUserActor("testUser", userActor), getTestActor());
+            assertEquals(1, supervisorActor.underlyingActor().registeredUserCount());
+
+            // A stale unregister from another actor must not remove the entry
+            ActorRef otherActor = new TestKit(system).getRef();
+            supervisorActor.tell(new SupervisorActor.UnregisterUserActor("testUser", otherActor), getTestActor());
+            assertEquals(1, supervisorActor.underlyingActor().registeredUserCount());
+
+            supervisorActor.tell(new SupervisorActor.UnregisterUserActor("testUser", userActor), getTestActor());
+            assertEquals(0, supervisorActor.underlyingActor().registeredUserCount());
+        }};
+    }
 }
@@ -1,22 +1,44 @@
 package actors;
 
 import akka.actor.ActorRef;
+import akka.actor.ActorIdentity;
 import akka.actor.ActorSystem;
+import akka.actor.Identify;
 import akka.actor.Props;
+import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.QueueOfferResult;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
 import akka.testkit.javadsl.TestKit;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.ConfigFactory;
 import models.Video;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import play.libs.Json;
+import services.WordStatistics;
 import services.YoutubeService;
 import test.MockVideoUtil;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for {@link UserActor}.
@@ -50,6 +72,20 @@ public class UserActorTest {
         TestKit.shutdownActorSystem(system);
     }
 
+    /**
+     * Creates an outbound WebSocket queue whose frames are delivered to the given probe,
+     * which receives {@code "completed"} when the stream ends.
+     *
+     * @param probe the actor standing in for the WebSocket client
+     * @return the connection message to send to the {@link UserActor}
+     */
+    private static UserActor.ClientConnected connect(ActorRef probe) {
+        SourceQueueWithComplete<JsonNode> queue = Source.<JsonNode>queue(16, OverflowStrategy.backpressure())
+                .to(Sink.actorRef(probe, "completed"))
+                .run(Materializer.matFromSystem(system));
+        return new UserActor.ClientConnected(queue, new OutboundStats());
+    }
+
     /**
      * Tests the behavior of {@link UserActor} when processing a search query.
      * <p>
@@ -63,16 +99,19 @@ public class UserActorTest {
             YoutubeService youtubeService = mock(YoutubeService.class);
             ActorRef supervisorActor = getRef();
             String userId = "testUser";
+            ActorRef scoreRouter = system.actorOf(ScoreActor.poolProps(2));
+            TestKit channelRouter = new TestKit(system);
+            SessionContext context = new SessionContext(supervisorActor, youtubeService, scoreRouter, channelRouter.getRef(), SessionSettings.fromConfig(system.settings().config()), new WordStatistics(16, 20, 1024));
 
             // Create UserActor
-            ActorRef userActor = system.actorOf(Props.create(UserActor.class, supervisorActor, userId, youtubeService));
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, userId, context));
 
             // Handle the registration message sent to the supervisor
             expectMsgClass(SupervisorActor.RegisterUserActor.class);
 
             // Register a client actor
             ActorRef clientProbe = getRef();
-            userActor.tell(clientProbe, getRef());
+            userActor.tell(connect(clientProbe), getRef());
 
             // Act: Send a search query
             userActor.tell(new UserActor.ClientMessage("search testQuery"), getRef());
@@ -84,7 +123,7 @@ public class UserActorTest {
             );
 
             // Simulate search results being sent from SearchActor
-            userActor.tell(mockVideos, getRef());
+            userActor.tell(new SearchActor.SearchResult("testQuery", "testQuery", mockVideos), getRef());
 
             // Commented-out part causing NullPointerException
             /*
@@ -96,6 +135,193 @@ public class UserActorTest {
         }};
     }
 
+    private static SearchActor.SearchResult result(Video... videos) {
+        return new SearchActor.SearchResult("testQuery", "testQuery", List.of(videos));
+    }
+
+    /**
+     * Tests that consecutive search results reach the client as delta frames with increasing
+     * sequence numbers, and that a snapshot request returns the whole current window.
+     */
+    @Test
+    public void testSearchResultsAreSentAsDeltas() throws Exception {
+        // The search actor must not interfere: results are fed to the session by hand
+        YoutubeService youtubeService = mock(YoutubeService.class);
+        when(youtubeService.searchVideos(anyString())).thenThrow(new RuntimeException("offline"));
+
+        new TestKit(system) {{
+            TestKit supervisor = new TestKit(system);
+            TestKit client = new TestKit(system);
+            ActorRef scoreRouter = system.actorOf(ScoreActor.poolProps(2));
+            WordStatistics wordStatistics = new WordStatistics(16, 20, 1024);
+            SessionContext context = new SessionContext(supervisor.getRef(), youtubeService, scoreRouter,
+                    new TestKit(system).getRef(), SessionSettings.fromConfig(system.settings().config()), wordStatistics);
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, "deltaUser", context));
+            userActor.tell(connect(client.getRef()), getRef());
+            userActor.tell(new UserActor.ClientMessage("search testQuery"), getRef());
+            assertEquals("subscribed", client.expectMsgClass(JsonNode.class).get("type").asText());
+
+            userActor.tell(result(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2")), getRef());
+            JsonNode first = client.expectMsgClass(JsonNode.class);
+            assertEquals("delta", first.get("type").asText());
+            assertEquals(1, first.get("seq").asLong());
+            assertEquals(2, first.get("result").get("added").size());
+
+            // An unchanged window produces no frame
+            userActor.tell(result(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2")), getRef());
+            userActor.tell(result(MockVideoUtil.mockingVideo("2"), MockVideoUtil.mockingVideo("3")), getRef());
+            JsonNode second = client.expectMsgClass(JsonNode.class);
+            assertEquals(2, second.get("seq").asLong());
+            assertEquals("3", second.get("result").get("added").get(0).get("videoId").asText());
+            assertEquals("1", second.get("result").get("removed").get(0).asText());
+            assertEquals(0, second.get("result").get("changed").size());
+
+            userActor.tell(new UserActor.ClientMessage("snapshot testQuery"), getRef());
+            JsonNode snapshot = client.expectMsgClass(JsonNode.class);
+            assertEquals("snapshot", snapshot.get("type").asText());
+            assertEquals(2, snapshot.get("seq").asLong());
+            assertEquals(2, snapshot.get("result").get("videos").size());
+            assertEquals("testQuery", snapshot.get("result").get("searchQuery").asText());
+
+            // Every streamed video was counted once, for the query and globally
+            userActor.tell(new UserActor.SubscriptionCommand(UserActor.SubscriptionCommand.Action.WORDS, "testQuery", "", 5), getRef());
+            JsonNode words = client.expectMsgClass(JsonNode.class);
+            assertEquals("words", words.get("type").asText());
+            assertEquals("testQuery", words.get("query").asText());
+            assertEquals(wordStatistics.forQuery("testQuery", 5).orElseThrow(), words.get("result"));
+            assertTrue(words.get("result").get("total").asLong() > 0);
+
+            userActor.tell(new UserActor.SubscriptionCommand(UserActor.SubscriptionCommand.Action.WORDS, "", "", 5), getRef());
+            JsonNode global = client.expectMsgClass(JsonNode.class);
+            assertEquals(words.get("result"), global.get("result"));
+
+            // The scored videos went through the shared readability memo
+            userActor.tell(new UserActor.ClientMessage("stats"), getRef());
+            JsonNode stats = client.expectMsgClass(JsonNode.class);
+            assertEquals("stats", stats.get("type").asText());
+            JsonNode memo = stats.get("readabilityMemo");
+            assertTrue(memo.get("hits").asLong() + memo.get("misses").asLong() > 0);
+        }};
+    }
+
+    /**
+     * Tests the subscription commands: subscribing acknowledges the clamped limit and starts a search actor,
+     * pausing drops results, and unsubscribing stops the search actor.
+     */
+    @Test
+    public void testSubscriptionCommands() throws Exception {
+        YoutubeService youtubeService = mock(YoutubeService.class);
+        when(youtubeService.searchVideos(anyString())).thenThrow(new RuntimeException("offline"));
+
+        new TestKit(system) {{
+            TestKit client = new TestKit(system);
+            SessionSettings actorChain = SessionSettings.fromConfig(
+                    ConfigFactory.parseString("session.search.mode = actors").withFallback(system.settings().config()));
+            SessionContext context = new SessionContext(new TestKit(system).getRef(), youtubeService,
+                    new TestKit(system).getRef(), new TestKit(system).getRef(), actorChain, new WordStatistics(16, 20, 1024));
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, "subscriptionUser", context));
+            userActor.tell(connect(client.getRef()), getRef());
+
+            userActor.tell(UserActor.SubscriptionCommand.fromJson(
+                    Json.parse("{\"type\":\"subscribe\",\"id\":\"s1\",\"query\":\"java\",\"limit\":500}")), getRef());
+            JsonNode subscribed = client.expectMsgClass(JsonNode.class);
+            assertEquals("subscribed", subscribed.get("type").asText());
+            assertEquals("s1", subscribed.get("id").asText());
+            assertEquals(SearchActor.MAX_LIMIT, subscribed.get("limit").asInt());
+
+            system.actorSelection(userActor.path().child("*")).tell(new Identify("children"), getRef());
+            ActorRef searchActor = expectMsgClass(ActorIdentity.class).getActorRef().get();
+            watch(searchActor);
+
+            // A paused subscription ignores results
+            userActor.tell(UserActor.SubscriptionCommand.fromJson(Json.parse("{\"type\":\"pause\",\"id\":\"s1\"}")), getRef());
+            assertEquals("paused", client.expectMsgClass(JsonNode.class).get("type").asText());
+            expectTerminated(searchActor);
+            userActor.tell(new SearchActor.SearchResult("s1", "java", List.of(MockVideoUtil.mockingVideo("1"))), getRef());
+            client.expectNoMessage(Duration.ofMillis(200));
+
+            userActor.tell(UserActor.SubscriptionCommand.fromJson(Json.parse("{\"type\":\"unsubscribe\",\"id\":\"s1\"}")), getRef());
+            assertEquals("unsubscribed", client.expectMsgClass(JsonNode.class).get("type").asText());
+
+            // The subscription is gone
+            userActor.tell(UserActor.SubscriptionCommand.fromJson(Json.parse("{\"type\":\"resume\",\"id\":\"s1\"}")), getRef());
+            assertEquals("error", client.expectMsgClass(JsonNode.class).get("status").asText());
+        }};
+    }
+
+    /**
+     * Tests that a failed search restarts only its own subscription, leaving the others polling.
+     */
+    @Test
+    public void testRecreateRestartsOnlyFailedSubscription() throws Exception {
+        YoutubeService youtubeService = mock(YoutubeService.class);
+        when(youtubeService.searchVideos("java")).thenThrow(new RuntimeException("offline"));
+        when(youtubeService.searchVideos("scala")).thenReturn(List.of());
+
+        new TestKit(system) {{
+            TestKit client = new TestKit(system);
+            TestKit supervisor = new TestKit(system);
+            SessionSettings actorChain = SessionSettings.fromConfig(
+                    ConfigFactory.parseString("session.search.mode = actors").withFallback(system.settings().config()));
+            SessionContext context = new SessionContext(supervisor.getRef(), youtubeService,
+                    new TestKit(system).getRef(), new TestKit(system).getRef(), actorChain, new WordStatistics(16, 20, 1024));
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, "restartUser", context));
+            supervisor.expectMsgClass(SupervisorActor.RegisterUserActor.class);
+            userActor.tell(connect(client.getRef()), getRef());
+            for (String subscribe : new String[]{"{\"type\":\"subscribe\",\"id\":\"s1\",\"query\":\"java\"}",
+                    "{\"type\":\"subscribe\",\"id\":\"s2\",\"query\":\"scala\"}"}) {
+                userActor.tell(UserActor.SubscriptionCommand.fromJson(Json.parse(subscribe)), getRef());
+                assertEquals("subscribed", client.expectMsgClass(JsonNode.class).get("type").asText());
+            }
+
+            SupervisorActor.SearchActorFailure failure = supervisor.expectMsgClass(SupervisorActor.SearchActorFailure.class);
+            assertEquals("s1", failure.getSubscriptionId());
+            system.actorSelection(userActor.path().child("restartUser-SearchActor-1")).tell(new Identify("s1"), getRef());
+            ActorRef failedActor = expectMsgClass(ActorIdentity.class).getActorRef().get();
+            system.actorSelection(userActor.path().child("restartUser-SearchActor-2")).tell(new Identify("s2"), getRef());
+            ActorRef healthyActor = expectMsgClass(ActorIdentity.class).getActorRef().get();
+            watch(failedActor);
+            watch(healthyActor);
+
+            userActor.tell(new SupervisorActor.RecreateSearchActor(failure.getSubscriptionId()), getRef());
+            assertEquals(failedActor, expectTerminated(failedActor).getActor());
+            // The failed query is searched again by a new actor, the healthy one keeps its actor
+            verify(youtubeService, timeout(1000).times(2)).searchVideos("java");
+            expectNoMessage(Duration.ofMillis(200));
+        }};
+    }
+
+    /**
+     * Tests that in stream mode a subscription is polled, diffed and scored by a {@link SearchPipeline}
+     * and its first poll reaches the client as a scored delta frame.
+     */
+    @Test
+    public void testStreamModeSendsScoredDeltas() throws Exception {
+        YoutubeService youtubeService = mock(YoutubeService.class);
+        when(youtubeService.searchVideos("java"))
+                .thenReturn(List.of(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2")));
+
+        new TestKit(system) {{
+            TestKit client = new TestKit(system);
+            SessionContext context = new SessionContext(new TestKit(system).getRef(), youtubeService,
+                    new TestKit(system).getRef(), new TestKit(system).getRef(), SessionSettings.fromConfig(system.settings().config()), new WordStatistics(16, 20, 1024));
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, "streamUser", context));
+            userActor.tell(connect(client.getRef()), getRef());
+
+            userActor.tell(UserActor.SubscriptionCommand.fromJson(
+                    Json.parse("{\"type\":\"subscribe\",\"id\":\"s1\",\"query\":\"java\",\"limit\":5}")), getRef());
+            assertEquals("subscribed", client.expectMsgClass(JsonNode.class).get("type").asText());
+
+            JsonNode delta = client.expectMsgClass(Duration.ofSeconds(5), JsonNode.class);
+            assertEquals("delta", delta.get("type").asText());
+            assertEquals("s1", delta.get("id").asText());
+            assertEquals(1, delta.get("seq").asInt());
+            JsonNode added = delta.get("result").get("added");
+            assertEquals(2, added.size());
+            assertTrue(added.get(0).has("fleschKincaidGradeLevel"));
+        }};
+    }
+
     /**
      * Tests the behavior of {@link UserActor} when processing a channel query.
      * <p>
@@ -109,20 +335,27 @@ public class UserActorTest {
             YoutubeService youtubeService = mock(YoutubeService.class);
             ActorRef supervisorActor = getRef();
             String userId = "testUser";
+            ActorRef scoreRouter = system.actorOf(ScoreActor.poolProps(2));
+            TestKit channelRouter = new TestKit(system);
+            SessionContext context = new SessionContext(supervisorActor, youtubeService, scoreRouter, channelRouter.getRef(), SessionSettings.fromConfig(system.settings().config()), new WordStatistics(16, 20, 1024));
 
             // Create UserActor
-            ActorRef userActor = system.actorOf(Props.create(UserActor.class, supervisorActor, userId, youtubeService));
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, userId, context));
 
             // Handle the registration message sent to the supervisor
             expectMsgClass(SupervisorActor.RegisterUserActor.class);
 
             // Register a client actor
             ActorRef clientProbe = getRef();
-            userActor.tell(clientProbe, getRef());
+            userActor.tell(connect(clientProbe), getRef());
 
             // Act: Send a channel query
             userActor.tell(new UserActor.ClientMessage("chanel testChannelId"), getRef());
 
+            // The lookup goes to the shared channel pool
+            ChannelActor.FetchChannelProfile fetch = channelRouter.expectMsgClass(ChannelActor.FetchChannelProfile.class);
+            assertEquals("testChannelId", fetch.channelId);
+
             // Simulate a channel profile response from ChannelActor
             ChannelActor.ChannelProfileResponse mockResponse = new ChannelActor.ChannelProfileResponse(
                     new models.Channel("testChannelId", "Test Channel", "Test Description", "http://example.com/thumbnail.jpg"),
@@ -150,9 +383,12 @@ public class UserActorTest {
             YoutubeService youtubeService = mock(YoutubeService.class);
             ActorRef supervisorActor = getRef();
             String userId = "testUser";
+            ActorRef scoreRouter = system.actorOf(ScoreActor.poolProps(2));
+            TestKit channelRouter = new TestKit(system);
+            SessionContext context = new SessionContext(supervisorActor, youtubeService, scoreRouter, channelRouter.getRef(), SessionSettings.fromConfig(system.settings().config()), new WordStatistics(16, 20, 1024));
 
             // Create UserActor
-            ActorRef userActor = system.actorOf(Props.create(UserActor.class, supervisorActor, userId, youtubeService));
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, userId, context));
 
             // Handle the registration message sent to the supervisor
             expectMsgClass(SupervisorActor.RegisterUserActor.class);
@@ -164,5 +400,122 @@ public class UserActorTest {
             expectNoMessage();
         }};
     }
-}
 
+    /**
+     * Tests that an idle session does not eagerly create helper actors.
+     * <p>
+     * Scoring and channel lookups are shared pools and the {@link SearchActor} is only created
+     * on the first search, so a freshly connected session has no children.
+     * </p>
+     */
+    @Test
+    public void testIdleSessionHasNoChildren() {
+        new TestKit(system) {{
+            YoutubeService youtubeService = mock(YoutubeService.class);
+            SessionContext context = new SessionContext(getRef(), youtubeService, getRef(), getRef(), SessionSettings.fromConfig(system.settings().config()), new WordStatistics(16, 20, 1024));
+
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, "idleUser", context));
+            expectMsgClass(SupervisorActor.RegisterUserActor.class);
+
+            // Identify every child of the session: no actor should be found
+            system.actorSelection(userActor.path().child("*")).tell(new Identify("children"), getRef());
+            ActorIdentity identity = expectMsgClass(ActorIdentity.class);
+            assertFalse(identity.getActorRef().isPresent());
+        }};
+    }
+
+    /**
+     * Tests that the session stops and deregisters itself once its client stream terminates.
+     */
+    @Test
+    public void testSessionStopsWhenClientTerminates() {
+        new TestKit(system) {{
+            YoutubeService youtubeService = mock(YoutubeService.class);
+            TestKit supervisor = new TestKit(system);
+            TestKit client = new TestKit(system);
+            SessionContext context = new SessionContext(supervisor.getRef(), youtubeService, getRef(), getRef(),
+                    SessionSettings.fromConfig(system.settings().config()), new WordStatistics(16, 20, 1024));
+
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, "closingUser", context));
+            supervisor.expectMsgClass(SupervisorActor.RegisterUserActor.class);
+            UserActor.ClientConnected connection = connect(client.getRef());
+            userActor.tell(connection, getRef());
+            watch(userActor);
+
+            // Act: the client stream goes away
+            connection.getQueue().complete();
+
+            // Assert: the session stops and leaves the supervisor registry
+            expectTerminated(userActor);
+            SupervisorActor.UnregisterUserActor unregister = supervisor.expectMsgClass(SupervisorActor.UnregisterUserActor.class);
+            assertEquals("closingUser", unregister.getUserId());
+        }};
+    }
+
+    /**
+     * Tests that an offer still in flight on a replaced stream does not disturb the stream a
+     * resumed client is attached to.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testResumeIgnoresOfferOfReplacedStream() {
+        new TestKit(system) {{
+            SessionContext context = new SessionContext(getRef(), mock(YoutubeService.class), getRef(), getRef(),
+                    SessionSettings.fromConfig(system.settings().config()), new WordStatistics(16, 20, 1024));
+            CompletableFuture<QueueOfferResult> oldOffer = new CompletableFuture<>();
+            SourceQueueWithComplete<JsonNode> oldQueue = mock(SourceQueueWithComplete.class);
+            when(oldQueue.offer(any())).thenReturn(oldOffer);
+            when(oldQueue.watchCompletion()).thenReturn(new CompletableFuture<>());
+            CompletableFuture<QueueOfferResult> newOffer = new CompletableFuture<>();
+            SourceQueueWithComplete<JsonNode> newQueue = mock(SourceQueueWithComplete.class);
+            when(newQueue.offer(any())).thenReturn(newOffer, CompletableFuture.completedFuture(QueueOfferResult.enqueued()));
+            when(newQueue.watchCompletion()).thenReturn(new CompletableFuture<>());
+
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, "resumingUser", context));
+            expectMsgClass(SupervisorActor.RegisterUserActor.class);
+            userActor.tell(new UserActor.ClientConnected(oldQueue, new OutboundStats(), true), getRef());
+            userActor.tell(new UserActor.ClientMessage("stats"), getRef());
+            verify(oldQueue, timeout(1000)).offer(any());
+
+            // The client resumes on a new stream while the old offer is still pending
+            userActor.tell(new UserActor.ClientConnected(newQueue, new OutboundStats(), true), getRef());
+            userActor.tell(new UserActor.ClientMessage("stats"), getRef());
+            verify(newQueue, timeout(1000)).offer(any());
+            userActor.tell(new UserActor.ClientMessage("stats"), getRef());
+            verify(oldQueue, timeout(1000)).complete();
+
+            // The old stream closes: neither a concurrent offer nor a lost frame on the new one
+            oldOffer.complete(QueueOfferResult.QueueClosed$.MODULE$);
+            verify(newQueue, after(300).times(1)).offer(any());
+
+            newOffer.complete(QueueOfferResult.enqueued());
+            verify(newQueue, timeout(1000).times(2)).offer(any());
+        }};
+    }
+
+    /**
+     * Tests that a session whose client stays silent past the idle timeout is stopped
+     * and completes the client stream.
+     */
+    @Test
+    public void testIdleSessionIsStopped() {
+        new TestKit(system) {{
+            YoutubeService youtubeService = mock(YoutubeService.class);
+            TestKit client = new TestKit(system);
+            SessionSettings settings = new SessionSettings(Duration.ofSeconds(10), Duration.ofMillis(200), Duration.ofMillis(50), 16, 32, Duration.ZERO, 1, 8,
+                    SearchSettings.fromConfig(system.settings().config()));
+            SessionContext context = new SessionContext(getRef(), youtubeService, getRef(), getRef(), settings, new WordStatistics(16, 20, 1024));
+            // Materialize the client stream first, so the session is connected well within its idle timeout
+            UserActor.ClientConnected connected = connect(client.getRef());
+
+            ActorRef userActor = system.actorOf(Props.create(UserActor.class, "idleUser", context));
+            expectMsgClass(SupervisorActor.RegisterUserActor.class);
+            userActor.tell(connected, getRef());
+            watch(userActor);
+
+            expectMsgClass(Duration.ofSeconds(3), SupervisorActor.UnregisterUserActor.class);
+            expectTerminated(userActor);
+            client.expectMsgEquals("completed");
+        }};
+    }
+}
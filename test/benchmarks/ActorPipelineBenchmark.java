@@ -0,0 +1,301 @@
+package benchmarks;
+
+import actors.ChannelActor;
+import actors.OutboundStats;
+import actors.ScoreActor;
+import actors.SessionContext;
+import actors.SessionSettings;
+import actors.SupervisorActor;
+import actors.UserActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import services.WordStatistics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the {@code UserActor} &rarr; {@code SearchActor} &rarr; {@code ScoreActor} chain under many sessions.
+ * <p>
+ * The benchmark starts the real actor graph in {@code actors} search mode against a
+ * {@link FakeYoutubeService} with the given latency, and attaches {@code N} sessions directly to
+ * their outbound queues, without WebSocket framing. Each session runs a closed loop: it subscribes to
+ * a new query, waits for the scored results of that query and then replaces it with the next one.
+ * Polling is effectively off, so all load comes from the searches the sessions issue.
+ * </p>
+ * <p>
+ * It reports completed searches and messages (commands sent plus frames received) per second, the
+ * end-to-end latency from subscribing to receiving the scored results, the retained heap per session
+ * when idle and after the run, and the saturation of every dispatcher: the share of its threads found
+ * busy, i.e. not parked waiting for work, sampled every {@value #SAMPLE_MILLIS} ms.
+ * </p>
+ * Run with:
+ * <pre>
+ *     sbt "Test/runMain benchmarks.ActorPipelineBenchmark 2000 10 50"
+ * </pre>
+ * (sessions, measured seconds, upstream latency in milliseconds).
+ * @author Hanieh
+ */
+public class ActorPipelineBenchmark {
+    private static final String SYSTEM_NAME = "ActorPipelineBenchmark";
+    private static final long SAMPLE_MILLIS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+
+        Config config = ConfigFactory.parseString("session.search.mode = actors\nsession.search.poll-interval = 1 hour")
+                .withFallback(ConfigFactory.load());
+        ActorSystem system = ActorSystem.create(SYSTEM_NAME, config);
+        Materializer materializer = Materializer.matFromSystem(system);
+        FakeYoutubeService youtubeService = new FakeYoutubeService(latencyMillis, 10);
+
+        ActorRef supervisor = system.actorOf(Props.create(SupervisorActor.class, youtubeService), "supervisor-actor");
+        ActorRef scoreRouter = system.actorOf(ScoreActor.poolProps(0), "score-router");
+        ActorRef channelRouter = system.actorOf(ChannelActor.poolProps(ChannelActor.props(youtubeService), 8), "channel-router");
+        SessionContext context = new SessionContext(supervisor, youtubeService, scoreRouter, channelRouter,
+                SessionSettings.fromConfig(config), new WordStatistics(256, 50, 65_536));
+
+        long baseline = settledHeap();
+
+        Stats stats = new Stats();
+        List<Session> sessions = new ArrayList<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            String userId = "Bench-" + i;
+            ActorRef userActor = system.actorOf(
+                    Props.create(UserActor.class, () -> new UserActor(userId, context)).withMailbox(UserActor.MAILBOX),
+                    "UserActor-" + userId);
+            Session session = new Session(i, userActor, stats);
+            SourceQueueWithComplete<JsonNode> queue = Source.<JsonNode>queue(
+                            context.getSettings().getOutboundBufferSize(), OverflowStrategy.backpressure())
+                    .toMat(Sink.foreach(session::onFrame), Keep.left())
+                    .run(materializer);
+            userActor.tell(new UserActor.ClientConnected(queue, new OutboundStats()), ActorRef.noSender());
+            session.queue = queue;
+            sessions.add(session);
+        }
+
+        long idle = settledHeap();
+        reportHeap("idle", sessionCount, idle - baseline);
+
+        sessions.forEach(Session::issue);
+
+        // Warm up, then measure from a clean slate
+        Thread.sleep(3000);
+        stats.reset();
+        DispatcherSampler sampler = new DispatcherSampler();
+        sampler.start();
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        sampler.interrupt();
+        sampler.join();
+        stats.report(sessionCount, elapsed);
+        sampler.report();
+
+        sessions.forEach(session -> session.running = false);
+        long active = settledHeap();
+        reportHeap("active", sessionCount, active - baseline);
+
+        sessions.forEach(session -> session.queue.complete());
+        system.terminate();
+        system.getWhenTerminated().toCompletableFuture().get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Lets in-flight work finish, runs a few full collections and returns the used heap.
+     *
+     * @return the used heap in bytes
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static long settledHeap() throws InterruptedException {
+        Thread.sleep(3000);
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static void reportHeap(String label, int sessions, long bytes) {
+        System.out.printf("[ActorPipelineBenchmark] heap %-6s sessions=%d heap=%.1f MiB bytes/session=%d%n",
+                label, sessions, bytes / (1024.0 * 1024.0), bytes / sessions);
+    }
+
+    /**
+     * One simulated client, issuing its next search as soon as the previous one has been answered.
+     */
+    private static class Session {
+        private final int index;
+        private final ActorRef userActor;
+        private final Stats stats;
+        private volatile SourceQueueWithComplete<JsonNode> queue;
+        private volatile boolean running = true;
+        private int searches;
+        private String currentId;
+        private long issuedAt;
+
+        Session(int index, ActorRef userActor, Stats stats) {
+            this.index = index;
+            this.userActor = userActor;
+            this.stats = stats;
+        }
+
+        synchronized void issue() {
+            if (currentId != null) {
+                send(new UserActor.SubscriptionCommand(UserActor.SubscriptionCommand.Action.UNSUBSCRIBE, currentId, "", 0));
+            }
+            currentId = "r" + searches;
+            issuedAt = System.nanoTime();
+            send(new UserActor.SubscriptionCommand(UserActor.SubscriptionCommand.Action.SUBSCRIBE, currentId,
+                    "topic " + index + " " + searches++, 10));
+        }
+
+        private void send(UserActor.SubscriptionCommand command) {
+            stats.messages.increment();
+            userActor.tell(command, ActorRef.noSender());
+        }
+
+        void onFrame(JsonNode frame) {
+            stats.messages.increment();
+            String type = frame.path("type").asText();
+            if (!"delta".equals(type) && !"snapshot".equals(type)) {
+                return;
+            }
+            synchronized (this) {
+                if (!frame.path("id").asText().equals(currentId)) {
+                    return;
+                }
+                stats.completed(System.nanoTime() - issuedAt);
+                currentId = null;
+            }
+            if (running) {
+                issue();
+            }
+        }
+    }
+
+    /**
+     * Counters shared by all sessions.
+     */
+    private static class Stats {
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final LongAdder messages = new LongAdder();
+        private final LongAdder searches = new LongAdder();
+
+        void completed(long latencyNanos) {
+            searches.increment();
+            latencies.add(latencyNanos);
+        }
+
+        void reset() {
+            latencies.clear();
+            messages.reset();
+            searches.reset();
+        }
+
+        void report(int sessions, double seconds) {
+            List<Long> sorted;
+            synchronized (latencies) {
+                sorted = new ArrayList<>(latencies);
+            }
+            Collections.sort(sorted);
+            System.out.printf("[ActorPipelineBenchmark] sessions=%d searches/s=%.0f msgs/s=%.0f"
+                            + " latency p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                    sessions, searches.sum() / seconds, messages.sum() / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(List<Long> sorted, double quantile) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+            return sorted.get(Math.max(index, 0)) / 1e6;
+        }
+    }
+
+    /**
+     * Samples the threads of every dispatcher of the actor system and counts those not parked waiting
+     * for work. A thread blocked in a simulated upstream call sleeps rather than parks, so it is busy.
+     */
+    private static class DispatcherSampler extends Thread {
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final Map<String, long[]> usage = new TreeMap<>();
+        private int samples;
+
+        DispatcherSampler() {
+            super("dispatcher-sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    sample();
+                    Thread.sleep(SAMPLE_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                // Measurement over
+            }
+        }
+
+        private void sample() {
+            Map<String, int[]> counts = new TreeMap<>();
+            for (ThreadInfo info : threads.dumpAllThreads(false, false, 1)) {
+                String name = info.getThreadName();
+                if (!name.startsWith(SYSTEM_NAME + "-") || !name.contains("dispatcher")) {
+                    continue;
+                }
+                String dispatcher = name.substring(SYSTEM_NAME.length() + 1).replaceAll("-\\d+$", "");
+                int[] count = counts.computeIfAbsent(dispatcher, key -> new int[2]);
+                count[0]++;
+                if (!isParked(info)) {
+                    count[1]++;
+                }
+            }
+            samples++;
+            counts.forEach((dispatcher, count) -> {
+                // threads, busy threads, peak busy threads
+                long[] total = usage.computeIfAbsent(dispatcher, key -> new long[3]);
+                total[0] += count[0];
+                total[1] += count[1];
+                total[2] = Math.max(total[2], count[1]);
+            });
+        }
+
+        private static boolean isParked(ThreadInfo info) {
+            StackTraceElement[] stack = info.getStackTrace();
+            Thread.State state = info.getThreadState();
+            return (state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING)
+                    && stack.length > 0 && stack[0].getMethodName().equals("park");
+        }
+
+        void report() {
+            usage.forEach((dispatcher, total) -> System.out.printf(
+                    "[ActorPipelineBenchmark] dispatcher=%s threads=%.1f busy=%.1f saturation=%.0f%% peak=%d%n",
+                    dispatcher, (double) total[0] / samples, (double) total[1] / samples,
+                    total[0] == 0 ? 0.0 : 100.0 * total[1] / total[0], total[2]));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package benchmarks;
+
+import com.typesafe.config.ConfigFactory;
+import models.Channel;
+import models.Video;
+import play.api.Configuration;
+import services.YoutubeService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * In-memory stand-in for {@link YoutubeService} used by the benchmark harnesses.
+ * <p>
+ * Every call sleeps for a configurable latency to mimic the upstream API and then returns
+ * generated videos with realistic description lengths, so no network access or API quota is needed.
+ * </p>
+ * @author Hanieh
+ */
+public class FakeYoutubeService extends YoutubeService {
+
+    private static final String[] SENTENCES = {
+            "In this video we walk through the whole setup step by step.",
+            "Don't forget to like and subscribe for more content every week.",
+            "Timestamps are listed below so you can jump straight to the interesting parts.",
+            "Our sponsor helped make this episode possible, check the link for a discount.",
+            "Let us know in the comments what you would like to see next time!",
+            "This is an experimental format, so feedback is extremely appreciated."
+    };
+
+    private final long latencyMillis;
+    private final int videosPerSearch;
+
+    /**
+     * Creates a fake service.
+     *
+     * @param latencyMillis   simulated upstream latency applied to every call, in milliseconds
+     * @param videosPerSearch number of videos returned by {@link #searchVideos(String)}
+     */
+    public FakeYoutubeService(long latencyMillis, int videosPerSearch) {
+        super(new Configuration(ConfigFactory.parseString(
+                "youtube.api.key = \"fake\"\n"
+                        + "youtube.search.url = \"http://localhost/search\"\n"
+                        + "youtube.channel.profile.url = \"http://localhost/channels\"\n"
+                        + "video.count = " + videosPerSearch)));
+        this.latencyMillis = latencyMillis;
+        this.videosPerSearch = videosPerSearch;
+    }
+
+    @Override
+    public List<Video> searchVideos(String keyword) {
+        simulateLatency();
+        return generateVideos(keyword, videosPerSearch);
+    }
+
+    @Override
+    public Channel getChannelProfile(String channelId) {
+        simulateLatency();
+        return new Channel(channelId, "Channel " + channelId, SENTENCES[0], "http://example.com/" + channelId + ".jpg");
+    }
+
+    @Override
+    public List<Video> searchVideosByChannel(String channelId, int count) {
+        simulateLatency();
+        return generateVideos(channelId, count);
+    }
+
+    /**
+     * Generates a deterministic list of videos for a keyword.
+     *
+     * @param keyword the keyword the videos belong to
+     * @param count   the number of videos to generate
+     * @return the generated videos
+     */
+    public static List<Video> generateVideos(String keyword, int count) {
+        List<Video> videos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int s = 0; s < 3 + (i % 4); s++) {
+                description.append(SENTENCES[(i + s) % SENTENCES.length]).append(' ');
+            }
+            String videoId = keyword.hashCode() + "-" + i;
+            videos.add(new Video("http://example.com/" + videoId + ".jpg",
+                    "Video &amp; tutorial " + i + " about " + keyword,
+                    "Channel " + (i % 5),
+                    description.toString().trim(),
+                    videoId,
+                    "channel-" + (i % 5),
+                    Arrays.asList("tag" + i, keyword)));
+        }
+        return videos;
+    }
+
+    /**
+     * Sleeps for the configured latency.
+     */
+    protected void simulateLatency() {
+        if (latencyMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
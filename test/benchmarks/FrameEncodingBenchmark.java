@@ -0,0 +1,62 @@
+package benchmarks;
+
+import actors.ResultWindow;
+import com.fasterxml.jackson.databind.JsonNode;
+import play.libs.Json;
+import utils.FrameEncoding;
+import utils.ReadabilityCalculator;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/**
+ * Compares the WebSocket frame encodings side by side on a scored 10-video result.
+ * <p>
+ * For every {@link FrameEncoding} the benchmark reports the bytes on the wire and the CPU time
+ * spent per encode and per decode, measured with the thread CPU clock after a warm-up.
+ * </p>
+ * Run with:
+ * <pre>
+ *     sbt "Test/runMain benchmarks.FrameEncodingBenchmark 200000"
+ * </pre>
+ * @author Hanieh
+ */
+public class FrameEncodingBenchmark {
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        List<models.Video> videos = ReadabilityCalculator.calculateReadabilityScores(FakeYoutubeService.generateVideos("java", 10));
+        ResultWindow window = new ResultWindow("java");
+        ResultWindow.Delta delta = window.diff(videos);
+        JsonNode frame = window.apply(delta, Json.toJson(delta.getUpserts()));
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long sink = 0;
+        for (FrameEncoding encoding : FrameEncoding.values()) {
+            byte[] encoded = encoding.encode(frame);
+
+            // Warm-up
+            for (int i = 0; i < iterations / 5; i++) {
+                sink += encoding.encode(frame).length + encoding.decode(encoded).size();
+            }
+
+            long start = threads.getCurrentThreadCpuTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += encoding.encode(frame).length;
+            }
+            long encodeNanos = threads.getCurrentThreadCpuTime() - start;
+
+            start = threads.getCurrentThreadCpuTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += encoding.decode(encoded).size();
+            }
+            long decodeNanos = threads.getCurrentThreadCpuTime() - start;
+
+            System.out.printf("[FrameEncodingBenchmark] %-5s bytes=%5d encode=%6.2f us/op decode=%6.2f us/op%n",
+                    encoding, encoded.length, encodeNanos / 1000.0 / iterations, decodeNanos / 1000.0 / iterations);
+        }
+        System.out.println("[FrameEncodingBenchmark] checksum " + sink);
+    }
+}
@@ -0,0 +1,206 @@
+package benchmarks;
+
+import actors.ChannelActor;
+import actors.ScoreActor;
+import actors.SupervisorActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import controllers.WebSocketController;
+import models.Video;
+import play.http.websocket.Message;
+import play.libs.F;
+import play.libs.Json;
+import play.mvc.Result;
+import services.WordStatistics;
+import utils.ReadabilityMemo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static play.test.Helpers.fakeRequest;
+
+/**
+ * Compares the end-to-end latency and throughput of the two search modes of a session,
+ * the {@code SearchActor}/{@code ScoreActor} chain and the {@code SearchPipeline} stream graph.
+ * <p>
+ * For each mode the benchmark opens {@code N} in-process WebSocket flows through
+ * {@link WebSocketController#stream()}, subscribes each to its own query and lets them poll a
+ * {@link FakeYoutubeService} whose window slides by one video per search. Latency is measured from
+ * the search returning a new video to the client receiving it; throughput counts the delta frames
+ * and videos clients received.
+ * </p>
+ * Run with:
+ * <pre>
+ *     sbt "Test/runMain benchmarks.PipelineBenchmark 500 10 100"
+ * </pre>
+ * (sessions, measured seconds, poll interval in milliseconds).
+ * @author Hanieh
+ */
+public class PipelineBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int pollMillis = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        for (String mode : new String[]{"actors", "stream"}) {
+            run(mode, sessions, seconds, pollMillis);
+        }
+    }
+
+    private static void run(String mode, int sessions, int seconds, int pollMillis) throws Exception {
+        Config config = ConfigFactory.parseString("session.search.mode = " + mode
+                        + "\nsession.search.poll-interval = " + pollMillis + " milliseconds")
+                .withFallback(ConfigFactory.load());
+        ActorSystem system = ActorSystem.create("PipelineBenchmark", config);
+        Materializer materializer = Materializer.matFromSystem(system);
+        SlidingYoutubeService youtubeService = new SlidingYoutubeService(2, 10);
+
+        ActorRef supervisor = system.actorOf(Props.create(SupervisorActor.class, youtubeService), "supervisor-actor");
+        ActorRef scoreRouter = system.actorOf(ScoreActor.poolProps(0), "score-router");
+        ActorRef channelRouter = system.actorOf(ChannelActor.poolProps(ChannelActor.props(youtubeService), 8), "channel-router");
+        WebSocketController controller = new WebSocketController(system, materializer, supervisor, scoreRouter, channelRouter, youtubeService, new WordStatistics(256, 50, 65_536));
+
+        Client client = new Client(youtubeService);
+        List<SourceQueueWithComplete<Message>> connections = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            F.Either<Result, Flow<Message, Message, ?>> accepted = controller.stream()
+                    .apply(fakeRequest().build())
+                    .toCompletableFuture()
+                    .get(5, TimeUnit.SECONDS);
+            Flow<Message, Message, ?> flow = accepted.right.orElseThrow(() -> new IllegalStateException("WebSocket rejected"));
+            SourceQueueWithComplete<Message> connection = Source.<Message>queue(4, OverflowStrategy.backpressure())
+                    .via(flow)
+                    .toMat(Sink.foreach(client::onMessage), Keep.left())
+                    .run(materializer);
+            connection.offer(new Message.Text("{\"type\":\"subscribe\",\"id\":\"s\",\"query\":\"topic " + i + "\",\"limit\":10}"));
+            connections.add(connection);
+        }
+
+        // Warm up, then measure from a clean slate
+        Thread.sleep(3000);
+        client.reset();
+        long searchesBefore = youtubeService.searches.sum();
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        client.report(mode, sessions, elapsed, youtubeService.searches.sum() - searchesBefore);
+
+        connections.forEach(SourceQueueWithComplete::complete);
+        system.terminate();
+        system.getWhenTerminated().toCompletableFuture().get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * A fake service whose result window for a query moves on by one video on every search,
+     * remembering when each new video was returned.
+     */
+    private static class SlidingYoutubeService extends FakeYoutubeService {
+        private final int videosPerSearch;
+        private final Map<String, AtomicInteger> offsets = new ConcurrentHashMap<>();
+        private final Map<String, Long> returnedAt = new ConcurrentHashMap<>();
+        private final LongAdder searches = new LongAdder();
+
+        SlidingYoutubeService(long latencyMillis, int videosPerSearch) {
+            super(latencyMillis, videosPerSearch);
+            this.videosPerSearch = videosPerSearch;
+        }
+
+        @Override
+        public List<Video> searchVideos(String keyword) {
+            simulateLatency();
+            int offset = offsets.computeIfAbsent(keyword, k -> new AtomicInteger()).getAndIncrement();
+            List<Video> window = FakeYoutubeService.generateVideos(keyword, offset + videosPerSearch)
+                    .subList(offset, offset + videosPerSearch);
+            long now = System.nanoTime();
+            window.forEach(video -> returnedAt.putIfAbsent(video.getVideoId(), now));
+            searches.increment();
+            return new ArrayList<>(window);
+        }
+    }
+
+    /**
+     * The receiving side of all connections.
+     */
+    private static class Client {
+        private final SlidingYoutubeService youtubeService;
+        private final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        private final LongAdder frames = new LongAdder();
+        private final LongAdder videos = new LongAdder();
+
+        Client(SlidingYoutubeService youtubeService) {
+            this.youtubeService = youtubeService;
+        }
+
+        void onMessage(Message message) {
+            if (!(message instanceof Message.Text)) {
+                return;
+            }
+            long now = System.nanoTime();
+            JsonNode frame = Json.parse(((Message.Text) message).data());
+            if ("batch".equals(frame.path("type").asText())) {
+                frame.path("frames").forEach(inner -> onFrame(inner, now));
+            } else {
+                onFrame(frame, now);
+            }
+        }
+
+        private void onFrame(JsonNode frame, long now) {
+            if (!"delta".equals(frame.path("type").asText())) {
+                return;
+            }
+            frames.increment();
+            for (JsonNode video : frame.path("result").path("added")) {
+                videos.increment();
+                Long returnedAt = youtubeService.returnedAt.remove(video.path("videoId").asText());
+                if (returnedAt != null) {
+                    latencies.add(now - returnedAt);
+                }
+            }
+        }
+
+        void reset() {
+            latencies.clear();
+            frames.reset();
+            videos.reset();
+        }
+
+        void report(String mode, int sessions, double seconds, long searches) {
+            List<Long> sorted;
+            synchronized (latencies) {
+                sorted = new ArrayList<>(latencies);
+            }
+            Collections.sort(sorted);
+            System.out.printf("[PipelineBenchmark] mode=%-6s sessions=%d searches/s=%.0f frames/s=%.0f videos/s=%.0f"
+                            + " latency p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                    mode, sessions, searches / seconds, frames.sum() / seconds, videos.sum() / seconds,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+            System.out.println("[PipelineBenchmark] readability memo " + ReadabilityMemo.shared().report());
+        }
+
+        private static double percentile(List<Long> sorted, double quantile) {
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+            return sorted.get(Math.max(index, 0)) / 1e6;
+        }
+    }
+}
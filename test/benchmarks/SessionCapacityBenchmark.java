@@ -0,0 +1,106 @@
+package benchmarks;
+
+import actors.ChannelActor;
+import actors.ScoreActor;
+import actors.SupervisorActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.stream.Materializer;
+import akka.stream.OverflowStrategy;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Keep;
+import akka.stream.javadsl.Sink;
+import akka.stream.javadsl.Source;
+import akka.stream.javadsl.SourceQueueWithComplete;
+import controllers.WebSocketController;
+import play.http.websocket.Message;
+import play.libs.F;
+import play.mvc.Result;
+import services.WordStatistics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static play.test.Helpers.fakeRequest;
+
+/**
+ * Measures the heap cost of WebSocket sessions.
+ * <p>
+ * The benchmark opens {@code N} in-process WebSocket flows through {@link WebSocketController#stream()}
+ * against a {@link FakeYoutubeService}, then reports the retained heap per idle connection and, after
+ * every connection issued one search, per active connection.
+ * </p>
+ * Run with:
+ * <pre>
+ *     sbt "Test/runMain benchmarks.SessionCapacityBenchmark 20000"
+ * </pre>
+ * @author Hanieh
+ */
+public class SessionCapacityBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+
+        ActorSystem system = ActorSystem.create("SessionCapacityBenchmark");
+        Materializer materializer = Materializer.matFromSystem(system);
+        FakeYoutubeService youtubeService = new FakeYoutubeService(0, 10);
+
+        ActorRef supervisor = system.actorOf(Props.create(SupervisorActor.class, youtubeService), "supervisor-actor");
+        ActorRef scoreRouter = system.actorOf(ScoreActor.poolProps(0), "score-router");
+        ActorRef channelRouter = system.actorOf(ChannelActor.poolProps(ChannelActor.props(youtubeService), 8), "channel-router");
+        WebSocketController controller = new WebSocketController(system, materializer, supervisor, scoreRouter, channelRouter, youtubeService, new WordStatistics(256, 50, 65_536));
+
+        long baseline = settledHeap();
+
+        List<SourceQueueWithComplete<Message>> connections = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            F.Either<Result, Flow<Message, Message, ?>> accepted = controller.stream()
+                    .apply(fakeRequest().build())
+                    .toCompletableFuture()
+                    .get(5, TimeUnit.SECONDS);
+            Flow<Message, Message, ?> flow = accepted.right.orElseThrow(() -> new IllegalStateException("WebSocket rejected"));
+            connections.add(Source.<Message>queue(4, OverflowStrategy.backpressure())
+                    .via(flow)
+                    .toMat(Sink.ignore(), Keep.left())
+                    .run(materializer));
+        }
+
+        long idle = settledHeap();
+        report("idle", sessions, idle - baseline);
+
+        for (int i = 0; i < connections.size(); i++) {
+            connections.get(i).offer(new Message.Text("{\"query\":\"search topic " + (i % 100) + "\"}"));
+        }
+
+        long active = settledHeap();
+        report("active", sessions, active - baseline);
+
+        connections.forEach(SourceQueueWithComplete::complete);
+        system.terminate();
+    }
+
+    /**
+     * Lets in-flight work finish, runs a few full collections and returns the used heap.
+     *
+     * @return the used heap in bytes
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private static long settledHeap() throws InterruptedException {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Thread.sleep(3000);
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void report(String label, int sessions, long bytes) {
+        System.out.printf("[SessionCapacityBenchmark] %-6s sessions=%d heap=%.1f MiB bytes/connection=%d%n",
+                label, sessions, bytes / (1024.0 * 1024.0), bytes / sessions);
+    }
+}
@@ -0,0 +1,391 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import play.Application;
+import play.inject.guice.GuiceApplicationBuilder;
+import play.libs.Json;
+import play.test.Helpers;
+import play.test.TestServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Opens many concurrent WebSocket connections to {@code /ws/stream/} and replays a script of search
+ * and channel commands on each of them.
+ * <p>
+ * For every command that expects an answer it records the time until the first result frame: the
+ * first {@code delta} or {@code snapshot} of a subscription, or the channel profile. It also counts
+ * frames received, deltas the server dropped (a delta whose {@code baseSeq} skips past the last
+ * sequence number received), deltas the server merged into a later one while the client was behind
+ * ({@code seq - baseSeq} of a merged delta), commands left unanswered for {@value #TIMEOUT_SECONDS} seconds and connections closed by the
+ * server, and prints the latencies as HDR histograms.
+ * </p>
+ * <p>
+ * By default it starts the application in-process on a free port, pointed at a {@link YoutubeStandIn},
+ * so it runs offline. Given a WebSocket URL instead, it loads an application started separately,
+ * e.g. against a standalone {@link YoutubeStandIn}.
+ * </p>
+ * <p>
+ * A script has one command per line, where {@code {conn}} is replaced by the index of the connection
+ * and {@code {iter}} by the number of times the script was replayed on it:
+ * </p>
+ * <pre>
+ *     subscribe &lt;id&gt; &lt;query&gt;   subscribes and waits for the first results of the query
+ *     channel &lt;channelId&gt;       requests a channel profile and waits for it
+ *     unsubscribe &lt;id&gt;          cancels a subscription
+ *     wait &lt;milliseconds&gt;       pauses the script
+ * </pre>
+ * Run with:
+ * <pre>
+ *     sbt "Test/runMain benchmarks.WebSocketLoadGenerator 2000 30 50"
+ *     sbt "Test/runMain benchmarks.WebSocketLoadGenerator 2000 30 0 ws://localhost:9000/ws/stream/ script.txt"
+ * </pre>
+ * (connections, measured seconds, stand-in latency in milliseconds, then optionally the WebSocket
+ * URL or {@code local}, and a script file).
+ * @author Hanieh
+ */
+public class WebSocketLoadGenerator {
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final int CONNECT_BATCH = 100;
+
+    private static final List<String> DEFAULT_SCRIPT = List.of(
+            "subscribe s1 load test {conn}",
+            "wait 1000",
+            "channel UC{conn}",
+            "wait 1000",
+            "subscribe s2 topic {conn} {iter}",
+            "wait 3000",
+            "unsubscribe s2");
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        long latencyMillis = args.length > 2 ? Long.parseLong(args[2]) : 50;
+        String target = args.length > 3 ? args[3] : "local";
+        List<String> script = args.length > 4 ? Files.readAllLines(Paths.get(args[4])) : DEFAULT_SCRIPT;
+        script = script.stream().map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .collect(Collectors.toList());
+
+        YoutubeStandIn standIn = null;
+        TestServer server = null;
+        URI uri;
+        if ("local".equals(target)) {
+            standIn = new YoutubeStandIn(0, latencyMillis);
+            standIn.start();
+            Map<String, Object> settings = new HashMap<>();
+            settings.put("youtube.search.url", standIn.getSearchUrl());
+            settings.put("youtube.channel.profile.url", standIn.getChannelsUrl());
+            settings.put("session.search.poll-interval", "5 seconds");
+            Application application = new GuiceApplicationBuilder().configure(settings).build();
+            int port = freePort();
+            server = Helpers.testServer(port, application);
+            server.start();
+            uri = URI.create("ws://localhost:" + port + "/ws/stream/");
+        } else {
+            uri = URI.create(target);
+        }
+        System.out.println("[WebSocketLoadGenerator] Loading " + uri + " with " + connections + " connections");
+
+        Stats stats = new Stats();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(16);
+        HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+
+        List<Connection> open = new ArrayList<>(connections);
+        for (int from = 0; from < connections; from += CONNECT_BATCH) {
+            List<CompletableFuture<Connection>> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(from + CONNECT_BATCH, connections); i++) {
+                Connection connection = new Connection(i, script, scheduler, stats);
+                batch.add(client.newWebSocketBuilder()
+                        .connectTimeout(Duration.ofSeconds(TIMEOUT_SECONDS))
+                        .buildAsync(uri, connection)
+                        .thenApply(socket -> connection)
+                        .exceptionally(e -> {
+                            if (stats.connectFailures.sum() == 0) {
+                                System.err.println("[WebSocketLoadGenerator] Connection failed: " + e);
+                            }
+                            stats.connectFailures.increment();
+                            return null;
+                        }));
+            }
+            batch.forEach(future -> {
+                Connection connection = future.join();
+                if (connection != null) {
+                    open.add(connection);
+                }
+            });
+        }
+        System.out.println("[WebSocketLoadGenerator] Connected " + open.size() + " of " + connections);
+
+        // Start the scripts only once every connection is open, spread over a second
+        for (int i = 0; i < open.size(); i++) {
+            scheduler.schedule(open.get(i)::next, 1000L * i / open.size(), TimeUnit.MILLISECONDS);
+        }
+
+        // Measure from a clean slate once every script has run its first commands
+        Thread.sleep(3000);
+        stats.reset();
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        // Printed once the application has stopped, so its logging does not interleave
+        String summary = stats.summary(open.size(), elapsed);
+
+        open.forEach(Connection::close);
+        scheduler.shutdownNow();
+        if (server != null) {
+            server.stop();
+        }
+        if (standIn != null) {
+            standIn.stop();
+        }
+        clientExecutor.shutdownNow();
+        System.out.print(summary);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * One connection replaying the script; all its state is guarded by its own lock.
+     */
+    private static class Connection implements WebSocket.Listener {
+        private final int index;
+        private final List<String> script;
+        private final ScheduledExecutorService scheduler;
+        private final Stats stats;
+        private final StringBuilder partial = new StringBuilder();
+        private final Map<String, Long> lastSeq = new HashMap<>();
+        // A send may only start once the previous one has completed
+        private CompletableFuture<WebSocket> sending;
+        private int step;
+        private int iteration;
+        private boolean closing;
+        // The command waiting for its first result: "sub:<id>" or "channel"
+        private String awaiting;
+        private long sentAt;
+        private ScheduledFuture<?> timeout;
+
+        Connection(int index, List<String> script, ScheduledExecutorService scheduler, Stats stats) {
+            this.index = index;
+            this.script = script;
+            this.scheduler = scheduler;
+            this.stats = stats;
+        }
+
+        @Override
+        public synchronized void onOpen(WebSocket webSocket) {
+            this.sending = CompletableFuture.completedFuture(webSocket);
+            webSocket.request(1);
+        }
+
+        /**
+         * Runs the script from the current step until a command waits for an answer or a pause.
+         */
+        synchronized void next() {
+            while (!closing) {
+                if (step == script.size()) {
+                    step = 0;
+                    iteration++;
+                }
+                String[] command = script.get(step++)
+                        .replace("{conn}", String.valueOf(index))
+                        .replace("{iter}", String.valueOf(iteration))
+                        .split("\\s+", 3);
+                switch (command[0]) {
+                    case "subscribe":
+                        lastSeq.remove(command[1]);
+                        send(Json.newObject().put("type", "subscribe").put("id", command[1])
+                                .put("query", command[2]).put("limit", 10));
+                        await("sub:" + command[1]);
+                        return;
+                    case "channel":
+                        send(Json.newObject().put("query", "chanel " + command[1]));
+                        await("channel");
+                        return;
+                    case "unsubscribe":
+                        send(Json.newObject().put("type", "unsubscribe").put("id", command[1]));
+                        break;
+                    case "wait":
+                        scheduler.schedule(this::next, Long.parseLong(command[1]), TimeUnit.MILLISECONDS);
+                        return;
+                    default:
+                        throw new IllegalArgumentException("Unknown script command: " + command[0]);
+                }
+            }
+        }
+
+        private void send(JsonNode command) {
+            stats.commands.increment();
+            String text = Json.stringify(command);
+            sending = sending.thenCompose(webSocket -> webSocket.sendText(text, true));
+        }
+
+        private void await(String expected) {
+            awaiting = expected;
+            sentAt = System.nanoTime();
+            timeout = scheduler.schedule(() -> {
+                synchronized (this) {
+                    if (expected.equals(awaiting)) {
+                        stats.timeouts.increment();
+                        awaiting = null;
+                        next();
+                    }
+                }
+            }, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            synchronized (this) {
+                partial.append(data);
+                if (last) {
+                    JsonNode frame = Json.parse(partial.toString());
+                    partial.setLength(0);
+                    if ("batch".equals(frame.path("type").asText())) {
+                        frame.path("frames").forEach(this::onFrame);
+                    } else {
+                        onFrame(frame);
+                    }
+                }
+            }
+            webSocket.request(1);
+            return null;
+        }
+
+        private void onFrame(JsonNode frame) {
+            stats.frames.increment();
+            String type = frame.path("type").asText();
+            String id = frame.path("id").asText();
+            String answered = null;
+            if ("delta".equals(type) || "snapshot".equals(type)) {
+                long seq = frame.path("seq").asLong();
+                Long previous = lastSeq.put(id, seq);
+                if ("delta".equals(type)) {
+                    // A merged delta covers baseSeq..seq; only a gap before baseSeq was lost
+                    long baseSeq = frame.path("baseSeq").asLong(seq);
+                    if (previous != null && baseSeq > previous + 1) {
+                        stats.dropped.add(baseSeq - previous - 1);
+                    }
+                    if (seq > baseSeq) {
+                        stats.merged.add(seq - baseSeq);
+                    }
+                }
+                answered = "sub:" + id;
+            } else if (frame.has("channelTitle") || ("error".equals(frame.path("status").asText()) && type.isEmpty())) {
+                answered = "channel";
+            }
+            if (answered != null && answered.equals(awaiting)) {
+                long latencyMicros = (System.nanoTime() - sentAt) / 1000;
+                (answered.equals("channel") ? stats.channelLatency : stats.searchLatency).recordValue(latencyMicros);
+                awaiting = null;
+                timeout.cancel(false);
+                scheduler.execute(this::next);
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+            onLost();
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            onLost();
+        }
+
+        private synchronized void onLost() {
+            if (!closing) {
+                closing = true;
+                stats.disconnects.increment();
+            }
+        }
+
+        synchronized void close() {
+            if (!closing) {
+                closing = true;
+                sending.thenCompose(webSocket -> webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done"));
+            }
+        }
+    }
+
+    /**
+     * Counters and latency recorders shared by all connections, latencies in microseconds.
+     */
+    private static class Stats {
+        private final Recorder searchLatency = new Recorder(3);
+        private final Recorder channelLatency = new Recorder(3);
+        private final LongAdder commands = new LongAdder();
+        private final LongAdder frames = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder merged = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder disconnects = new LongAdder();
+        private final LongAdder connectFailures = new LongAdder();
+
+        void reset() {
+            searchLatency.reset();
+            channelLatency.reset();
+            commands.reset();
+            frames.reset();
+            dropped.reset();
+            merged.reset();
+            timeouts.reset();
+        }
+
+        String summary(int connections, double seconds) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+            out.printf("[WebSocketLoadGenerator] connections=%d connect-failures=%d disconnects=%d"
+                            + " commands/s=%.0f frames/s=%.0f frames/s/connection=%.2f dropped=%d merged=%d timeouts=%d%n",
+                    connections, connectFailures.sum(), disconnects.sum(), commands.sum() / seconds,
+                    frames.sum() / seconds, frames.sum() / seconds / Math.max(connections, 1), dropped.sum(), merged.sum(),
+                    timeouts.sum());
+            summarize(out, "subscribe -> first results", searchLatency.getIntervalHistogram());
+            summarize(out, "channel -> profile", channelLatency.getIntervalHistogram());
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+
+        private static void summarize(PrintStream out, String label, Histogram histogram) {
+            out.printf("[WebSocketLoadGenerator] %s: count=%d p50=%.2f ms p90=%.2f ms p99=%.2f ms"
+                            + " p99.9=%.2f ms max=%.2f ms%n",
+                    label, histogram.getTotalCount(),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+            if (histogram.getTotalCount() > 0) {
+                histogram.outputPercentileDistribution(out, 5, 1000.0);
+            }
+        }
+    }
+}
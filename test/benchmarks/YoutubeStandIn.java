@@ -0,0 +1,196 @@
+package benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A local HTTP stand-in for the parts of the YouTube Data API the application calls, so the whole
+ * application can be load tested offline.
+ * <p>
+ * It serves {@code /youtube/v3/search} for keywords and channels and {@code /youtube/v3/channels},
+ * with responses shaped like the real API, after a configurable latency. The result window of a
+ * keyword moves on by one video on every search, so polling subscriptions keep receiving deltas.
+ * Channels whose ID starts with {@code missing} are not found.
+ * </p>
+ * Run standalone, then start the application against it, with:
+ * <pre>
+ *     sbt "Test/runMain benchmarks.YoutubeStandIn 8089 50"
+ *     sbt -Dyoutube.search.url=http://localhost:8089/youtube/v3/search \
+ *         -Dyoutube.channel.profile.url=http://localhost:8089/youtube/v3/channels run
+ * </pre>
+ * (port, latency in milliseconds).
+ * @author Hanieh
+ */
+public class YoutubeStandIn {
+    /** The path of the search endpoint. */
+    public static final String SEARCH_PATH = "/youtube/v3/search";
+    /** The path of the channel profile endpoint. */
+    public static final String CHANNELS_PATH = "/youtube/v3/channels";
+
+    private static final String[] SENTENCES = {
+            "In this video we walk through the whole setup step by step.",
+            "Don't forget to like and subscribe for more content every week!",
+            "Timestamps are listed below so you can jump straight to the interesting parts.",
+            "Our sponsor helped make this episode possible, check the link for a discount.",
+            "Let us know in the comments what you would like to see next time?",
+            "This is an experimental format, so feedback is extremely appreciated."
+    };
+
+    private final long latencyMillis;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, AtomicInteger> offsets = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Creates a stand-in; it serves nothing until {@link #start()}.
+     *
+     * @param port          the port to listen on, or 0 for any free port
+     * @param latencyMillis the delay before every response, in milliseconds
+     * @throws IOException if the port cannot be bound
+     */
+    public YoutubeStandIn(int port, long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.executor = Executors.newFixedThreadPool(64);
+        server.setExecutor(executor);
+        server.createContext(SEARCH_PATH, exchange -> respond(exchange, search(query(exchange))));
+        server.createContext(CHANNELS_PATH, exchange -> respond(exchange, channels(query(exchange))));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 50;
+        YoutubeStandIn standIn = new YoutubeStandIn(port, latencyMillis);
+        standIn.start();
+        System.out.println("[YoutubeStandIn] Serving " + standIn.getSearchUrl() + " and " + standIn.getChannelsUrl());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getSearchUrl() {
+        return baseUrl() + SEARCH_PATH;
+    }
+
+    public String getChannelsUrl() {
+        return baseUrl() + CHANNELS_PATH;
+    }
+
+    /**
+     * @return the number of requests served so far
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private JSONObject search(Map<String, String> query) {
+        int maxResults = Math.min(Integer.parseInt(query.getOrDefault("maxResults", "10")), 50);
+        String channelId = query.get("channelId");
+        String key = channelId != null ? "channel:" + channelId : query.getOrDefault("q", "");
+        int offset = channelId != null ? 0 : offsets.computeIfAbsent(key, k -> new AtomicInteger()).getAndIncrement();
+
+        JSONArray items = new JSONArray();
+        for (int i = offset; i < offset + maxResults; i++) {
+            items.put(video(key, i, channelId != null ? channelId : "UC" + Math.floorMod(key.hashCode(), 100)));
+        }
+        return new JSONObject()
+                .put("kind", "youtube#searchListResponse")
+                .put("nextPageToken", "page" + (offset + maxResults))
+                .put("pageInfo", new JSONObject().put("totalResults", 1000000).put("resultsPerPage", maxResults))
+                .put("items", items);
+    }
+
+    private static JSONObject video(String key, int index, String channelId) {
+        String videoId = Integer.toHexString(key.hashCode()) + "-" + index;
+        StringBuilder description = new StringBuilder();
+        for (int s = 0; s < 2 + Math.floorMod(index, 5); s++) {
+            description.append(SENTENCES[Math.floorMod(index + s, SENTENCES.length)]).append(' ');
+        }
+        JSONObject thumbnail = new JSONObject().put("url", "http://localhost/vi/" + videoId + ".jpg");
+        return new JSONObject()
+                .put("kind", "youtube#searchResult")
+                .put("id", new JSONObject().put("kind", "youtube#video").put("videoId", videoId))
+                .put("snippet", new JSONObject()
+                        .put("channelId", channelId)
+                        .put("channelTitle", "Channel " + channelId)
+                        .put("title", "Video &amp; tutorial " + index + " about " + key)
+                        .put("description", description.toString().trim())
+                        .put("thumbnails", new JSONObject().put("default", thumbnail).put("high", thumbnail))
+                        .put("tags", new JSONArray().put("benchmark").put(key)));
+    }
+
+    private static JSONObject channels(Map<String, String> query) {
+        String channelId = query.getOrDefault("id", "");
+        JSONArray items = new JSONArray();
+        if (!channelId.startsWith("missing")) {
+            items.put(new JSONObject()
+                    .put("kind", "youtube#channel")
+                    .put("id", channelId)
+                    .put("snippet", new JSONObject()
+                            .put("title", "Channel " + channelId)
+                            .put("description", SENTENCES[Math.floorMod(channelId.hashCode(), SENTENCES.length)])
+                            .put("thumbnails", new JSONObject().put("high",
+                                    new JSONObject().put("url", "http://localhost/channels/" + channelId + ".jpg")))));
+        }
+        return new JSONObject().put("kind", "youtube#channelListResponse").put("items", items);
+    }
+
+    private void respond(HttpExchange exchange, JSONObject body) throws IOException {
+        requests.increment();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+}
@@ -0,0 +1,154 @@
+package controllers;
+
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.testkit.javadsl.TestKit;
+import com.fasterxml.jackson.databind.JsonNode;
+import models.Channel;
+import models.Video;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import play.libs.Json;
+import play.mvc.Result;
+import services.VideoPage;
+import services.WordStatistics;
+import services.YoutubeExecutionContext;
+import services.YoutubeService;
+import test.MockVideoUtil;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static play.test.Helpers.*;
+
+/**
+ * Unit tests for {@link ApiController}.
+ * @author Hanieh
+ */
+public class ApiControllerTest {
+
+    private ActorSystem system;
+    private Materializer materializer;
+    private YoutubeService youtubeService;
+    private WordStatistics wordStatistics;
+    private ApiController apiController;
+
+    @Before
+    public void setUp() {
+        system = ActorSystem.create("ApiControllerTest");
+        materializer = Materializer.matFromSystem(system);
+        youtubeService = mock(YoutubeService.class);
+        wordStatistics = new WordStatistics(16, 20, 1024);
+        apiController = new ApiController(youtubeService, new YoutubeExecutionContext(system), wordStatistics);
+    }
+
+    @After
+    public void tearDown() {
+        TestKit.shutdownActorSystem(system);
+        system = null;
+    }
+
+    private static VideoPage page(String nextPageToken, Video... videos) {
+        List<Video> items = Arrays.asList(videos);
+        return new VideoPage(items.size(), items::get, nextPageToken);
+    }
+
+    private List<JsonNode> lines(Result result) {
+        return Arrays.stream(contentAsString(result, materializer).split("\n"))
+                .map(Json::parse)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that a search page is streamed as one scored video per line, followed by the paging line.
+     */
+    @Test
+    public void testSearchStreamsScoredVideosAndNextPage() throws Exception {
+        when(youtubeService.searchPageAsync(eq("java"), isNull(), eq(2), any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        page("CAIQAA", MockVideoUtil.mockingVideo("1"), null, MockVideoUtil.mockingVideo("2"))));
+
+        Result result = apiController.search("java", "", 2).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(OK, result.status());
+        assertEquals(ApiController.NDJSON, result.contentType().orElseThrow());
+        List<JsonNode> lines = lines(result);
+        assertEquals(3, lines.size());
+        assertEquals("video", lines.get(0).get("type").asText());
+        assertEquals("1", lines.get(0).get("videoId").asText());
+        assertTrue(lines.get(0).has("fleschReadingEaseScore"));
+        assertEquals("2", lines.get(1).get("videoId").asText());
+        JsonNode paging = lines.get(2);
+        assertEquals("page", paging.get("type").asText());
+        assertEquals("CAIQAA", paging.get("nextPageToken").asText());
+        assertTrue(paging.get("next").asText().contains("pageToken=CAIQAA"));
+    }
+
+    /**
+     * Tests that invalid parameters are rejected and a failed YouTube request is reported as a bad gateway.
+     */
+    @Test
+    public void testSearchErrors() throws Exception {
+        assertEquals(BAD_REQUEST, apiController.search("", "", 10).toCompletableFuture().get().status());
+        assertEquals(BAD_REQUEST, apiController.search("java", "", 51).toCompletableFuture().get().status());
+
+        when(youtubeService.searchPageAsync(eq("java"), eq("next"), eq(10), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("offline")));
+        Result result = apiController.search("java", "next", 10).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(BAD_GATEWAY, result.status());
+    }
+
+    /**
+     * Tests that the channel is streamed as its profile followed by its videos, and an unknown channel is not found.
+     */
+    @Test
+    public void testChannel() throws Exception {
+        when(youtubeService.getChannelProfileAsync(eq("c1"), any()))
+                .thenReturn(CompletableFuture.completedFuture(new Channel("c1", "Channel One", "About", "http://example.com/c1.jpg")));
+        when(youtubeService.channelVideosPageAsync(eq("c1"), eq(10), any()))
+                .thenReturn(CompletableFuture.completedFuture(page(null, MockVideoUtil.mockingVideo("1"))));
+        when(youtubeService.getChannelProfileAsync(eq("missing"), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(youtubeService.channelVideosPageAsync(eq("missing"), eq(10), any()))
+                .thenReturn(CompletableFuture.completedFuture(page(null)));
+
+        List<JsonNode> lines = lines(apiController.channel("c1", 10).toCompletableFuture().get(5, TimeUnit.SECONDS));
+        assertEquals(2, lines.size());
+        assertEquals("channel", lines.get(0).get("type").asText());
+        assertEquals("Channel One", lines.get(0).get("title").asText());
+        assertEquals("video", lines.get(1).get("type").asText());
+
+        assertEquals(NOT_FOUND, apiController.channel("missing", 10).toCompletableFuture().get(5, TimeUnit.SECONDS).status());
+    }
+
+    /**
+     * Tests that word statistics are served per query and globally, and that unknown queries and
+     * invalid limits are rejected.
+     */
+    @Test
+    public void testWords() {
+        Video video = new Video("http://example.com/thumbnail.jpg", "Java streams tutorial", "Channel",
+                "Learn Java streams. Java is fun!", "1", "ChannelId", List.of());
+        wordStatistics.record("java", List.of(video));
+
+        Result result = apiController.words("java", 2);
+        assertEquals(OK, result.status());
+        JsonNode json = Json.parse(contentAsString(result, materializer));
+        assertEquals("java", json.get("query").asText());
+        assertEquals("java", json.get("words").get(0).get("word").asText());
+        assertEquals(3, json.get("words").get(0).get("count").asInt());
+        assertEquals("streams", json.get("words").get(1).get("word").asText());
+        assertEquals(2, json.get("words").size());
+
+        assertEquals(OK, apiController.words("", 20).status());
+        assertEquals(NOT_FOUND, apiController.words("python", 20).status());
+        assertEquals(BAD_REQUEST, apiController.words("java", 21).status());
+    }
+}
@@ -0,0 +1,57 @@
+package controllers;
+
+import org.junit.Test;
+import play.mvc.Result;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static play.mvc.Http.Status.NOT_MODIFIED;
+import static play.test.Helpers.fakeRequest;
+
+/**
+ * Unit tests for {@link HttpCaching}.
+ * @author Hanieh
+ */
+public class HttpCachingTest {
+
+    private final HttpCaching httpCaching = new HttpCaching(Duration.ofSeconds(30), Duration.ofMinutes(2));
+    private final Instant lastModified = Instant.parse("2024-11-05T10:15:30.500Z");
+
+    /**
+     * Tests that If-None-Match matches any listed tag, weakly, and that a mismatch sends the page.
+     */
+    @Test
+    public void testIfNoneMatch() {
+        String etag = HttpCaching.etag(42);
+
+        assertEquals("\"2a\"", etag);
+        assertTrue(httpCaching.notModified(fakeRequest().header("If-None-Match", "\"1\", W/\"2a\"").build(), etag, null, true).isPresent());
+        assertTrue(httpCaching.notModified(fakeRequest().header("If-None-Match", "*").build(), etag, null, true).isPresent());
+        assertFalse(httpCaching.notModified(fakeRequest().header("If-None-Match", "\"2b\"").build(), etag, null, true).isPresent());
+        assertFalse(httpCaching.notModified(fakeRequest().build(), etag, null, true).isPresent());
+    }
+
+    /**
+     * Tests that If-Modified-Since is compared at second precision and ignored when If-None-Match is sent.
+     */
+    @Test
+    public void testIfModifiedSince() {
+        String etag = HttpCaching.etag(1);
+
+        Optional<Result> notModified = httpCaching.notModified(
+                fakeRequest().header("If-Modified-Since", "Tue, 5 Nov 2024 10:15:30 GMT").build(), etag, lastModified, false);
+        assertEquals(NOT_MODIFIED, notModified.orElseThrow().status());
+        assertEquals(Optional.of("Tue, 5 Nov 2024 10:15:30 GMT"), notModified.get().header("Last-Modified"));
+        assertEquals(Optional.of("private, max-age=30, stale-while-revalidate=120"), notModified.get().header("Cache-Control"));
+
+        assertFalse(httpCaching.notModified(
+                fakeRequest().header("If-Modified-Since", "Tue, 5 Nov 2024 10:15:29 GMT").build(), etag, lastModified, false).isPresent());
+        assertFalse(httpCaching.notModified(
+                fakeRequest().header("If-Modified-Since", "not a date").build(), etag, lastModified, false).isPresent());
+        assertFalse(httpCaching.notModified(fakeRequest().header("If-None-Match", "\"2\"")
+                .header("If-Modified-Since", "Tue, 5 Nov 2024 10:15:30 GMT").build(), etag, lastModified, false).isPresent());
+    }
+}
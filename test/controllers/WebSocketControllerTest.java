@@ -2,8 +2,10 @@ package controllers;
 
 import actors.*;
 import controllers.WebSocketController;
+import services.WordStatistics;
 import services.YoutubeService;
 
+import akka.actor.AbstractActor;
 import akka.actor.ActorSystem;
 import akka.actor.Props;
 import akka.stream.Materializer;
@@ -26,11 +28,22 @@ import static org.mockito.Mockito.*;
 
 import org.mockito.MockitoAnnotations;
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import akka.stream.javadsl.Sink;
+import akka.util.ByteString;
+import test.MockVideoUtil;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
+import static play.test.Helpers.fakeRequest;
 
 /**
  * Unit tests for the {@link WebSocketController}.
@@ -55,6 +68,12 @@ public class WebSocketControllerTest {
     @Mock
     private ActorRef supervisorActor;
 
+    @Mock
+    private ActorRef scoreRouter;
+
+    @Mock
+    private ActorRef channelRouter;
+
     @Mock
     private YoutubeService youtubeService;
 
@@ -73,7 +92,7 @@ public class WebSocketControllerTest {
         MockitoAnnotations.openMocks(this);
 
         // Create the WebSocketController instance
-        webSocketController = new WebSocketController(actorSystem, materializer, supervisorActor, youtubeService);
+        webSocketController = new WebSocketController(actorSystem, materializer, supervisorActor, scoreRouter, channelRouter, youtubeService, new WordStatistics(16, 20, 1024));
     }
 
     /**
@@ -99,6 +118,22 @@ public class WebSocketControllerTest {
         assertNotNull("The WebSocket returned by the stream() method should not be null", webSocket);
     }
 
+    /**
+     * Tests that an unknown frame encoding is rejected with 400 Bad Request before a session is created.
+     *
+     * @throws Exception if the handshake does not complete
+     */
+    @Test
+    public void testUnsupportedEncodingIsRejected() throws Exception {
+        F.Either<Result, ?> result = webSocketController.stream()
+                .apply(fakeRequest("GET", "/ws/stream/?encoding=xml").build())
+                .toCompletableFuture()
+                .get();
+
+        assertTrue(result.left.isPresent());
+        assertEquals(400, result.left.get().status());
+    }
+
     /**
      * Tests the return type of the private {@code createActorBasedFlow()} method.
      * Ensures the method returns a non-null {@link CompletionStage}.
@@ -173,6 +208,116 @@ public class WebSocketControllerTest {
     //     });
     // }
 
+    /**
+     * Reads an event stream until an event of the given type arrives, then disconnects.
+     *
+     * @param result the event stream response
+     * @param type   the event type to wait for
+     * @return the text received up to and including that event
+     */
+    private String readUntil(Result result, String type) throws Exception {
+        return result.body().dataStream()
+                .map(ByteString::utf8String)
+                .scan("", String::concat)
+                .takeWhile(text -> !text.contains("event: " + type + "\n"), true)
+                .runWith(Sink.last(), Materializer.matFromSystem(actorSystem))
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Tests that an event stream subscribes a session to the query and sends its frames as
+     * identified events, and that reconnecting with the last event ID resumes the same session,
+     * sending a snapshot only when frames were missed.
+     *
+     * @throws Exception if the expected events do not arrive in time
+     */
+    @Test
+    public void testEventStreamResumesFromLastEventId() throws Exception {
+        when(youtubeService.searchVideos("java")).thenReturn(List.of(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2")));
+        ActorRef probe = new TestKit(actorSystem).getRef();
+        WebSocketController webSocketController = new WebSocketController(actorSystem, Materializer.matFromSystem(actorSystem),
+                probe, probe, probe, youtubeService, new WordStatistics(16, 20, 1024));
+
+        Result opened = webSocketController.events(fakeRequest("GET", "/events/stream?query=java").build(), "java", 5)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals("text/event-stream", opened.contentType().orElseThrow());
+        String first = readUntil(opened, "delta");
+        assertTrue(first.contains("event: subscribed"));
+        Matcher id = Pattern.compile("id: (Events-[^\\n]+:1)\n").matcher(first);
+        assertTrue(first, id.find());
+
+        // Nothing was missed: the session is only re-attached
+        Result resumed = webSocketController.events(fakeRequest("GET", "/events/stream?query=java")
+                .header("Last-Event-ID", id.group(1)).build(), "java", 5).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        String second = readUntil(resumed, "resumed");
+        assertFalse(second.contains("event: subscribed"));
+        assertFalse(second.contains("event: snapshot"));
+
+        // An older event ID gets a snapshot of the current window
+        String staleId = id.group(1).replaceAll(":1$", ":0");
+        Result behind = webSocketController.events(fakeRequest("GET", "/events/stream?lastEventId=" + staleId).build(), "", 5)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        String third = readUntil(behind, "snapshot");
+        assertTrue(third.contains("\"videoId\":\"2\""));
+        verify(youtubeService, times(1)).searchVideos("java");
+    }
+
+    /**
+     * Tests that an event stream needs a query unless it resumes a live session.
+     *
+     * @throws Exception if the request does not complete
+     */
+    @Test
+    public void testEventStreamWithoutQueryIsRejected() throws Exception {
+        assertEquals(400, webSocketController.events(fakeRequest().build(), "", 5).toCompletableFuture().get().status());
+        assertEquals(400, webSocketController.events(fakeRequest().header("Last-Event-ID", "Events-gone:3").build(), "", 5)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS).status());
+    }
+
+    /**
+     * Tests that an event stream cannot attach to a session it did not create: neither a WebSocket
+     * session ID nor an actor path wildcard is looked up, so a new session is started instead.
+     *
+     * @throws Exception if the request does not complete
+     */
+    @Test
+    public void testEventStreamDoesNotResumeForeignSessions() throws Exception {
+        TestKit victim = new TestKit(actorSystem);
+        actorSystem.actorOf(Props.create(Forwarder.class, victim.getRef()), "UserActor-User-10001");
+        when(youtubeService.searchVideos("java")).thenReturn(List.of(MockVideoUtil.mockingVideo("1")));
+        ActorRef probe = new TestKit(actorSystem).getRef();
+        WebSocketController webSocketController = new WebSocketController(actorSystem, Materializer.matFromSystem(actorSystem),
+                probe, probe, probe, youtubeService, new WordStatistics(16, 20, 1024));
+
+        for (String lastEventId : new String[]{"User-10001:0", "*:0", "Events-*:0"}) {
+            assertEquals(400, webSocketController.events(fakeRequest().header("Last-Event-ID", lastEventId).build(), "", 5)
+                    .toCompletableFuture().get(5, TimeUnit.SECONDS).status());
+            Result result = webSocketController.events(fakeRequest().header("Last-Event-ID", lastEventId).build(), "java", 5)
+                    .toCompletableFuture().get(5, TimeUnit.SECONDS);
+            assertTrue(readUntil(result, "subscribed").contains("event: subscribed"));
+        }
+        victim.expectNoMessage(Duration.ofMillis(200));
+        assertTrue(WebSocketController.isEventSessionId("Events-" + UUID.randomUUID()));
+        assertFalse(WebSocketController.isEventSessionId("Events-" + UUID.randomUUID() + "/*"));
+    }
+
+    /**
+     * Forwards every message to a probe, standing in for a live session.
+     */
+    public static class Forwarder extends AbstractActor {
+        private final ActorRef target;
+
+        public Forwarder(ActorRef target) {
+            this.target = target;
+        }
+
+        @Override
+        public Receive createReceive() {
+            return receiveBuilder().matchAny(message -> target.forward(message, getContext())).build();
+        }
+    }
+
     /**
      * Cleans up resources by shutting down the {@code ActorSystem} after all tests are complete.
      */
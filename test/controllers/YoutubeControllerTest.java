@@ -1,17 +1,31 @@
 package controllers;
 
+import akka.actor.ActorSystem;
+import akka.stream.Materializer;
+import akka.stream.javadsl.Sink;
+import akka.util.ByteString;
+import akka.testkit.javadsl.TestKit;
+import models.Channel;
 import models.Video;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.*;
 import play.mvc.Result;
+import services.SearchCache;
+import services.SearchHistory;
+import services.WordStatistics;
+import services.YoutubeExecutionContext;
 import services.YoutubeService;
 import utils.ReadabilityCalculator;
 import utils.ReadabilityStats;
 import play.libs.typedmap.TypedKey;
 
 import java.security.spec.ECField;
+import java.time.Duration;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 
 import java.util.*;
@@ -41,13 +55,39 @@ public class YoutubeControllerTest {
     @Mock
     private Map<String, List<Video>> latestSearchResults;
 
+    private ActorSystem system;
+    private Materializer materializer;
+    private SearchHistory searchHistory;
+
     @Before
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        youtubeController = new YoutubeController(youtubeService);
+        system = ActorSystem.create("YoutubeControllerTest");
+        materializer = Materializer.matFromSystem(system);
+        YoutubeExecutionContext youtubeExecutor = new YoutubeExecutionContext(system);
+        searchHistory = new SearchHistory(10, 2, 100, Duration.ofMinutes(30));
+        youtubeController = new YoutubeController(youtubeService, youtubeExecutor,
+                new SearchCache(youtubeService, youtubeExecutor, 100, Duration.ofMinutes(10), new WordStatistics(16, 20, 1024)), searchHistory,
+                new HttpCaching(Duration.ofSeconds(60), Duration.ofMinutes(5)));
         latestSearchResults = new HashMap<>();
     }
 
+    @After
+    public void tearDown() {
+        TestKit.shutdownActorSystem(system);
+        system = null;
+    }
+
+    /**
+     * Runs a search in a new browser session and waits for the page.
+     *
+     * @param query the search query
+     * @return the rendered page
+     */
+    private Result search(String query) throws Exception {
+        return youtubeController.search(fakeRequest().build(), query).toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
     private Video createDummyVideo(String videoId) {
         String thumbnailUrl = "http://example.com/thumbnail" + videoId + ".jpg";
         String title = "Title " + videoId;
@@ -77,10 +117,11 @@ public class YoutubeControllerTest {
         when(youtubeService.searchVideos(searchQuery)).thenReturn(videoList);
 
         // When
-        CompletionStage<Result> resultFuture = youtubeController.search(searchQuery);
+        CompletionStage<Result> resultFuture = youtubeController.search(fakeRequest().build(), searchQuery);
 
         Result result = resultFuture.toCompletableFuture().get(); // Wait for the CompletableFuture to complete
         assertEquals(OK, result.status());
+        assertTrue(contentAsString(result, materializer).contains("Search results for \"test query\""));
 
         // Then
         verify(youtubeService, times(1)).searchVideos(searchQuery);
@@ -99,7 +140,7 @@ public class YoutubeControllerTest {
         String searchQuery = "";
 
         // When
-        CompletionStage<Result> resultFuture = youtubeController.search(searchQuery);
+        CompletionStage<Result> resultFuture = youtubeController.search(fakeRequest().build(), searchQuery);
 
         // Then
         Result result = resultFuture.toCompletableFuture().get(); // Wait for the CompletableFuture to complete
@@ -119,7 +160,7 @@ public class YoutubeControllerTest {
         String searchQuery = null;
 
         // When
-        CompletionStage<Result> resultFuture = youtubeController.search(searchQuery);
+        CompletionStage<Result> resultFuture = youtubeController.search(fakeRequest().build(), searchQuery);
 
         // Then
         Result result = resultFuture.toCompletableFuture().get(); // Wait for the CompletableFuture to complete
@@ -144,19 +185,20 @@ public class YoutubeControllerTest {
         when(youtubeService.searchVideos(searchQuery)).thenReturn(videoList);
 
         // When
-        youtubeController.search(searchQuery); // First call should fetch from youtubeService
+        search(searchQuery); // First call should fetch from youtubeService
 
-        youtubeController.search(searchQuery); // Second call should use cached result
+        search(searchQuery); // Second call, even from another session, should use cached result
 
         // Then
-        verify(youtubeService, times(1)).searchVideos(searchQuery); // Ensure service is called only once
+        verify(youtubeService, timeout(5000).times(1)).searchVideos(searchQuery); // Ensure service is called only once
     }
 
     /**
      * Tests reordering of cumulative search results.
      *
      * This test verifies that repeated searches with different queries reorders
-     * the cumulative results correctly, maintaining the most recent search at the top.
+     * the session's history correctly, maintaining the most recent search at the top,
+     * and that the history of one session is not shown to another.
      * @author hanieh
      */
     @Test
@@ -172,16 +214,23 @@ public class YoutubeControllerTest {
         when(youtubeService.searchVideos(secondQuery)).thenReturn(secondVideoList);
 
         // When
-        youtubeController.search(firstQuery); // Search "Query1"
-        youtubeController.search(secondQuery); // Search "Query2"
+        Result first = search(firstQuery); // Search "Query1"
+        String sessionId = first.session().get(YoutubeController.SESSION_KEY).orElseThrow();
+        Result second = youtubeController.search(fakeRequest().session(YoutubeController.SESSION_KEY, sessionId).build(), secondQuery)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS); // Search "Query2"
 
         // Then
-        Map<String, List<Video>> expectedOrder = new LinkedHashMap<>();
-        expectedOrder.put(secondQuery, secondVideoList); // "Query2" should be first
-        expectedOrder.put(firstQuery, firstVideoList);   // "Query1" should be second
-
-        // Assert that the cumulativeSearchResults map in youtubeController matches the expected order
-        assertEquals(expectedOrder, youtubeController.getCachedResult());
+        assertEquals(List.of(secondQuery, firstQuery), searchHistory.page(sessionId, 0).getQueries()); // "Query2" should be first
+        String body = contentAsString(second, materializer);
+        // The earlier search is streamed first, the new one last but ordered above it
+        int history = body.indexOf("<div style=\"order: 2\">");
+        int results = body.indexOf("<div style=\"order: 1\">");
+        assertTrue(history < body.indexOf("Search results for \"Query1\""));
+        assertTrue(body.indexOf("Search results for \"Query1\"") < results);
+        assertTrue(results < body.indexOf("Search results for \"Query2\""));
+
+        // Another session only sees its own searches
+        assertFalse(contentAsString(search(""), materializer).contains("Query1"));
 
     }
 
@@ -198,14 +247,14 @@ public class YoutubeControllerTest {
         when(youtubeService.searchVideos(searchQuery)).thenReturn(videoList);
 
         // When
-        CompletionStage<Result> resultFuture = youtubeController.search(searchQuery);
+        CompletionStage<Result> resultFuture = youtubeController.search(fakeRequest().build(), searchQuery);
 
         // Then
         Result result = resultFuture.toCompletableFuture().get();
 
         // Then
         assertEquals(OK, result.status());
-        verify(youtubeService, times(1)).searchVideos(searchQuery);
+        verify(youtubeService, timeout(5000).times(1)).searchVideos(searchQuery);
     }
 
     /**
@@ -221,13 +270,13 @@ public class YoutubeControllerTest {
         List<Video> videoList = Collections.emptyList();
         when(youtubeService.searchVideos(searchQuery)).thenReturn(videoList);
 
-        CompletionStage<Result> resultFuture = youtubeController.search(searchQuery);
+        CompletionStage<Result> resultFuture = youtubeController.search(fakeRequest().build(), searchQuery);
 
         // Then
         Result result = resultFuture.toCompletableFuture().get(); // Wait for the CompletableFuture to complete
 
         assertEquals(OK, result.status());
-        verify(youtubeService, times(1)).searchVideos(searchQuery);
+        verify(youtubeService, timeout(5000).times(1)).searchVideos(searchQuery);
     }
 
     /**
@@ -247,13 +296,13 @@ public class YoutubeControllerTest {
         when(youtubeService.searchVideos(searchQuery)).thenReturn(videoList);
 
         // When
-        CompletionStage<Result> resultFuture = youtubeController.search(searchQuery);
+        CompletionStage<Result> resultFuture = youtubeController.search(fakeRequest().build(), searchQuery);
 
         // Then
         Result result = resultFuture.toCompletableFuture().get(); // Wait for the CompletableFuture to complete
 
         // Then
-        verify(youtubeService, times(1)).searchVideos(searchQuery);
+        verify(youtubeService, timeout(5000).times(1)).searchVideos(searchQuery);
         assertEquals(OK, result.status());
     }
 
@@ -297,4 +346,160 @@ public class YoutubeControllerTest {
             assertEquals(54.73, video.getFleschReadingEaseScore(), 0.01);
         }
     }
+
+    /**
+     * Tests that the channel page requests the profile and the recent videos in parallel and
+     * renders the videos with their readability scores.
+     * <p>
+     * Each mocked call waits until the other one has started, so running them one after the other
+     * would fail both with a service error.
+     * </p>
+     */
+    @Test
+    public void testChannelProfileFetchesProfileAndVideosInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        when(youtubeService.getChannelProfile("c1")).thenAnswer(invocation -> {
+            awaitOther(bothStarted);
+            return new Channel("c1", "Channel One", "About the channel", "http://example.com/c1.jpg");
+        });
+        when(youtubeService.searchVideosByChannel("c1", 10)).thenAnswer(invocation -> {
+            awaitOther(bothStarted);
+            return new ArrayList<>(List.of(createDummyVideo("1"), createDummyVideo("2")));
+        });
+
+        Result result = youtubeController.channelProfile(fakeRequest().build(), "c1").toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(OK, result.status());
+        String body = contentAsString(result);
+        assertTrue(body.contains("Channel One"));
+        assertTrue(body.contains("Grade 6.62"));
+    }
+
+    /**
+     * Tests that an unknown channel is reported as not found.
+     */
+    @Test
+    public void testChannelProfileNotFound() throws Exception {
+        when(youtubeService.getChannelProfile("missing")).thenReturn(null);
+        when(youtubeService.searchVideosByChannel("missing", 10)).thenReturn(new ArrayList<>());
+
+        Result result = youtubeController.channelProfile(fakeRequest().build(), "missing").toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(NOT_FOUND, result.status());
+    }
+
+    private static void awaitOther(CountDownLatch bothStarted) throws InterruptedException {
+        bothStarted.countDown();
+        if (!bothStarted.await(2, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("The other YouTube call was not issued concurrently");
+        }
+    }
+
+    /**
+     * Tests that the search page only renders the newest page of the history and that older
+     * searches are served by the history endpoint.
+     */
+    @Test
+    public void testOlderSearchesAreLoadedOnDemand() throws Exception {
+        for (String query : List.of("Query1", "Query2", "Query3")) {
+            when(youtubeService.searchVideos(query)).thenReturn(Arrays.asList(createDummyVideo(query)));
+        }
+        String sessionId = search("Query1").session().get(YoutubeController.SESSION_KEY).orElseThrow();
+        youtubeController.search(fakeRequest().session(YoutubeController.SESSION_KEY, sessionId).build(), "Query2")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        Result page = youtubeController.search(fakeRequest().session(YoutubeController.SESSION_KEY, sessionId).build(), "Query3")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        String body = contentAsString(page, materializer);
+        assertTrue(body.contains("Query3") && body.contains("Query2"));
+        assertFalse(body.contains("Query1"));
+        assertTrue(body.contains("Load older searches"));
+
+        Result older = youtubeController.history(fakeRequest().session(YoutubeController.SESSION_KEY, sessionId).build(), 2)
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        String olderBody = contentAsString(older);
+        assertTrue(olderBody.contains("Query1"));
+        assertFalse(olderBody.contains("Load older searches"));
+    }
+
+    /**
+     * Tests that the search page is streamed: the layout and form are sent before the search completes.
+     */
+    @Test
+    public void testSearchPageIsStreamedBeforeResultsArrive() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(youtubeService.searchVideos("slow")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Arrays.asList(createDummyVideo("1"));
+        });
+
+        Result result = youtubeController.search(fakeRequest().build(), "slow").toCompletableFuture().get(5, TimeUnit.SECONDS);
+        ByteString firstChunk = result.body().dataStream().runWith(Sink.head(), materializer)
+                .toCompletableFuture().get(2, TimeUnit.SECONDS);
+
+        assertTrue(firstChunk.utf8String().contains("Search videos..."));
+        assertFalse(firstChunk.utf8String().contains("Search results for"));
+        release.countDown();
+        assertTrue(contentAsString(result, materializer).contains("Search results for \"slow\""));
+    }
+
+    /**
+     * Tests that a search page gets validators once its results are cached, and that a conditional
+     * request for the unchanged page is answered with 304 without searching again.
+     */
+    @Test
+    public void testRepeatedSearchIsNotModified() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(youtubeService.searchVideos("java")).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Arrays.asList(createDummyVideo("1"));
+        });
+
+        // Held until the page is built, so its results are not cached yet
+        Result first = search("java");
+        assertEquals(Optional.of("no-store"), first.header("Cache-Control"));
+        release.countDown();
+        contentAsString(first, materializer);
+        String sessionId = first.session().get(YoutubeController.SESSION_KEY).orElseThrow();
+
+        Result second = youtubeController.search(fakeRequest().session(YoutubeController.SESSION_KEY, sessionId).build(), "java")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        String etag = second.header("ETag").orElseThrow();
+        assertTrue(second.header("Cache-Control").orElseThrow().startsWith("private, max-age=60"));
+        assertTrue(second.header("Last-Modified").isPresent());
+
+        Result third = youtubeController.search(fakeRequest().session(YoutubeController.SESSION_KEY, sessionId)
+                        .header("If-None-Match", etag).build(), "java")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(NOT_MODIFIED, third.status());
+        assertEquals(Optional.of(etag), third.header("ETag"));
+        verify(youtubeService, times(1)).searchVideos("java");
+
+        // A new search in the session changes the page
+        when(youtubeService.searchVideos("scala")).thenReturn(Arrays.asList(createDummyVideo("2")));
+        contentAsString(youtubeController.search(fakeRequest().session(YoutubeController.SESSION_KEY, sessionId).build(), "scala")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS), materializer);
+        Result afterNewSearch = youtubeController.search(fakeRequest().session(YoutubeController.SESSION_KEY, sessionId)
+                        .header("If-None-Match", etag).build(), "java")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(OK, afterNewSearch.status());
+    }
+
+    /**
+     * Tests that the channel page can be stored by shared caches and revalidated with its entity tag.
+     */
+    @Test
+    public void testChannelProfileConditionalGet() throws Exception {
+        when(youtubeService.getChannelProfile("c1")).thenReturn(new Channel("c1", "Channel One", "About", "http://example.com/c1.jpg"));
+        when(youtubeService.searchVideosByChannel("c1", 10)).thenAnswer(invocation -> new ArrayList<>(List.of(createDummyVideo("1"))));
+
+        Result first = youtubeController.channelProfile(fakeRequest().build(), "c1").toCompletableFuture().get(5, TimeUnit.SECONDS);
+        String etag = first.header("ETag").orElseThrow();
+        assertEquals(Optional.of("public, max-age=60, stale-while-revalidate=300"), first.header("Cache-Control"));
+
+        Result second = youtubeController.channelProfile(fakeRequest().header("If-None-Match", "W/" + etag).build(), "c1")
+                .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(NOT_MODIFIED, second.status());
+        assertEquals("", contentAsString(second));
+    }
 }
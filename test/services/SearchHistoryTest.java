@@ -0,0 +1,74 @@
+package services;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link SearchHistory}.
+ * @author Hanieh
+ */
+public class SearchHistoryTest {
+
+    /**
+     * Tests that a session keeps its newest queries up to the bound and moves a repeated query to the front.
+     */
+    @Test
+    public void testHistoryIsBoundedNewestFirst() {
+        SearchHistory history = new SearchHistory(3, 10, 10, Duration.ofMinutes(1));
+
+        history.record("s1", "a");
+        history.record("s1", "b");
+        history.record("s1", "c");
+        history.record("s1", "a");
+        history.record("s1", "d");
+
+        assertEquals(List.of("d", "a", "c"), history.page("s1", 0).getQueries());
+        assertTrue(history.page("s2", 0).getQueries().isEmpty());
+    }
+
+    /**
+     * Tests that the history is read in pages, newest first, each pointing at the next older one.
+     */
+    @Test
+    public void testPages() {
+        SearchHistory history = new SearchHistory(10, 2, 10, Duration.ofMinutes(1));
+        for (String query : List.of("a", "b", "c", "d", "e")) {
+            history.record("s1", query);
+        }
+
+        SearchHistory.Page first = history.page("s1", 0);
+        assertEquals(List.of("e", "d"), first.getQueries());
+        SearchHistory.Page second = history.page("s1", first.getNextOffset());
+        assertEquals(List.of("c", "b"), second.getQueries());
+        SearchHistory.Page last = history.page("s1", second.getNextOffset());
+        assertEquals(List.of("a"), last.getQueries());
+        assertEquals(-1, last.getNextOffset());
+    }
+
+    /**
+     * Tests that concurrent searches of one session are all recorded.
+     *
+     * @throws Exception if the searches do not finish in time
+     */
+    @Test
+    public void testConcurrentRecordsAreNotLost() throws Exception {
+        SearchHistory history = new SearchHistory(1000, 1000, 10, Duration.ofMinutes(1));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 500; i++) {
+            String query = "q" + i;
+            executor.execute(() -> history.record("s1", query));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(500, history.page("s1", 0).getQueries().size());
+    }
+}
@@ -350,6 +350,43 @@ public class YoutubeServiceTest {
         youtubeService.searchVideosByChannel("sampleChannelId", 5);
     }
 
+    /**
+     * Tests that a search page is fetched asynchronously with its page token and parsed lazily.
+     */
+    @Test
+    public void testSearchPageAsync() throws Exception {
+        String response = "{\"nextPageToken\":\"CAoQAA\",\"items\":["
+                + "{\"id\":{\"videoId\":\"v1\"},\"snippet\":{\"title\":\"First\",\"description\":\"One.\"}},"
+                + "{\"id\":{\"videoId\":\"v2\"}}]}";
+        doReturn(mockConnection).when(youtubeService).createConnection(anyString());
+        doReturn(response).when(youtubeService).fetchResponse(mockConnection);
+
+        VideoPage page = youtubeService.searchPageAsync("java", "CAUQAA", 2, Runnable::run)
+                .toCompletableFuture().get();
+
+        verify(youtubeService).createConnection(contains("maxResults=2"));
+        verify(youtubeService).createConnection(contains("&pageToken=CAUQAA"));
+        assertEquals(2, page.size());
+        assertEquals("First", page.video(0).getTitle());
+        assertNull(page.video(1)); // no snippet
+        assertEquals(Optional.of("CAoQAA"), page.getNextPageToken());
+    }
+
+    /**
+     * Tests that a failed request fails the CompletionStage with the IOException.
+     */
+    @Test
+    public void testSearchPageAsyncFailure() throws Exception {
+        doThrow(new IOException("offline")).when(youtubeService).createConnection(anyString());
+
+        try {
+            youtubeService.searchPageAsync("java", null, 10, Runnable::run).toCompletableFuture().join();
+            fail("Expected the search to fail");
+        } catch (java.util.concurrent.CompletionException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
     // Helper method to mock a Video object with tags for getVideoWithTags
     private Video mockVideoWithTags() {
         List<String> tags = new ArrayList<>();
@@ -0,0 +1,48 @@
+package utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.Test;
+import play.libs.Json;
+import test.MockVideoUtil;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for {@link FrameEncoding}.
+ * Verifies that every encoding round-trips a result frame and that names are resolved as expected.
+ * @author Hanieh
+ */
+public class FrameEncodingTest {
+
+    /**
+     * Tests that each encoding decodes exactly the frame it encoded, and that the binary ones are smaller.
+     */
+    @Test
+    public void testRoundTrip() {
+        JsonNode frame = Json.newObject()
+                .put("status", "success")
+                .set("result", Json.toJson(List.of(MockVideoUtil.mockingVideo("1"), MockVideoUtil.mockingVideo("2"))));
+        int jsonSize = FrameEncoding.JSON.encode(frame).length;
+
+        for (FrameEncoding encoding : FrameEncoding.values()) {
+            assertEquals(frame, encoding.decode(encoding.encode(frame)));
+            if (encoding.isBinary()) {
+                assertTrue(encoding + " should be smaller than JSON", encoding.encode(frame).length < jsonSize);
+            }
+        }
+    }
+
+    /**
+     * Tests that names are case-insensitive, that JSON is the default and that unknown names are rejected.
+     */
+    @Test
+    public void testFromName() {
+        assertEquals(FrameEncoding.JSON, FrameEncoding.fromName(null));
+        assertEquals(FrameEncoding.CBOR, FrameEncoding.fromName("cbor"));
+        assertEquals(FrameEncoding.SMILE, FrameEncoding.fromName("Smile"));
+        assertFalse(FrameEncoding.JSON.isBinary());
+        assertThrows(IllegalArgumentException.class, () -> FrameEncoding.fromName("xml"));
+    }
+}
@@ -0,0 +1,110 @@
+package utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link QuantileSketch}.
+ * @author Hanieh
+ */
+public class QuantileSketchTest {
+
+    /**
+     * Tests that quantiles of scores on both sides of zero are within the relative accuracy of the exact ones.
+     */
+    @Test
+    public void testQuantilesWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        double[] values = new double[10_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 10 == 0 ? 0.0 : -40 + random.nextDouble() * 160;
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, sketch.getCount());
+        for (double q : new double[]{0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 1}) {
+            double exact = values[(int) (q * (values.length - 1))];
+            double estimate = sketch.quantile(q);
+            assertEquals("q=" + q, exact, estimate, Math.abs(exact) * QuantileSketch.DEFAULT_RELATIVE_ACCURACY + 1e-9);
+        }
+        assertTrue(sketch.getBinCount() < 500);
+    }
+
+    /**
+     * Tests that merging sketches gives the same quantiles as adding every value to one sketch.
+     */
+    @Test
+    public void testMergeEqualsSingleSketch() {
+        Random random = new Random(7);
+        QuantileSketch whole = new QuantileSketch();
+        QuantileSketch left = new QuantileSketch();
+        QuantileSketch right = new QuantileSketch();
+        for (int i = 0; i < 2_000; i++) {
+            double value = random.nextGaussian() * 20 + (i % 2 == 0 ? 60 : 5);
+            whole.add(value);
+            (i % 2 == 0 ? left : right).add(value);
+        }
+        left.merge(right);
+
+        assertEquals(whole.getCount(), left.getCount());
+        for (double q = 0; q <= 1; q += 0.05) {
+            assertEquals(whole.quantile(q), left.quantile(q), 0.0);
+        }
+    }
+
+    /**
+     * Tests that removing values gives the same quantiles as a sketch that never held them.
+     */
+    @Test
+    public void testRemoveEqualsNeverAdded() {
+        Random random = new Random(11);
+        QuantileSketch kept = new QuantileSketch();
+        QuantileSketch sketch = new QuantileSketch();
+        double[] values = new double[1_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 7 == 0 ? 0.0 : random.nextGaussian() * 30;
+            sketch.add(values[i]);
+            if (i % 3 != 0) {
+                kept.add(values[i]);
+            }
+        }
+        for (int i = 0; i < values.length; i += 3) {
+            sketch.remove(values[i]);
+        }
+
+        assertEquals(kept.getCount(), sketch.getCount());
+        for (double q = 0; q <= 1; q += 0.05) {
+            assertEquals(kept.quantile(q), sketch.quantile(q), 0.0);
+        }
+        assertThrows(() -> new QuantileSketch().remove(1.0));
+    }
+
+    /**
+     * Tests empty sketches and invalid arguments.
+     */
+    @Test
+    public void testEmptyAndInvalid() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertThrows(() -> sketch.add(Double.NaN));
+        assertThrows(() -> sketch.quantile(1.5));
+        assertThrows(() -> new QuantileSketch(0));
+        assertThrows(() -> sketch.merge(new QuantileSketch(0.05)));
+    }
+
+    private static void assertThrows(Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (IllegalArgumentException expected) {
+            return;
+        }
+        throw new AssertionError("Expected an IllegalArgumentException");
+    }
+}
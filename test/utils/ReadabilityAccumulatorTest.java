@@ -0,0 +1,126 @@
+package utils;
+
+import models.Video;
+import org.junit.Test;
+import test.MockVideoUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link ReadabilityAccumulator} and {@link ScoreAccumulator}.
+ * @author Hanieh
+ */
+public class ReadabilityAccumulatorTest {
+
+    /**
+     * Tests that the accumulated means match the averages computed over the whole list.
+     */
+    @Test
+    public void testStatsMatchListAverages() {
+        List<Video> videos = new ArrayList<>();
+        for (String id : new String[]{"1", "2", "3", "4"}) {
+            Video video = MockVideoUtil.mockingVideo(id);
+            ReadabilityCalculator.calculateReadabilityScores(video);
+            videos.add(video);
+        }
+
+        ReadabilityStats expected = ReadabilityCalculator.calculateAverageReadabilityStats(videos);
+        ReadabilityStats actual = ReadabilityAccumulator.of(videos).toStats();
+
+        assertEquals(expected.getAvgGradeLevel(), actual.getAvgGradeLevel(), 0.01);
+        assertEquals(expected.getAvgReadingEaseScore(), actual.getAvgReadingEaseScore(), 0.01);
+    }
+
+    /**
+     * Tests count, mean, variance, minimum and maximum of a small known sample.
+     */
+    @Test
+    public void testMoments() {
+        ScoreAccumulator accumulator = new ScoreAccumulator();
+        for (double value : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            accumulator.add(value);
+        }
+
+        assertEquals(8, accumulator.getCount());
+        assertEquals(5.0, accumulator.getMean(), 1e-9);
+        assertEquals(2.0, accumulator.getStandardDeviation(), 1e-9);
+        assertEquals(2.0, accumulator.getMin(), 0.0);
+        assertEquals(9.0, accumulator.getMax(), 0.0);
+        assertEquals(4.0, accumulator.quantile(0.5), 4.0 * QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+        assertEquals(9.0, accumulator.quantile(1), 0.0);
+    }
+
+    /**
+     * Tests that accumulators of separate streams merge into the accumulator of the combined stream.
+     */
+    @Test
+    public void testMergeEqualsCombinedStream() {
+        Random random = new Random(3);
+        ReadabilityAccumulator combined = new ReadabilityAccumulator();
+        ReadabilityAccumulator first = new ReadabilityAccumulator();
+        ReadabilityAccumulator second = new ReadabilityAccumulator();
+        for (int i = 0; i < 1_000; i++) {
+            double grade = random.nextDouble() * 18 - 3;
+            double ease = random.nextDouble() * 130 - 10;
+            combined.add(grade, ease);
+            (i < 300 ? first : second).add(grade, ease);
+        }
+        first.merge(second);
+
+        assertEquals(combined.getCount(), first.getCount());
+        assertEquals(combined.getGradeLevel().getMean(), first.getGradeLevel().getMean(), 1e-9);
+        assertEquals(combined.getReadingEase().getVariance(), first.getReadingEase().getVariance(), 1e-6);
+        assertEquals(combined.toJson(), first.toJson());
+    }
+
+    /**
+     * Tests that removing videos leaves the statistics of the videos still counted, with the minimum
+     * and maximum within the sketch accuracy once an extreme is removed.
+     */
+    @Test
+    public void testRemoveEqualsRemainingVideos() {
+        Random random = new Random(5);
+        ReadabilityAccumulator window = new ReadabilityAccumulator();
+        ReadabilityAccumulator remaining = new ReadabilityAccumulator();
+        double[][] scores = new double[200][];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = new double[]{random.nextDouble() * 18 - 3, random.nextDouble() * 130 - 10};
+            window.add(scores[i][0], scores[i][1]);
+            if (i % 2 == 1) {
+                remaining.add(scores[i][0], scores[i][1]);
+            }
+        }
+        for (int i = 0; i < scores.length; i += 2) {
+            window.remove(scores[i][0], scores[i][1]);
+        }
+
+        ScoreAccumulator grade = window.getGradeLevel();
+        ScoreAccumulator expected = remaining.getGradeLevel();
+        assertEquals(remaining.getCount(), window.getCount());
+        assertEquals(expected.getMean(), grade.getMean(), 1e-9);
+        assertEquals(expected.getVariance(), grade.getVariance(), 1e-6);
+        assertEquals(expected.getMin(), grade.getMin(), Math.abs(expected.getMin()) * QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+        assertEquals(expected.getMax(), grade.getMax(), Math.abs(expected.getMax()) * QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+        assertEquals(expected.quantile(0.5), grade.quantile(0.5), 1e-9);
+
+        for (int i = 1; i < scores.length; i += 2) {
+            window.remove(scores[i][0], scores[i][1]);
+        }
+        assertEquals(new ReadabilityAccumulator().toJson(), window.toJson());
+    }
+
+    /**
+     * Tests that an empty accumulator reports zeros rather than infinities or NaN.
+     */
+    @Test
+    public void testEmpty() {
+        ReadabilityAccumulator accumulator = new ReadabilityAccumulator();
+        assertEquals(0, accumulator.getCount());
+        assertEquals(0.0, accumulator.toStats().getAvgGradeLevel(), 0.0);
+        assertEquals(0.0, accumulator.toJson().get("readingEase").get("p99").asDouble(), 0.0);
+    }
+}
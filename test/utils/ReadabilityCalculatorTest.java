@@ -10,8 +10,12 @@ import play.mvc.Result;
 import utils.ReadabilityCalculator;
 import utils.ReadabilityStats;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -129,4 +133,95 @@ public class ReadabilityCalculatorTest {
         assertEquals(4.40, stats.getAvgGradeLevel(), 0.01);
         assertEquals(81.00, stats.getAvgReadingEaseScore(), 0.01);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that a batch split across a pool gives every video the same scores as sequential scoring,
+     * and the same averages as {@link ReadabilityCalculator#calculateAverageReadabilityStats(List)}.
+     */
+    @Test
+    public void testScoreBatchInParallelMatchesSequential() {
+        List<Video> sequential = randomVideos(3000);
+        List<Video> parallel = new LinkedList<>(randomVideos(3000));
+        ReadabilityCalculator.calculateReadabilityScores(sequential);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ReadabilityBatch batch = ReadabilityCalculator.scoreBatch(parallel, pool, 16);
+
+            assertSame(parallel, batch.getVideos());
+            assertEquals(3000, batch.size());
+            for (int i = 0; i < sequential.size(); i++) {
+                assertEquals(sequential.get(i).getFleschKincaidGradeLevel(), parallel.get(i).getFleschKincaidGradeLevel(), 0.0);
+                assertEquals(sequential.get(i).getFleschReadingEaseScore(), parallel.get(i).getFleschReadingEaseScore(), 0.0);
+                assertEquals(sequential.get(i).getFleschKincaidGradeLevel(), batch.getGradeLevel(i), 0.0);
+                assertEquals(sequential.get(i).getFleschReadingEaseScore(), batch.getReadingEaseScore(i), 0.0);
+            }
+            ReadabilityStats expected = ReadabilityCalculator.calculateAverageReadabilityStats(sequential);
+            assertEquals(expected.getAvgGradeLevel(), batch.getStats().getAvgGradeLevel(), 0.0);
+            assertEquals(expected.getAvgReadingEaseScore(), batch.getStats().getAvgReadingEaseScore(), 0.0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Tests that batches up to the threshold are scored without the pool, and an empty batch averages zero.
+     */
+    @Test
+    public void testScoreBatchBelowThresholdStaysOnCallingThread() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        pool.shutdown();
+
+        ReadabilityBatch batch = ReadabilityCalculator.scoreBatch(randomVideos(8), pool, 8);
+        assertEquals(8, batch.size());
+
+        ReadabilityBatch empty = ReadabilityCalculator.scoreBatch(new ArrayList<>(), pool, 8);
+        assertEquals(0, empty.size());
+        assertEquals(0.0, empty.getStats().getAvgGradeLevel(), 0.0);
+        assertEquals(0.0, empty.getStats().getAvgReadingEaseScore(), 0.0);
+    }
+
+    /**
+     * Tests that a threshold below one is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testScoreBatchRejectsInvalidThreshold() {
+        ReadabilityCalculator.scoreBatch(randomVideos(1), ForkJoinPool.commonPool(), 0);
+    }
+
+    /**
+     * Tests that averages are taken over the raw scores and rounded once, as before batches existed:
+     * rounding each score first would give -16.56 here instead of -16.57.
+     */
+    @Test
+    public void testAverageIsRoundedOnce() {
+        List<Video> videos = new ArrayList<>();
+        for (double score : new double[]{-50.43, 26.45, -36.63, -5.65}) {
+            Video video = new Video("thumbnail.jpg", "Title", "Channel", "Description.", "videoId", "channelId", null);
+            video.setFleschKincaidGradeLevel(score);
+            video.setFleschReadingEaseScore(score);
+            videos.add(video);
+        }
+
+        ReadabilityStats stats = ReadabilityCalculator.calculateAverageReadabilityStats(videos);
+
+        assertEquals(-16.57, stats.getAvgGradeLevel(), 0.0);
+        assertEquals(-16.57, stats.getAvgReadingEaseScore(), 0.0);
+    }
+
+    private static List<Video> randomVideos(int count) {
+        String[] words = {"a", "simple", "test", "description", "with", "more", "words", "and", "complexity",
+                "readability", "is", "fun.", "really?", "yes!"};
+        Random random = new Random(7);
+        List<Video> videos = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder description = new StringBuilder();
+            for (int w = random.nextInt(30); w >= 0; w--) {
+                description.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            videos.add(new Video("thumbnail.jpg", "Title" + i, "Channel", description.toString(),
+                    "videoId" + i, "channelId", null));
+        }
+        return videos;
+    }
+}
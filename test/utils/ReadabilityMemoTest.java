@@ -0,0 +1,82 @@
+package utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link ReadabilityMemo}.
+ * @author Hanieh
+ */
+public class ReadabilityMemoTest {
+
+    /**
+     * Tests that memoized scores are the rounded scores of the text, whether scanned or remembered.
+     */
+    @Test
+    public void testScoresMatchTokenizer() {
+        ReadabilityMemo memo = new ReadabilityMemo(16);
+        ReadabilityTokenizer tokenizer = new ReadabilityTokenizer();
+        for (String text : new String[]{"This is a simple sentence for testing.", "", "   ", "Short.",
+                "Another test description with more words and complexity.", "Antidisestablishmentarianism"}) {
+            ReadabilityTokenizer reference = new ReadabilityTokenizer().scan(text);
+            for (int lookup = 0; lookup < 2; lookup++) {
+                long scores = memo.scores(text, tokenizer);
+                assertEquals(text, Math.round(reference.gradeLevel() * 100.0) / 100.0, ReadabilityMemo.gradeLevel(scores), 0.0);
+                assertEquals(text, Math.round(reference.readingEase() * 100.0) / 100.0, ReadabilityMemo.readingEase(scores), 0.0);
+            }
+        }
+    }
+
+    /**
+     * Tests that equal descriptions are scanned once and the report counts hits, misses and memory.
+     */
+    @Test
+    public void testReportsHitRate() {
+        ReadabilityMemo memo = new ReadabilityMemo(16);
+        ReadabilityTokenizer tokenizer = new ReadabilityTokenizer();
+        memo.scores("A simple test description.", tokenizer);
+        memo.scores(new StringBuilder("A simple test ").append("description."), tokenizer);
+        memo.scores("A simple test description.", tokenizer);
+        memo.scores("Another description.", tokenizer);
+
+        ReadabilityMemo.Report report = memo.report();
+        assertEquals(2, report.getHits());
+        assertEquals(2, report.getMisses());
+        assertEquals(0.5, report.getHitRate(), 0.0);
+        assertEquals(2, report.getEntries());
+        assertEquals(2L * ReadabilityMemo.BYTES_PER_ENTRY, report.getEstimatedBytes());
+        assertTrue(report.toString().contains("hitRate=50.0%"));
+        assertEquals(0.5, report.toJson().get("hitRate").asDouble(), 0.0);
+        assertEquals(report.getEstimatedBytes(), report.toJson().get("estimatedBytes").asLong());
+    }
+
+    /**
+     * Tests that the memo stays within its bound.
+     */
+    @Test
+    public void testBounded() {
+        ReadabilityMemo memo = new ReadabilityMemo(100);
+        ReadabilityTokenizer tokenizer = new ReadabilityTokenizer();
+        for (int i = 0; i < 1000; i++) {
+            memo.scores("Description number " + i + ".", tokenizer);
+        }
+        ReadabilityMemo.Report report = memo.report();
+        assertTrue(report.getEntries() <= 100);
+        assertTrue(report.getEvictions() >= 900);
+    }
+
+    /**
+     * Tests that the key hash tells apart texts differing in one character, its position or their length.
+     */
+    @Test
+    public void testKeyHashDistinguishesTexts() {
+        assertEquals(ContentHash.keyOf("abcdefgh"), ContentHash.keyOf(new StringBuilder("abcdefgh")));
+        assertNotEquals(ContentHash.keyOf("abcdefgh"), ContentHash.keyOf("abcdefgi"));
+        assertNotEquals(ContentHash.keyOf("abcdefgh"), ContentHash.keyOf("bacdefgh"));
+        assertNotEquals(ContentHash.keyOf("abcd"), ContentHash.keyOf("abcd\0"));
+        assertEquals(ContentHash.keyOf(""), ContentHash.keyOf(null));
+    }
+}
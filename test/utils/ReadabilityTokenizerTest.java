@@ -0,0 +1,130 @@
+package utils;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link ReadabilityTokenizer}, checked against the regex-based counting it replaced.
+ * @author Hanieh
+ */
+public class ReadabilityTokenizerTest {
+
+    private static final List<String> CORPUS = List.of(
+            "This is a simple sentence for testing.",
+            "A simple test description.",
+            "Another test description with more words and complexity.",
+            "Description for video 1",
+            "", " ", "   \t\n", ".", "...", "!?.", "a.", ".a", "Hello world", "Hello world.", "  leading space.",
+            "trailing space.  ", "\ttabs\tand\nnewlines\r\nand\u000Bvertical\ftabs.", "What?! Really... yes.",
+            "THE QUICK BROWN FOX JUMPS OVER THE LAZY DOG. Théâtre café naïve résumé!", "queue rhythm eye free",
+            "e E ee EE the THE be", "İstanbul İİ aİ İa", "Subscribe!!! Like & share :) https://example.com/x?y=1",
+            "Ünïcödé wörds ÅÆØ ŒUVRE", "line one.\n\nline two?\n\n");
+
+    /**
+     * Tests that the counts and both scores equal those of the previous implementation on the corpus.
+     */
+    @Test
+    public void testMatchesRegexCountingOnCorpus() {
+        for (String text : CORPUS) {
+            assertSameAsRegex(text);
+        }
+    }
+
+    /**
+     * Tests random texts made of the characters that drive the counting rules.
+     */
+    @Test
+    public void testMatchesRegexCountingOnRandomTexts() {
+        String alphabet = "aeiouyAEIOUYbcdxzBZeE .!?\t\n\r\fİé1";
+        Random random = new Random(42);
+        for (int n = 0; n < 5000; n++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertSameAsRegex(text.toString());
+        }
+    }
+
+    /**
+     * Tests that a reused tokenizer does not carry counts over from the previous text.
+     */
+    @Test
+    public void testReuse() {
+        ReadabilityTokenizer tokenizer = new ReadabilityTokenizer();
+        tokenizer.scan("Many words in several sentences. Here is another one!");
+        tokenizer.scan("Short.");
+        assertEquals(1, tokenizer.getSentences());
+        assertEquals(1, tokenizer.getWords());
+        assertEquals(1, tokenizer.getSyllables());
+    }
+
+    private static void assertSameAsRegex(String text) {
+        ReadabilityTokenizer tokenizer = new ReadabilityTokenizer().scan(text);
+        String label = "\"" + text + "\"";
+        assertEquals(label, RegexCounting.countSentences(text), tokenizer.getSentences());
+        assertEquals(label, RegexCounting.countWords(text), tokenizer.getWords());
+        assertEquals(label, RegexCounting.countSyllables(text), tokenizer.getSyllables());
+        assertEquals(label, RegexCounting.gradeLevel(text), tokenizer.gradeLevel(), 0.0);
+        assertEquals(label, RegexCounting.readingEase(text), tokenizer.readingEase(), 0.0);
+    }
+
+    /**
+     * The counting of {@link ReadabilityCalculator} before the tokenizer, kept as the reference.
+     */
+    private static final class RegexCounting {
+        static double gradeLevel(String text) {
+            int sentenceCount = countSentences(text);
+            int wordCount = countWords(text);
+            int syllableCount = countSyllables(text);
+            if (sentenceCount == 0 || wordCount == 0) return 0.0;
+            return 0.39 * ((double) wordCount / sentenceCount) + 11.8 * ((double) syllableCount / wordCount) - 15.59;
+        }
+
+        static double readingEase(String text) {
+            int sentenceCount = countSentences(text);
+            int wordCount = countWords(text);
+            int syllableCount = countSyllables(text);
+            if (sentenceCount == 0 || wordCount == 0) return 0.0;
+            return 206.835 - (1.015 * ((double) wordCount / sentenceCount)) - (84.6 * ((double) syllableCount / wordCount));
+        }
+
+        static int countSentences(String text) {
+            return text.split("[.!?]").length;
+        }
+
+        static int countWords(String text) {
+            return text.split("\\s+").length;
+        }
+
+        static int countSyllables(String text) {
+            int syllableCount = 0;
+            for (String word : text.split("\\s+")) {
+                syllableCount += countSyllablesInWord(word);
+            }
+            return syllableCount;
+        }
+
+        static int countSyllablesInWord(String word) {
+            word = word.toLowerCase();
+            int count = 0;
+            boolean lastWasVowel = false;
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if ("aeiouy".indexOf(c) >= 0) {
+                    if (!lastWasVowel) count++;
+                    lastWasVowel = true;
+                } else {
+                    lastWasVowel = false;
+                }
+            }
+            if (word.endsWith("e")) count--;
+            return Math.max(count, 1);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link WordFrequency} and {@link CountMinSketch}.
+ * @author Hanieh
+ */
+public class WordFrequencyTest {
+
+    private static List<String> words(WordFrequency frequency, int limit) {
+        List<String> words = new ArrayList<>();
+        frequency.top(limit).forEach(count -> words.add(count.getWord()));
+        return words;
+    }
+
+    /**
+     * Tests that words are split like the readability tokenizer, normalized, and that stop words,
+     * numbers and links are skipped.
+     */
+    @Test
+    public void testNormalizesAndSkipsStopWords() {
+        WordFrequency frequency = new WordFrequency(1024, 4, 10)
+                .add("The Java tutorial: JAVA, java! And (Tutorial) 2024 https://example.com/java")
+                .add("Don’t miss it & subscribe");
+
+        assertEquals(List.of("java", "tutorial", "miss", "subscribe"), words(frequency, 10));
+        assertEquals(3, frequency.top(1).get(0).getCount());
+        assertEquals(7, frequency.getTotal());
+    }
+
+    /**
+     * Tests that the heap keeps the most frequent words of a skewed stream and never undercounts.
+     */
+    @Test
+    public void testTopKOfSkewedStream() {
+        Random random = new Random(11);
+        Map<String, Integer> exact = new HashMap<>();
+        WordFrequency frequency = new WordFrequency(256, 4, 5);
+        for (int i = 0; i < 20_000; i++) {
+            // Zipf-like: word k appears with probability proportional to 1 / k
+            int k = (int) Math.floor(Math.exp(random.nextDouble() * Math.log(2000)));
+            String word = "word" + k;
+            exact.merge(word, 1, Integer::sum);
+            frequency.add(word);
+        }
+
+        assertEquals(List.of("word1", "word2", "word3"), words(frequency, 3));
+        for (WordFrequency.WordCount count : frequency.top(5)) {
+            assertTrue(count.getWord(), count.getCount() >= exact.get(count.getWord()));
+        }
+    }
+
+    /**
+     * Tests that words extracted once count exactly like the texts they came from, into several counts.
+     */
+    @Test
+    public void testExtractedWordsCountLikeTexts() {
+        String title = "The Java tutorial: JAVA, java! And (Tutorial) 2024 https://example.com/java";
+        String description = "Don’t miss it & subscribe to Java";
+        WordFrequency.Words words = WordFrequency.Words.of(title, null, description);
+        WordFrequency expected = new WordFrequency(1024, 4, 10).add(title).add(description);
+
+        for (int i = 0; i < 2; i++) {
+            WordFrequency frequency = new WordFrequency(1024, 4, 10).add(words);
+            assertEquals(8, words.size());
+            assertEquals(expected.getTotal(), frequency.getTotal());
+            assertEquals(expected.top(10).toString(), frequency.top(10).toString());
+        }
+        assertEquals(ContentHash.keyOf("java"), ContentHash.keyOf("a java b", 2, 6));
+    }
+
+    /**
+     * Tests that two word counts merge into the counts of the combined stream.
+     */
+    @Test
+    public void testMerge() {
+        WordFrequency left = new WordFrequency(1024, 4, 3).add("alpha alpha beta");
+        WordFrequency right = new WordFrequency(1024, 4, 3).add("beta beta gamma");
+
+        left.merge(right);
+
+        assertEquals(List.of("beta", "alpha", "gamma"), words(left, 3));
+        assertEquals(3, left.top(1).get(0).getCount());
+        assertEquals(6, left.getTotal());
+    }
+
+    /**
+     * Tests that a count-min sketch never undercounts and rejects invalid dimensions.
+     */
+    @Test
+    public void testCountMinSketch() {
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+        for (long key = 0; key < 1000; key++) {
+            for (int i = 0; i <= key % 5; i++) {
+                sketch.add(ContentHash.keyOf("key" + key));
+            }
+        }
+        for (long key = 0; key < 1000; key++) {
+            assertTrue(sketch.estimate(ContentHash.keyOf("key" + key)) >= key % 5 + 1);
+        }
+        assertEquals(64 * 4 * 4, sketch.getBytes());
+        try {
+            new CountMinSketch(100, 4);
+            throw new AssertionError("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // width is not a power of two
+        }
+    }
+}